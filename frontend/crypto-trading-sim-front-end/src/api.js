@@ -1,6 +1,15 @@
 const API = "http://localhost:8080/api";
+const PRICE_STREAM = "ws://localhost:8080/ws/prices";
 
 export const getPrices = () => fetch(`${API}/prices`).then(res => res.json());
+// Server push: first message is a full snapshot, later ones only carry changed symbols
+export const openPriceStream = (onPrices, onClose) => {
+  const socket = new WebSocket(PRICE_STREAM);
+  socket.onmessage = (event) => onPrices(JSON.parse(event.data).prices);
+  socket.onclose = onClose;
+  return socket;
+};
+
 export const getAccount = () => fetch(`${API}/account`).then(res => res.json());
 export const getTransactions = () => fetch(`${API}/transactions`).then(res => res.json());
 
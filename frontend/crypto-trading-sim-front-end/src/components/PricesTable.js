@@ -1,17 +1,25 @@
-import React, { useEffect, useState } from "react";
-import { getPrices } from "../api";
+import React, { useEffect, useRef, useState } from "react";
+import { getPrices, openPriceStream } from "../api";
 
 export default function PricesTable({ onSymbolsLoaded }) {
   const [prices, setPrices] = useState({});
   const [error, setError] = useState("");
+  const symbolsLoaded = useRef(onSymbolsLoaded);
+  symbolsLoaded.current = onSymbolsLoaded;
 
   useEffect(() => {
+    let socket = null;
+    let interval = null;
+    let closed = false;
+
+    const apply = (data, replace) => {
+      setPrices(prev => (replace ? data : { ...prev, ...data }));
+      setError(""); // clear any old error if successful
+    };
+
     const load = async () => {
       try {
-        const data = await getPrices();
-        setPrices(data);
-        onSymbolsLoaded(Object.keys(data));
-        setError(""); // clear any old error if successful
+        apply(await getPrices(), true);
       } catch (err) {
         const msg =
           err?.response?.data?.message ||
@@ -21,10 +29,31 @@ export default function PricesTable({ onSymbolsLoaded }) {
       }
     };
 
+    // Fall back to polling every 2s if the stream is unavailable or drops
+    const startPolling = () => {
+      if (closed || interval) return;
+      load();
+      interval = setInterval(load, 2000);
+    };
+
     load(); // initial load
-    const interval = setInterval(load, 2000); // repeat every 2s
-    return () => clearInterval(interval); // cleanup
-  }, [onSymbolsLoaded]);
+    try {
+      socket = openPriceStream(data => apply(data, false), startPolling);
+    } catch (err) {
+      startPolling();
+    }
+
+    return () => { // cleanup
+      closed = true;
+      if (socket) socket.close();
+      if (interval) clearInterval(interval);
+    };
+  }, []);
+
+  const symbolKey = Object.keys(prices).join(",");
+  useEffect(() => {
+    symbolsLoaded.current(symbolKey ? symbolKey.split(",") : []);
+  }, [symbolKey]);
 
   return (
     <section>
@@ -1,5 +1,11 @@
 package org.example.crypto;
 
+import org.example.crypto.account.UnknownAccountException;
+import org.example.crypto.account.WrongShardException;
+import org.example.crypto.account.ledger.LedgerWriteException;
+import org.example.crypto.admission.IdempotencyKeyReusedException;
+import org.example.crypto.price.StalePriceException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -9,11 +15,42 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    public static final String SHARD_HEADER = "X-Account-Shard";
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<?> handleIllegalArg(IllegalArgumentException ex) {
         return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
     }
 
+    @ExceptionHandler(StalePriceException.class)
+    public ResponseEntity<?> handleStalePrice(StalePriceException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(UnknownAccountException.class)
+    public ResponseEntity<?> handleUnknownAccount(UnknownAccountException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", ex.getMessage()));
+    }
+
+    // 421 Misdirected Request: the shard header tells a client or balancer which node to retry on
+    @ExceptionHandler(WrongShardException.class)
+    public ResponseEntity<?> handleWrongShard(WrongShardException ex) {
+        return ResponseEntity.status(421)
+                .header(SHARD_HEADER, Integer.toString(ex.getShard()))
+                .body(Map.of("message", ex.getMessage()));
+    }
+
+    // 202 Accepted: the trade took effect but is not yet persisted; unlike a 5xx it must not be retried
+    @ExceptionHandler(LedgerWriteException.class)
+    public ResponseEntity<?> handleLedgerWrite(LedgerWriteException ex) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<?> handleKeyReused(IdempotencyKeyReusedException ex) {
+        return ResponseEntity.unprocessableEntity().body(Map.of("message", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleOther(Exception ex) {
         return ResponseEntity.internalServerError().body(Map.of("message", "Internal error: " + ex.getMessage()));
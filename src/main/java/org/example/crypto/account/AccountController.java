@@ -1,43 +1,208 @@
 package org.example.crypto.account;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.example.crypto.account.dto.*;
+import org.example.crypto.admission.IdempotencyCache;
+import org.example.crypto.common.ResponseCache;
 import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.ring.TickRingBuffer;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin
 public class AccountController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final AccountService service;
     private final KrakenPriceService priceService;
+    private final ObjectMapper mapper;
+    private final ResponseCache cache;
+    private final IdempotencyCache idempotency;
+
+    // Keys of the polled responses kept in the cache
+    private record PricesKey() { }
+    private record AccountKey(long id) { }
+    private record HistoryKey(long id, TransactionQuery query) { }
 
-    public AccountController(AccountService service, KrakenPriceService priceService) {
+    // What an idempotency key was first used for; a retry must repeat it exactly
+    private record Trade(String operation, Object request) { }
+
+    public AccountController(AccountService service, KrakenPriceService priceService, ObjectMapper mapper,
+                             ResponseCache cache, IdempotencyCache idempotency) {
         this.service = service;
         this.priceService = priceService;
+        this.mapper = mapper;
+        this.cache = cache;
+        this.idempotency = idempotency;
     }
 
+    // Polled endpoints are served from pre-serialized bodies, rebuilt only when their version moves on
     @GetMapping("/prices")
-    public Map<String, BigDecimal> prices() {
-        return priceService.getCurrentPrices();
+    public ResponseEntity<byte[]> prices(WebRequest request) {
+        long version = priceService.getPriceVersion();
+        return cache.respond(new PricesKey(), version, () -> ResponseCache.Body.of(priceService.getCurrentPrices()), request);
+    }
+
+    // Tick ring metrics: ticks published, producer waits and each consumer's lag
+    @GetMapping("/prices/pipeline")
+    public TickRingBuffer.Stats pipeline() {
+        return priceService.getPipelineStats();
     }
 
     @GetMapping("/account")
-    public AccountDTO account() { return service.getAccount(); }
+    public ResponseEntity<byte[]> account(WebRequest request) { return account(AccountService.DEFAULT_ACCOUNT_ID, request); }
 
     @GetMapping("/transactions")
-    public List<TransactionDTO> transactions() { return service.getTransactions(); }
+    public ResponseEntity<byte[]> transactions(
+            @RequestParam(name = "symbol", required = false) String symbol,
+            @RequestParam(name = "type", required = false) String type,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            WebRequest request) {
+        return transactions(AccountService.DEFAULT_ACCOUNT_ID, symbol, type, from, to, cursor, limit, request);
+    }
+
+    @GetMapping(value = "/transactions/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(name = "symbol", required = false) String symbol,
+            @RequestParam(name = "type", required = false) String type,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return exportTransactions(AccountService.DEFAULT_ACCOUNT_ID, symbol, type, from, to);
+    }
 
     @PostMapping("/buy")
-    public AccountDTO buy(@Valid @RequestBody BuySellRequest req) { return service.buy(req); }
+    public ResponseEntity<AccountDTO> buy(@Valid @RequestBody BuySellRequest req,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(AccountService.DEFAULT_ACCOUNT_ID, key, new Trade("BUY", req), () -> service.buy(req));
+    }
 
     @PostMapping("/sell")
-    public AccountDTO sell(@Valid @RequestBody BuySellRequest req) { return service.sell(req); }
+    public ResponseEntity<AccountDTO> sell(@Valid @RequestBody BuySellRequest req,
+                                           @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(AccountService.DEFAULT_ACCOUNT_ID, key, new Trade("SELL", req), () -> service.sell(req));
+    }
 
     @PostMapping("/reset")
     public AccountDTO reset() { return service.reset(); }
+
+    @PostMapping("/orders/batch")
+    public ResponseEntity<BatchOrderResultDTO> batch(@RequestBody BatchOrderRequest req,
+                                                     @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(AccountService.DEFAULT_ACCOUNT_ID, key, new Trade("BATCH", req), () -> service.submitBatch(req.orders()));
+    }
+
+    // Account-scoped endpoints; the unscoped ones above act on the default account
+
+    @PostMapping("/accounts")
+    public AccountCreatedDTO createAccount(@Valid @RequestBody(required = false) CreateAccountRequest req) {
+        return service.createAccount(req == null ? null : req.balance());
+    }
+
+    @GetMapping("/accounts/{id}")
+    public ResponseEntity<byte[]> account(@PathVariable("id") long id, WebRequest request) {
+        long version = service.accountVersion(id);
+        return cache.respond(new AccountKey(id), version, () -> ResponseCache.Body.of(service.getAccount(id)), request);
+    }
+
+    // One page, newest first; the cursor for the next page is returned in the X-Next-Cursor header
+    @GetMapping("/accounts/{id}/transactions")
+    public ResponseEntity<byte[]> transactions(
+            @PathVariable("id") long id,
+            @RequestParam(name = "symbol", required = false) String symbol,
+            @RequestParam(name = "type", required = false) String type,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            WebRequest request) {
+        TransactionQuery query = new TransactionQuery(symbol, type, from, to, cursor, limit);
+        long version = service.historyVersion(id);
+        return cache.respond(new HistoryKey(id, query), version, () -> {
+            TransactionPageDTO page = service.getTransactions(id, query);
+            Map<String, String> headers = page.nextCursor() == null ? Map.of() : Map.of(NEXT_CURSOR_HEADER, page.nextCursor());
+            return new ResponseCache.Body(page.items(), headers);
+        }, request);
+    }
+
+    // Whole (filtered) history as newline-delimited JSON, written row by row as it is read
+    @GetMapping(value = "/accounts/{id}/transactions/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable("id") long id,
+            @RequestParam(name = "symbol", required = false) String symbol,
+            @RequestParam(name = "type", required = false) String type,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionQuery query = new TransactionQuery(symbol, type, from, to, null, null);
+        service.getAccount(id); // fail with 404 before the response is committed
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator gen = mapper.getFactory().createGenerator(out);
+            gen.setRootValueSeparator(null); // rows are separated by the newline alone
+            try {
+                service.exportTransactions(id, query, tx -> {
+                    try {
+                        writer.writeValue(gen, tx);
+                        gen.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                gen.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @PostMapping("/accounts/{id}/buy")
+    public ResponseEntity<AccountDTO> buy(@PathVariable("id") long id, @Valid @RequestBody BuySellRequest req,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(id, key, new Trade("BUY", req), () -> service.buy(id, req));
+    }
+
+    @PostMapping("/accounts/{id}/sell")
+    public ResponseEntity<AccountDTO> sell(@PathVariable("id") long id, @Valid @RequestBody BuySellRequest req,
+                                           @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(id, key, new Trade("SELL", req), () -> service.sell(id, req));
+    }
+
+    @PostMapping("/accounts/{id}/reset")
+    public AccountDTO reset(@PathVariable("id") long id) { return service.reset(id); }
+
+    @PostMapping("/accounts/{id}/orders/batch")
+    public ResponseEntity<BatchOrderResultDTO> batch(@PathVariable("id") long id, @RequestBody BatchOrderRequest req,
+                                                     @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String key) {
+        return idempotent(id, key, new Trade("BATCH", req), () -> service.submitBatch(id, req.orders()));
+    }
+
+    // Keys are scoped to the account; a replayed response is marked so clients can tell it apart
+    private <T> ResponseEntity<T> idempotent(long accountId, String key, Trade trade, Supplier<T> action) {
+        IdempotencyCache.Outcome<T> outcome = idempotency.execute(key == null ? null : accountId + ":" + key, trade, action);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (outcome.replayed()) response.header(REPLAYED_HEADER, "true");
+        return response.body(outcome.value());
+    }
 }
\ No newline at end of file
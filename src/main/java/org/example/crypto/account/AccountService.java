@@ -1,137 +1,482 @@
 package org.example.crypto.account;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.example.crypto.account.TradeMetrics.Source;
+import org.example.crypto.account.dto.AccountCreatedDTO;
 import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BatchOrderResultDTO;
 import org.example.crypto.account.dto.BuySellRequest;
 import org.example.crypto.account.dto.HoldingDTO;
+import org.example.crypto.account.dto.OrderRequest;
+import org.example.crypto.account.dto.OrderResultDTO;
 import org.example.crypto.account.dto.TransactionDTO;
+import org.example.crypto.account.dto.TransactionPageDTO;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.account.ledger.LedgerIds;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.cluster.ShardMap;
 import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+import org.example.crypto.price.StalePriceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 @Service
 public class AccountService {
 
     private final JdbcTemplate jdbc;
     private final KrakenPriceService priceService;
+    private final LedgerJournal journal;
+    private final LedgerLoader loader;
 
-    private static final long ACCOUNT_ID = 1L;
+    public static final long DEFAULT_ACCOUNT_ID = 1L;
     private static final BigDecimal START_BALANCE = new BigDecimal("10000");
+    private static final int EXPORT_FETCH_SIZE = 1000;
 
-    public AccountService(JdbcTemplate jdbc, KrakenPriceService priceService) {
+    private final LedgerIds ids = new LedgerIds();
+    private final Map<Long, Ledger> ledgers = new ConcurrentHashMap<>();
+    private final List<LongConsumer> changeListeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Revision> revisions = new ConcurrentHashMap<>();
+
+    // Ledger changes applied to an account and the symbols it held after the last one
+    private record Revision(long changes, String[] held) { }
+
+    // Serializes validate -> journal -> apply per account so the journal sees each account's trades
+    // in ledger order; accounts hashing to different stripes trade in parallel
+    @Value("${accounts.lock-stripes:256}")
+    private int lockStripes = 256;
+    private ReentrantLock[] stripes;
+
+    @Value("${orders.batch.max-size:10000}")
+    private int maxBatchSize = 10000;
+
+    // Price move, in basis points, for each further displayed size an order reaches past the top of
+    // book; 0 fills any size at the touch
+    @Value("${trading.slippage.impact-bps:0}")
+    private double slippageImpactBps = 0;
+
+    // Accounts this node serves: those with id mod count == index; the rest are refused with their shard
+    @Value("${node.shard.count:1}")
+    private int shardCount = 1;
+
+    @Value("${node.shard.index:0}")
+    private int shardIndex = 0;
+    private ShardMap shard = ShardMap.SINGLE;
+
+    private TradeMetrics metrics = TradeMetrics.detached();
+
+    public AccountService(JdbcTemplate jdbc, KrakenPriceService priceService, LedgerJournal journal, LedgerLoader loader) {
         this.jdbc = jdbc;
         this.priceService = priceService;
+        this.journal = journal;
+        this.loader = loader;
     }
 
-    // Returns the current account balance and all holdings
-    public AccountDTO getAccount() {
-        BigDecimal balance = jdbc.queryForObject("SELECT balance FROM account WHERE id=?", BigDecimal.class, ACCOUNT_ID);
-        List<HoldingDTO> holdings = jdbc.query(
-                "SELECT symbol, quantity FROM holdings", (rs, rowNum) -> mapHolding(rs));
-        return new AccountDTO(balance, holdings);
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        metrics = new TradeMetrics(registry);
     }
 
-    // Returns all past transactions sorted by most recent
-    public List<TransactionDTO> getTransactions() {
-        return jdbc.query("SELECT * FROM transactions ORDER BY timestamp DESC", (rs, n) -> mapTx(rs));
+    // Rebuilds the in-memory ledgers from the database
+    @PostConstruct
+    public void init() {
+        int n = Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1; // next power of two
+        stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) stripes[i] = new ReentrantLock();
+
+        shard = new ShardMap(shardCount, shardIndex);
+        ids.shard(shard);
+        ledgers.clear();
+        ledgers.putAll(loader.loadAll(ids));
+        ledgers.keySet().removeIf(id -> !shard.owns(id)); // e.g. the default account, seeded on every node
+        revisions.clear();
+        ledgers.values().forEach(ledger -> revise(ledger, 0));
     }
 
-    // Handles buying of cryptocurrency
-    @Transactional
-    public AccountDTO buy(BuySellRequest req) {
-        validateRequest(req); // check for nulls, empty symbol, or invalid quantity
+    // Opens a new account with the given (or default) starting balance
+    public AccountCreatedDTO createAccount(BigDecimal balance) {
+        BigDecimal start = balance == null ? START_BALANCE : balance;
+        if (start.signum() < 0) throw new IllegalArgumentException("Balance cannot be negative.");
+        Ledger.checkBalance(start);
+
+        long id = ids.nextAccountId();
+        jdbc.update("INSERT INTO account(id, balance) VALUES (?,?)", id, start);
+        Ledger ledger = new Ledger(id, start, loader.getMethod(), ids);
+        revise(ledger, 0);
+        ledgers.put(id, ledger);
+        return new AccountCreatedDTO(id, start);
+    }
 
-        BigDecimal price = requiredPrice(req.symbol()); // get current price
-        BigDecimal cost = price.multiply(req.quantity()); // total cost of purchase
+    public AccountDTO getAccount() { return getAccount(DEFAULT_ACCOUNT_ID); }
 
-        // Check if balance is sufficient
-        BigDecimal balance = jdbc.queryForObject("SELECT balance FROM account WHERE id=?", BigDecimal.class, ACCOUNT_ID);
-        if (balance.compareTo(cost) < 0) {
-            throw new IllegalArgumentException("Insufficient balance to complete purchase.");
+    // Returns the current account balance and all holdings
+    public AccountDTO getAccount(long accountId) {
+        Ledger ledger = ledger(accountId);
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            return toAccountDTO(ledger);
+        } finally {
+            lock.unlock();
         }
+    }
 
+    /** Copy of an account's ledger, taken between trades. */
+    public Ledger snapshot(long accountId) {
+        Ledger ledger = ledger(accountId);
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
         try {
-            // Deduct the cost from the account balance
-            jdbc.update("UPDATE account SET balance = balance - ? WHERE id=?", cost, ACCOUNT_ID);
+            return ledger.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            // Add to holdings or insert new holding if it doesn't exist
-            int updated = jdbc.update("UPDATE holdings SET quantity = quantity + ? WHERE symbol = ?", req.quantity(), req.symbol());
-            if (updated == 0) {
-                jdbc.update("INSERT INTO holdings(symbol, quantity) VALUES (?,?)", req.symbol(), req.quantity());
-            }
+    /** The accounts this node serves, known once {@link #init()} has run. */
+    public ShardMap getShard() {
+        return shard;
+    }
+
+    /**
+     * Registers a callback for ledger changes. It receives the account id after every trade, batch or reset
+     * has been applied, on the thread that made it, so it should only invalidate or enqueue.
+     */
+    public void addChangeListener(LongConsumer listener) {
+        changeListeners.add(listener);
+    }
 
-            // Record the transaction
-            jdbc.update("INSERT INTO transactions(symbol, quantity, price, type, timestamp) VALUES (?,?,?,?,?)",
-                    req.symbol(), req.quantity(), price, "BUY", LocalDateTime.now());
+    private void changed(long accountId) {
+        for (LongConsumer listener : changeListeners) listener.accept(accountId);
+    }
 
-            return getAccount(); // Return updated account info
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to complete BUY operation: " + ex.getMessage(), ex);
+    /**
+     * Changes whenever what {@link #getAccount(long)} returns can have changed: after every ledger change
+     * and every tick on a symbol the account holds. Cheap enough to read on each request.
+     */
+    public long accountVersion(long accountId) {
+        Revision revision = revisions.get(accountId);
+        if (revision == null) return 0;
+        PriceTable table = priceService.getPriceTable();
+        long prices = 0;
+        for (String symbol : revision.held()) {
+            int id = table.idOf(symbol);
+            if (id >= 0) prices += table.version(id);
         }
+        return (revision.changes() << 40) + prices; // each slot moves by 2 per tick; 2^40 is far off
     }
 
-    // Handles selling of cryptocurrency
-    @Transactional
-    public AccountDTO sell(BuySellRequest req) {
-        validateRequest(req); // validate input
+    /**
+     * Changes whenever the account's transaction history can have changed: after every trade, batch or reset
+     * applied to its ledger, whether or not the journal has written it yet. History reads flush the journal
+     * first, so a page built after reading this version holds at least the rows it stands for.
+     */
+    public long historyVersion(long accountId) {
+        Revision revision = revisions.get(accountId);
+        return revision == null ? 0 : revision.changes();
+    }
+
+    // Called under the account lock once a change is applied, so readers see the new version only
+    // together with the new ledger state
+    private void revise(Ledger ledger, long changes) {
+        revisions.put(ledger.accountId(), new Revision(changes, ledger.holdings().keySet().toArray(new String[0])));
+    }
+
+    private void revise(Ledger ledger) {
+        Revision previous = revisions.get(ledger.accountId());
+        revise(ledger, previous == null ? 1 : previous.changes() + 1);
+    }
+
+    public List<TransactionDTO> getTransactions() { return getTransactions(DEFAULT_ACCOUNT_ID); }
+
+    // Returns the most recent page of an account's transactions
+    public List<TransactionDTO> getTransactions(long accountId) {
+        return getTransactions(accountId, TransactionQuery.all()).items();
+    }
+
+    // Returns one page of transactions matching the query, most recent first
+    public TransactionPageDTO getTransactions(long accountId, TransactionQuery query) {
+        ledger(accountId);
+        journal.flush(); // history is read from the database, so let pending writes land first
+
+        List<Object> args = new ArrayList<>();
+        String sql = historySql(accountId, query, args) + " LIMIT ?";
+        int size = query.pageSize();
+        args.add(size + 1); // one extra row tells whether another page follows
+
+        List<TransactionDTO> rows = jdbc.query(sql, (rs, n) -> mapTx(rs), args.toArray());
+        if (rows.size() <= size) return new TransactionPageDTO(rows, null);
+
+        List<TransactionDTO> items = rows.subList(0, size);
+        TransactionDTO last = items.get(size - 1);
+        return new TransactionPageDTO(items, TransactionQuery.encodeCursor(last.timestamp(), last.id()));
+    }
+
+    // Streams every transaction matching the query (ignoring its limit) without collecting them
+    public void exportTransactions(long accountId, TransactionQuery query, Consumer<TransactionDTO> sink) {
+        ledger(accountId);
+        journal.flush();
 
-        BigDecimal price = requiredPrice(req.symbol()); // get current price
+        List<Object> args = new ArrayList<>();
+        String sql = historySql(accountId, query, args);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(mapTx(rs)));
+    }
 
-        // Get current holding quantity
-        BigDecimal heldQty = jdbc.queryForObject("SELECT quantity FROM holdings WHERE symbol=?",
-                BigDecimal.class, req.symbol());
-        if (heldQty == null || heldQty.compareTo(req.quantity()) < 0) {
-            throw new IllegalArgumentException("Not enough holdings to sell.");
+    // Keyset query over (traded_at, id) descending; served by the idx_tx_account_* indexes
+    private String historySql(long accountId, TransactionQuery query, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM transactions WHERE account_id=?");
+        args.add(accountId);
+        if (query.symbol() != null) {
+            sql.append(" AND symbol=?");
+            args.add(query.symbol());
+        }
+        if (query.type() != null) {
+            sql.append(" AND type=?");
+            args.add(query.type());
+        }
+        if (query.from() != null) {
+            sql.append(" AND traded_at>=?");
+            args.add(Timestamp.valueOf(query.from()));
+        }
+        if (query.to() != null) {
+            sql.append(" AND traded_at<?");
+            args.add(Timestamp.valueOf(query.to()));
         }
+        if (query.cursor() != null) {
+            TransactionQuery.Cursor c = TransactionQuery.decodeCursor(query.cursor());
+            Timestamp ts = Timestamp.valueOf(c.timestamp());
+            sql.append(" AND (traded_at<? OR (traded_at=? AND id<?))");
+            args.add(ts);
+            args.add(ts);
+            args.add(c.id());
+        }
+        return sql.append(" ORDER BY traded_at DESC, id DESC").toString();
+    }
 
-        try {
-            // Calculate average buy price for profit/loss calculation
-            BigDecimal totalQty = jdbc.queryForObject(
-                    "SELECT COALESCE(SUM(quantity), 0) FROM transactions WHERE symbol=? AND type='BUY'",
-                    BigDecimal.class, req.symbol());
+    public AccountDTO buy(BuySellRequest req) { return buy(DEFAULT_ACCOUNT_ID, req); }
 
-            BigDecimal totalCost = jdbc.queryForObject(
-                    "SELECT COALESCE(SUM(quantity * price), 0) FROM transactions WHERE symbol=? AND type='BUY'",
-                    BigDecimal.class, req.symbol());
+    // Handles buying of cryptocurrency
+    public AccountDTO buy(long accountId, BuySellRequest req) {
+        long start = System.nanoTime();
+        try {
+            validateRequest(req); // check for nulls, empty symbol, or invalid quantity
 
-            BigDecimal avgBuyPrice = (totalQty.compareTo(BigDecimal.ZERO) > 0)
-                    ? totalCost.divide(totalQty, 8, BigDecimal.ROUND_HALF_UP)
-                    : BigDecimal.ZERO;
+            BigDecimal price = requiredPrice(req.symbol(), true, req.quantity()); // ask, plus slippage if enabled
+            AccountDTO result = execute(accountId, l -> l.prepareBuy(req.symbol(), req.quantity(), price, LocalDateTime.now()), "BUY");
+            metrics.executed(true, Source.MARKET, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failed(true, Source.MARKET, e);
+            throw e;
+        }
+    }
 
-            // Profit or loss = (SellPrice - AvgBuyPrice) * quantity sold
-            BigDecimal profitLoss = price.subtract(avgBuyPrice).multiply(req.quantity());
+    // Buys at a price decided by the caller, e.g. the tick that triggered a resting order
+    public AccountDTO buyAt(long accountId, BuySellRequest req, BigDecimal price) {
+        long start = System.nanoTime();
+        try {
+            validateRequest(req);
+            AccountDTO result = execute(accountId, l -> l.prepareBuy(req.symbol(), req.quantity(), price, LocalDateTime.now()), "BUY");
+            metrics.executed(true, Source.TRIGGERED, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failed(true, Source.TRIGGERED, e);
+            throw e;
+        }
+    }
 
-            // Update holdings and balance
-            jdbc.update("UPDATE holdings SET quantity = quantity - ? WHERE symbol = ?", req.quantity(), req.symbol());
-            jdbc.update("UPDATE account SET balance = balance + ? WHERE id=?",
-                    price.multiply(req.quantity()), ACCOUNT_ID);
+    public AccountDTO sell(BuySellRequest req) { return sell(DEFAULT_ACCOUNT_ID, req); }
 
-            // Record transaction with profit/loss
-            jdbc.update("INSERT INTO transactions(symbol, quantity, price, type, pl, timestamp) VALUES (?,?,?,?,?,?)",
-                    req.symbol(), req.quantity(), price, "SELL", profitLoss, LocalDateTime.now());
+    // Handles selling of cryptocurrency
+    public AccountDTO sell(long accountId, BuySellRequest req) {
+        long start = System.nanoTime();
+        try {
+            validateRequest(req); // validate input
 
-            // Clean up any zero holdings
-            jdbc.update("DELETE FROM holdings WHERE quantity = 0");
+            BigDecimal price = requiredPrice(req.symbol(), false, req.quantity()); // bid, less slippage if enabled
+            AccountDTO result = execute(accountId, l -> l.prepareSell(req.symbol(), req.quantity(), price, LocalDateTime.now()), "SELL");
+            metrics.executed(false, Source.MARKET, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failed(false, Source.MARKET, e);
+            throw e;
+        }
+    }
 
-            return getAccount();
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to complete SELL operation: " + ex.getMessage(), ex);
+    // Sells at a price decided by the caller, e.g. the tick that triggered a resting order
+    public AccountDTO sellAt(long accountId, BuySellRequest req, BigDecimal price) {
+        long start = System.nanoTime();
+        try {
+            validateRequest(req);
+            AccountDTO result = execute(accountId, l -> l.prepareSell(req.symbol(), req.quantity(), price, LocalDateTime.now()), "SELL");
+            metrics.executed(false, Source.TRIGGERED, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failed(false, Source.TRIGGERED, e);
+            throw e;
         }
     }
 
+    public AccountDTO reset() { return reset(DEFAULT_ACCOUNT_ID); }
+
     // Resets the account to the initial state
-    @Transactional
-    public AccountDTO reset() {
-        jdbc.update("UPDATE account SET balance=? WHERE id=?", START_BALANCE, ACCOUNT_ID);
-        jdbc.update("DELETE FROM holdings");
-        jdbc.update("DELETE FROM transactions");
-        return getAccount();
+    public AccountDTO reset(long accountId) {
+        return execute(accountId, l -> l.prepareReset(START_BALANCE), "RESET");
+    }
+
+    public BatchOrderResultDTO submitBatch(List<OrderRequest> orders) { return submitBatch(DEFAULT_ACCOUNT_ID, orders); }
+
+    // Executes orders in sequence against one price snapshot and journals the fills together
+    public BatchOrderResultDTO submitBatch(long accountId, List<OrderRequest> orders) {
+        if (orders == null || orders.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one order.");
+        }
+        if (orders.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + maxBatchSize + " orders.");
+        }
+        long start = System.nanoTime();
+        Ledger ledger = ledger(accountId);
+        Map<String, Quote> quotes = priceService.getCurrentQuotes(); // every order sees the same book
+        LocalDateTime now = LocalDateTime.now();
+
+        List<OrderResultDTO> results = new ArrayList<>(orders.size());
+        List<LedgerEntry> entries = new ArrayList<>(orders.size());
+        AccountDTO account;
+        long seq = 0;
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            // Each order depends on the ones before it, so stage them on a copy and only touch the
+            // real ledger once the whole batch has been journaled
+            Ledger staged = ledger.copy();
+            for (int i = 0; i < orders.size(); i++) {
+                try {
+                    LedgerEntry entry = prepareOrder(staged, orders.get(i), quotes, now);
+                    staged.apply(entry);
+                    entries.add(entry);
+                    results.add(new OrderResultDTO(i, OrderResultDTO.FILLED, entry.id(), entry.price(), entry.pnl(), null));
+                } catch (IllegalArgumentException ex) {
+                    results.add(new OrderResultDTO(i, OrderResultDTO.REJECTED, null, null, null, ex.getMessage()));
+                    metrics.batchFailed(orders.get(i) == null ? null : orders.get(i).side(), ex);
+                }
+            }
+            if (!entries.isEmpty()) {
+                try {
+                    seq = journal.appendAll(entries);
+                } catch (Exception ex) {
+                    RuntimeException failure = new RuntimeException("Failed to complete BATCH operation: " + ex.getMessage(), ex);
+                    for (LedgerEntry entry : entries) metrics.batchFailed(entry.type(), failure);
+                    throw failure;
+                }
+                for (LedgerEntry entry : entries) ledger.apply(entry);
+                revise(ledger);
+            }
+            account = toAccountDTO(ledger);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            journal.awaitCommit(seq);
+        } catch (RuntimeException e) {
+            for (LedgerEntry entry : entries) metrics.batchFailed(entry.type(), e);
+            throw e;
+        } finally {
+            if (!entries.isEmpty()) changed(accountId); // applied in memory even if the write failed
+        }
+        long elapsed = System.nanoTime() - start;
+        for (LedgerEntry entry : entries) metrics.executed(LedgerEntry.BUY.equals(entry.type()), Source.BATCH, elapsed);
+        return new BatchOrderResultDTO(entries.size(), orders.size() - entries.size(), results, account);
+    }
+
+    private LedgerEntry prepareOrder(Ledger ledger, OrderRequest order, Map<String, Quote> quotes, LocalDateTime now) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null.");
+        validateRequest(new BuySellRequest(order.symbol(), order.quantity()));
+
+        Quote quote = quotes.get(order.symbol());
+        if (quote == null) throw new IllegalArgumentException("Price unavailable for " + order.symbol());
+        requireFresh(order.symbol());
+        if (LedgerEntry.BUY.equals(order.side())) {
+            return ledger.prepareBuy(order.symbol(), order.quantity(), fillPrice(quote, true, order.quantity()), now);
+        }
+        if (LedgerEntry.SELL.equals(order.side())) {
+            return ledger.prepareSell(order.symbol(), order.quantity(), fillPrice(quote, false, order.quantity()), now);
+        }
+        throw new IllegalArgumentException("Side must be BUY or SELL.");
+    }
+
+    // Validates against the ledger, journals the change, then applies it in memory. In GROUP_COMMIT mode a
+    // write that fails for good surfaces as LedgerWriteException only after the change is applied, and it is
+    // not undone: later trades on the account may already build on it. Listeners still hear of it, and the
+    // entry waits in the journal's quarantine for repair
+    private AccountDTO execute(long accountId, Function<Ledger, LedgerEntry> prepare, String operation) {
+        Ledger ledger = ledger(accountId);
+        AccountDTO result;
+        long seq;
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            LedgerEntry entry = prepare.apply(ledger); // throws IllegalArgumentException if the trade is not allowed
+            try {
+                seq = journal.append(entry);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to complete " + operation + " operation: " + ex.getMessage(), ex);
+            }
+            ledger.apply(entry);
+            revise(ledger);
+            result = toAccountDTO(ledger);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            journal.awaitCommit(seq);
+        } finally {
+            changed(accountId);
+        }
+        return result;
+    }
+
+    private Ledger ledger(long accountId) {
+        Ledger ledger = ledgers.get(accountId);
+        if (ledger == null) {
+            if (!shard.owns(accountId)) throw new WrongShardException(accountId, shard.shardOf(accountId));
+            throw new UnknownAccountException(accountId);
+        }
+        return ledger;
+    }
+
+    // Fibonacci hashing spreads sequential account ids evenly over the stripes
+    private ReentrantLock lockFor(long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 32) & (stripes.length - 1)];
     }
 
     // Basic validation for Buy/Sell requests
@@ -147,19 +492,45 @@ public class AccountService {
         }
     }
 
-    // Helper method to fetch price or throw if unavailable
-    private BigDecimal requiredPrice(String symbol) {
-        BigDecimal price = priceService.getPrice(symbol);
-        if (price == null) throw new IllegalArgumentException("Price unavailable for " + symbol);
-        return price;
+    // Helper method to fetch the fill price or throw if unavailable
+    private BigDecimal requiredPrice(String symbol, boolean buy, BigDecimal quantity) {
+        Quote quote = priceService.getQuote(symbol);
+        if (quote == null) throw new IllegalArgumentException("Price unavailable for " + symbol);
+        requireFresh(symbol);
+        return fillPrice(quote, buy, quantity);
     }
 
-    // Maps a row from the holdings table to HoldingDTO, including current price
-    private HoldingDTO mapHolding(ResultSet rs) throws SQLException {
-        String symbol = rs.getString("symbol");
-        BigDecimal qty = rs.getBigDecimal("quantity");
-        BigDecimal price = priceService.getPrice(symbol);
-        return new HoldingDTO(symbol, qty, price);
+    // Buys lift the ask and sells hit the bid (the last trade if the feed sent no book). With slippage on,
+    // the part of the order beyond the displayed size walks a book whose price moves linearly, by
+    // slippageImpactBps per displayed size; the result is the average price over the whole order. A size
+    // too large for fixed point is only a lower bound, so like a missing one it leaves the order at the touch
+    private BigDecimal fillPrice(Quote quote, boolean buy, BigDecimal quantity) {
+        BigDecimal touch = PriceTable.toBigDecimal(buy ? quote.buyPrice() : quote.sellPrice());
+        long size = buy ? quote.askQty : quote.bidQty;
+        if (slippageImpactBps <= 0 || size == PriceTable.NO_PRICE || size == PriceTable.SATURATED || size <= 0) return touch;
+
+        BigDecimal displayed = PriceTable.toBigDecimal(size);
+        BigDecimal excess = quantity.subtract(displayed);
+        if (excess.signum() <= 0) return touch;
+
+        // average over the order: touch * (1 +/- k * excess^2 / (2 * displayed * quantity))
+        BigDecimal impact = BigDecimal.valueOf(slippageImpactBps / 10_000)
+                .multiply(excess.pow(2))
+                .divide(displayed.multiply(quantity).multiply(BigDecimal.valueOf(2)), MathContext.DECIMAL64);
+        BigDecimal factor = buy ? BigDecimal.ONE.add(impact) : BigDecimal.ONE.subtract(impact).max(BigDecimal.ZERO);
+        return PriceTable.toBigDecimal(PriceTable.toFixed(touch.multiply(factor)));
+    }
+
+    // Refuses to trade on a frozen price, e.g. while the feed is reconnecting
+    private void requireFresh(String symbol) {
+        if (priceService.isStale(symbol)) throw new StalePriceException(symbol, priceService.getPriceAge(symbol));
+    }
+
+    // Builds the account view from the ledger, including current prices
+    private AccountDTO toAccountDTO(Ledger ledger) {
+        List<HoldingDTO> holdings = new ArrayList<>();
+        ledger.holdings().forEach((symbol, qty) -> holdings.add(new HoldingDTO(symbol, qty, priceService.getPrice(symbol))));
+        return new AccountDTO(ledger.balance(), holdings);
     }
 
     // Maps a row from the transactions table to TransactionDTO
@@ -169,8 +540,8 @@ public class AccountService {
         BigDecimal qty = rs.getBigDecimal("quantity");
         BigDecimal price = rs.getBigDecimal("price");
         String type = rs.getString("type");
-        LocalDateTime ts = rs.getTimestamp("timestamp").toLocalDateTime();
+        LocalDateTime ts = rs.getTimestamp("traded_at").toLocalDateTime();
         BigDecimal pnl = rs.getBigDecimal("pl");
         return new TransactionDTO(id, symbol, qty, price, type, ts, pnl);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package org.example.crypto.account;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution time and failures of trades, per side and per source: market orders ({@link AccountService#buy},
+ * {@link AccountService#sell}), orders in a batch ({@link AccountService#submitBatch}) and resting orders
+ * filled when triggered ({@link AccountService#buyAt}, {@link AccountService#sellAt}).
+ */
+class TradeMetrics {
+
+    enum Source { MARKET, BATCH, TRIGGERED }
+
+    private static final String[] SIDES = {"BUY", "SELL"};
+    private static final Source[] SOURCES = Source.values();
+
+    // Indexed by side * sources + source
+    private final Timer[] time;
+    private final Counter[] rejected;
+    private final Counter[] errors;
+    private final Counter unknownSide; // batch orders whose side is neither BUY nor SELL
+
+    TradeMetrics(MeterRegistry registry) {
+        time = new Timer[SIDES.length * SOURCES.length];
+        rejected = new Counter[time.length];
+        errors = new Counter[time.length];
+        for (int side = 0; side < SIDES.length; side++) {
+            for (Source source : SOURCES) {
+                int i = side * SOURCES.length + source.ordinal();
+                time[i] = timer(registry, SIDES[side], source);
+                rejected[i] = failed(registry, SIDES[side], source, "rejected");
+                errors[i] = failed(registry, SIDES[side], source, "error");
+            }
+        }
+        unknownSide = failed(registry, "UNKNOWN", Source.BATCH, "rejected");
+    }
+
+    static TradeMetrics detached() {
+        return new TradeMetrics(new SimpleMeterRegistry());
+    }
+
+    // A batch order counts from the start of its batch, since it is journaled and applied with the rest
+    private static Timer timer(MeterRegistry registry, String side, Source source) {
+        return Timer.builder("trades.execution")
+                .description("Time to validate, journal and apply a trade")
+                .tag("side", side)
+                .tag("source", source.name())
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // rejected = the trade was not allowed (bad request, no price, insufficient funds); error = it could not be recorded
+    private static Counter failed(MeterRegistry registry, String side, Source source, String reason) {
+        return Counter.builder("trades.failed")
+                .description("Trades that did not execute")
+                .tag("side", side)
+                .tag("source", source.name())
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    void executed(boolean buy, Source source, long nanos) {
+        time[index(buy, source)].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void failed(boolean buy, Source source, RuntimeException e) {
+        int i = index(buy, source);
+        (e instanceof IllegalArgumentException ? rejected[i] : errors[i]).increment();
+    }
+
+    /** A batch order that failed, by the side it asked for. */
+    void batchFailed(String side, RuntimeException e) {
+        if ("BUY".equals(side) || "SELL".equals(side)) failed("BUY".equals(side), Source.BATCH, e);
+        else unknownSide.increment();
+    }
+
+    private static int index(boolean buy, Source source) {
+        return (buy ? 0 : 1) * SOURCES.length + source.ordinal();
+    }
+}
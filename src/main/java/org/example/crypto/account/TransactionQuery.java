@@ -0,0 +1,64 @@
+package org.example.crypto.account;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Filters and position for reading transaction history, newest first.
+ * <p>
+ * Paging is keyset-based on {@code (timestamp, id)}: {@code cursor} is the opaque value returned
+ * with the previous page and resumes strictly after its last row, so deep pages cost the same as
+ * the first one and rows inserted meanwhile never shift the window. All fields are optional.
+ */
+public record TransactionQuery(
+        String symbol,
+        String type,
+        LocalDateTime from,     // inclusive
+        LocalDateTime to,       // exclusive
+        String cursor,
+        Integer limit
+) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    public TransactionQuery {
+        if (type != null && !type.equals("BUY") && !type.equals("SELL")) {
+            throw new IllegalArgumentException("Type must be BUY or SELL.");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'.");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        if (cursor != null) decodeCursor(cursor); // reject malformed cursors up front
+    }
+
+    public static TransactionQuery all() {
+        return new TransactionQuery(null, null, null, null, null, null);
+    }
+
+    public int pageSize() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+
+    /** Position of a row in (timestamp, id) order. */
+    public record Cursor(LocalDateTime timestamp, long id) { }
+
+    public static String encodeCursor(LocalDateTime timestamp, long id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.crypto.account;
+
+public class UnknownAccountException extends RuntimeException {
+    public UnknownAccountException(long accountId) {
+        super("Unknown account " + accountId);
+    }
+}
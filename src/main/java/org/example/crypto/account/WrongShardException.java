@@ -0,0 +1,16 @@
+package org.example.crypto.account;
+
+/** The account belongs to another shard; the request should be sent to that shard's node. */
+public class WrongShardException extends RuntimeException {
+
+    private final int shard;
+
+    public WrongShardException(long accountId, int shard) {
+        super("Account " + accountId + " is served by shard " + shard + ".");
+        this.shard = shard;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.crypto.account.dto;
+
+import java.math.BigDecimal;
+
+public record AccountCreatedDTO(
+        long id,
+        BigDecimal balance
+) {}
@@ -0,0 +1,8 @@
+package org.example.crypto.account.dto;
+
+import java.util.List;
+
+// Orders are validated one by one so a bad order is rejected without failing the batch
+public record BatchOrderRequest(
+        List<OrderRequest> orders
+) {}
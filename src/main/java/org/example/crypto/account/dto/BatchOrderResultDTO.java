@@ -0,0 +1,10 @@
+package org.example.crypto.account.dto;
+
+import java.util.List;
+
+public record BatchOrderResultDTO(
+        int filled,
+        int rejected,
+        List<OrderResultDTO> results,
+        AccountDTO account      // account state after the whole batch
+) {}
@@ -0,0 +1,8 @@
+package org.example.crypto.account.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import java.math.BigDecimal;
+
+public record CreateAccountRequest(
+        @DecimalMin("0") BigDecimal balance
+) {}
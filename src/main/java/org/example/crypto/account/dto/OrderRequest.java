@@ -0,0 +1,9 @@
+package org.example.crypto.account.dto;
+
+import java.math.BigDecimal;
+
+public record OrderRequest(
+        String side,            // "BUY" or "SELL"
+        String symbol,
+        BigDecimal quantity
+) {}
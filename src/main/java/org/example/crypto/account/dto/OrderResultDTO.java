@@ -0,0 +1,15 @@
+package org.example.crypto.account.dto;
+
+import java.math.BigDecimal;
+
+public record OrderResultDTO(
+        int index,              // position of the order in the batch
+        String status,          // "FILLED" or "REJECTED"
+        Long transactionId,     // null if rejected
+        BigDecimal price,       // null if rejected
+        BigDecimal pnl,         // null for BUY and rejected orders
+        String message          // reason for rejection, null if filled
+) {
+    public static final String FILLED = "FILLED";
+    public static final String REJECTED = "REJECTED";
+}
@@ -0,0 +1,8 @@
+package org.example.crypto.account.dto;
+
+import java.util.List;
+
+public record TransactionPageDTO(
+        List<TransactionDTO> items,
+        String nextCursor       // null on the last page
+) {}
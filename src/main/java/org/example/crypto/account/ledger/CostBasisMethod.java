@@ -0,0 +1,15 @@
+package org.example.crypto.account.ledger;
+
+/** How the cost of the units sold is determined when realizing P/L. */
+public enum CostBasisMethod {
+    /** Every unit held costs the running average purchase price. */
+    AVERAGE_COST,
+    /** Oldest lots are sold first. */
+    FIFO,
+    /** Newest lots are sold first. */
+    LIFO;
+
+    boolean usesLots() {
+        return this != AVERAGE_COST;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.crypto.account.ledger;
+
+/** When a trade applied to the in-memory ledger is considered persisted. */
+public enum DurabilityMode {
+    /** Written to the database on the calling thread before the trade is applied. */
+    SYNC,
+    /** Batched by the background writer; the caller waits until its batch is committed. */
+    GROUP_COMMIT,
+    /** Batched by the background writer; the caller returns immediately. */
+    ASYNC
+}
@@ -0,0 +1,278 @@
+package org.example.crypto.account.ledger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authoritative in-memory state of one account: balance, holdings and their cost basis.
+ * <p>
+ * Trades are two-phase: {@code prepare*} validates and computes the resulting {@link LedgerEntry}
+ * without changing anything, and {@link #apply(LedgerEntry)} commits it once it has been handed to
+ * the {@link LedgerJournal}. Cost basis is kept per position and updated on every trade, so realizing
+ * P/L does not depend on the length of the trade history. Not thread-safe; callers serialize access
+ * per account.
+ */
+public class Ledger {
+
+    // Mirror the column scales in schema.sql so memory and database agree
+    private static final int BALANCE_SCALE = 2;
+    private static final int QUANTITY_SCALE = 8;
+    private static final int COST_SCALE = 8;
+
+    // Largest magnitudes those columns hold (NUMERIC(p,s) keeps p-s integer digits); an entry that would
+    // not fit is rejected here, before it is journaled, rather than failing the journal write later
+    private static final BigDecimal MAX_AMOUNT = BigDecimal.TEN.pow(16);    // balance, price, P/L, cost basis
+    private static final BigDecimal MAX_QUANTITY = BigDecimal.TEN.pow(10);  // NUMERIC(18,8)
+    private static final BigDecimal MAX_LOT_PRICE = BigDecimal.TEN.pow(14); // NUMERIC(24,10)
+
+    private final long accountId;
+    private final CostBasisMethod method;
+    private BigDecimal balance;
+    private final Map<String, Position> positions = new LinkedHashMap<>();
+    private final LedgerIds ids;
+
+    public Ledger(long accountId, BigDecimal balance, CostBasisMethod method, LedgerIds ids) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.method = method;
+        this.ids = ids;
+    }
+
+    /** Standalone ledger with its own id sequences. */
+    public Ledger(long accountId, BigDecimal balance, CostBasisMethod method) {
+        this(accountId, balance, method, new LedgerIds());
+    }
+
+    public long accountId() {
+        return accountId;
+    }
+
+    public CostBasisMethod method() {
+        return method;
+    }
+
+    public BigDecimal balance() {
+        return balance;
+    }
+
+    /** Current holdings (symbol to quantity), excluding closed positions. */
+    public Map<String, BigDecimal> holdings() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        positions.forEach((symbol, position) -> {
+            if (position.quantity.signum() > 0) result.put(symbol, position.quantity);
+        });
+        return result;
+    }
+
+    /** Quantity currently held of a symbol, zero if none. */
+    public BigDecimal holding(String symbol) {
+        return heldQuantity(symbol);
+    }
+
+    /** Total purchase cost of the quantity currently held of a symbol. */
+    public BigDecimal costBasis(String symbol) {
+        Position position = positions.get(symbol);
+        return position == null ? BigDecimal.ZERO : position.costBasis;
+    }
+
+    public LedgerEntry prepareBuy(String symbol, BigDecimal quantity, BigDecimal price, LocalDateTime timestamp) {
+        BigDecimal cost = price.multiply(quantity);
+        if (balance.compareTo(cost) < 0) {
+            throw new IllegalArgumentException("Insufficient balance to complete purchase.");
+        }
+        return buyEntry(symbol, quantity, price, timestamp);
+    }
+
+    public LedgerEntry prepareSell(String symbol, BigDecimal quantity, BigDecimal price, LocalDateTime timestamp) {
+        if (heldQuantity(symbol).compareTo(quantity) < 0) {
+            throw new IllegalArgumentException("Not enough holdings to sell.");
+        }
+        return sellEntry(symbol, quantity, price, timestamp);
+    }
+
+    public LedgerEntry prepareReset(BigDecimal startBalance) {
+        checkBalance(startBalance);
+        return LedgerEntry.reset(accountId, startBalance);
+    }
+
+    /** Applies an entry produced by one of the {@code prepare*} methods of this ledger. */
+    public void apply(LedgerEntry entry) {
+        balance = entry.balanceAfter();
+        if (entry.isReset()) {
+            positions.clear();
+            return;
+        }
+
+        Position position = position(entry.symbol());
+        position.quantity = entry.holdingAfter();
+        position.costBasis = entry.costBasisAfter();
+        for (LotChange change : entry.lotChanges()) {
+            if (change.opened()) {
+                position.lots.addLast(new Lot(change.lotId(), change.price(), change.remaining()));
+                continue;
+            }
+            // Sells consume lots from one end in order, so the changed lot is always at that end
+            Lot lot = method == CostBasisMethod.FIFO ? position.lots.peekFirst() : position.lots.peekLast();
+            if (lot == null || lot.id != change.lotId()) {
+                throw new IllegalStateException("Lot " + change.lotId() + " is not next in line for " + entry.symbol());
+            }
+            if (change.remaining().signum() == 0) {
+                if (method == CostBasisMethod.FIFO) position.lots.pollFirst();
+                else position.lots.pollLast();
+            } else {
+                lot.quantity = change.remaining();
+            }
+        }
+    }
+
+    /**
+     * Independent copy sharing this ledger's id sequences. Used to stage a series of trades that each
+     * depend on the previous one; the staged entries can then be applied here in the same order.
+     */
+    public Ledger copy() {
+        Ledger copy = new Ledger(accountId, balance, method, ids);
+        positions.forEach((symbol, position) -> {
+            Position p = copy.position(symbol);
+            p.quantity = position.quantity;
+            p.costBasis = position.costBasis;
+            for (Lot lot : position.lots) p.lots.addLast(new Lot(lot.id, lot.price, lot.quantity));
+        });
+        return copy;
+    }
+
+    // ---------------------------------------------------------------- rebuild
+
+    /** Restores a persisted position (used when loading from the database). */
+    void restorePosition(String symbol, BigDecimal quantity, BigDecimal costBasis) {
+        Position position = position(symbol);
+        position.quantity = quantity;
+        position.costBasis = costBasis;
+    }
+
+    /** Restores a persisted lot; lots must be restored oldest first. */
+    void restoreLot(long lotId, String symbol, BigDecimal quantity, BigDecimal price) {
+        position(symbol).lots.addLast(new Lot(lotId, price, quantity));
+    }
+
+    /** Replays a historical trade without balance or holding checks (cost-basis migration). */
+    void replay(String type, String symbol, BigDecimal quantity, BigDecimal price) {
+        BigDecimal sellable = heldQuantity(symbol).min(quantity);
+        if (!LedgerEntry.BUY.equals(type) && sellable.signum() == 0) return;
+        LedgerEntry entry = LedgerEntry.BUY.equals(type)
+                ? buyEntry(symbol, quantity, price, null)
+                : sellEntry(symbol, sellable, price, null);
+        apply(entry);
+    }
+
+    /** Lots still held, oldest first, across all symbols. */
+    List<LotChange> openLots() {
+        List<LotChange> result = new ArrayList<>();
+        positions.forEach((symbol, position) -> {
+            for (Lot lot : position.lots) {
+                result.add(new LotChange(lot.id, accountId, symbol, lot.price, lot.quantity, true));
+            }
+        });
+        return result;
+    }
+
+    // ---------------------------------------------------------------- entries
+
+    /** Rejects a balance the account table cannot store, e.g. an oversized opening balance. */
+    public static void checkBalance(BigDecimal balance) {
+        within(balance, BALANCE_SCALE, MAX_AMOUNT, "Balance");
+    }
+
+    private static LedgerEntry checked(LedgerEntry e) {
+        within(e.quantity(), QUANTITY_SCALE, MAX_QUANTITY, "Quantity");
+        within(e.price(), BALANCE_SCALE, MAX_AMOUNT, "Price");
+        within(e.pnl(), BALANCE_SCALE, MAX_AMOUNT, "Profit/loss");
+        within(e.balanceAfter(), BALANCE_SCALE, MAX_AMOUNT, "Balance");
+        within(e.holdingAfter(), QUANTITY_SCALE, MAX_QUANTITY, "Holding");
+        within(e.costBasisAfter(), COST_SCALE, MAX_AMOUNT, "Cost basis");
+        for (LotChange lot : e.lotChanges()) within(lot.price(), 10, MAX_LOT_PRICE, "Price");
+        return e;
+    }
+
+    private static void within(BigDecimal value, int scale, BigDecimal max, String what) {
+        if (value != null && value.setScale(scale, RoundingMode.HALF_UP).abs().compareTo(max) >= 0) {
+            throw new IllegalArgumentException(what + " is too large for the ledger.");
+        }
+    }
+
+    private LedgerEntry buyEntry(String symbol, BigDecimal quantity, BigDecimal price, LocalDateTime timestamp) {
+        Position position = positions.get(symbol);
+        BigDecimal held = position == null ? BigDecimal.ZERO : position.quantity;
+        BigDecimal basis = position == null ? BigDecimal.ZERO : position.costBasis;
+        BigDecimal cost = price.multiply(quantity);
+
+        List<LotChange> lots = method.usesLots()
+                ? List.of(new LotChange(ids.nextLotId(), accountId, symbol, price, quantity, true))
+                : List.of();
+        return checked(new LedgerEntry(ids.nextTxId(), accountId, LedgerEntry.BUY, symbol, quantity, price, null, timestamp,
+                balance.subtract(cost).setScale(BALANCE_SCALE, RoundingMode.HALF_UP),
+                held.add(quantity).setScale(QUANTITY_SCALE, RoundingMode.HALF_UP),
+                basis.add(cost).setScale(COST_SCALE, RoundingMode.HALF_UP),
+                lots));
+    }
+
+    private LedgerEntry sellEntry(String symbol, BigDecimal quantity, BigDecimal price, LocalDateTime timestamp) {
+        Position position = position(symbol);
+        BigDecimal remainingQty = position.quantity.subtract(quantity);
+
+        BigDecimal soldCost;
+        List<LotChange> lots = List.of();
+        if (remainingQty.signum() == 0) {
+            soldCost = position.costBasis; // closing the position releases all of its basis
+            if (method.usesLots()) lots = consumeLots(symbol, position, quantity);
+        } else if (method.usesLots()) {
+            lots = consumeLots(symbol, position, quantity);
+            soldCost = BigDecimal.ZERO;
+            Iterator<Lot> it = method == CostBasisMethod.FIFO ? position.lots.iterator() : position.lots.descendingIterator();
+            for (LotChange change : lots) {
+                Lot lot = it.next();
+                soldCost = soldCost.add(lot.quantity.subtract(change.remaining()).multiply(lot.price));
+            }
+        } else {
+            soldCost = position.costBasis.multiply(quantity).divide(position.quantity, COST_SCALE, RoundingMode.HALF_UP);
+        }
+
+        // Profit or loss = proceeds - cost basis of the units sold
+        BigDecimal proceeds = price.multiply(quantity);
+        BigDecimal profitLoss = proceeds.subtract(soldCost);
+
+        return checked(new LedgerEntry(ids.nextTxId(), accountId, LedgerEntry.SELL, symbol, quantity, price, profitLoss, timestamp,
+                balance.add(proceeds).setScale(BALANCE_SCALE, RoundingMode.HALF_UP),
+                remainingQty.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP),
+                position.costBasis.subtract(soldCost).max(BigDecimal.ZERO).setScale(COST_SCALE, RoundingMode.HALF_UP),
+                lots));
+    }
+
+    // Walks lots from the end dictated by the method until the quantity is covered
+    private List<LotChange> consumeLots(String symbol, Position position, BigDecimal quantity) {
+        List<LotChange> changes = new ArrayList<>();
+        BigDecimal left = quantity;
+        Iterator<Lot> it = method == CostBasisMethod.FIFO ? position.lots.iterator() : position.lots.descendingIterator();
+        while (left.signum() > 0 && it.hasNext()) {
+            Lot lot = it.next();
+            BigDecimal used = lot.quantity.min(left);
+            left = left.subtract(used);
+            changes.add(new LotChange(lot.id, accountId, symbol, lot.price, lot.quantity.subtract(used), false));
+        }
+        return changes;
+    }
+
+    private BigDecimal heldQuantity(String symbol) {
+        Position position = positions.get(symbol);
+        return position == null ? BigDecimal.ZERO : position.quantity;
+    }
+
+    private Position position(String symbol) {
+        return positions.computeIfAbsent(symbol, s -> new Position());
+    }
+}
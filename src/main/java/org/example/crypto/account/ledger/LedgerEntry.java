@@ -0,0 +1,37 @@
+package org.example.crypto.account.ledger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One ledger mutation as it is journaled: a trade (BUY/SELL) with the resulting account state
+ * and the lots it opened or consumed, or a RESET of the account.
+ */
+public record LedgerEntry(
+        long id,
+        long accountId,
+        String type,
+        String symbol,
+        BigDecimal quantity,
+        BigDecimal price,
+        BigDecimal pnl,
+        LocalDateTime timestamp,
+        BigDecimal balanceAfter,
+        BigDecimal holdingAfter,
+        BigDecimal costBasisAfter,
+        List<LotChange> lotChanges
+) {
+    public static final String BUY = "BUY";
+    public static final String SELL = "SELL";
+    public static final String RESET = "RESET";
+
+    public static LedgerEntry reset(long accountId, BigDecimal balance) {
+        return new LedgerEntry(0, accountId, RESET, null, null, null, null, null, balance,
+                null, null, List.of());
+    }
+
+    public boolean isReset() {
+        return RESET.equals(type);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.crypto.account.ledger;
+
+import org.example.crypto.cluster.ShardMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Id sequences shared by all ledgers (transaction, lot and account ids are unique across accounts).
+ * On a sharded node every sequence only yields ids of the node's shard, so nodes that share a database
+ * never collide.
+ */
+public class LedgerIds {
+
+    private final AtomicLong lastTxId = new AtomicLong();
+    private final AtomicLong lastLotId = new AtomicLong();
+    private final AtomicLong lastAccountId = new AtomicLong();
+    private volatile ShardMap shard = ShardMap.SINGLE;
+
+    public long nextTxId() {
+        return next(lastTxId);
+    }
+
+    public long nextLotId() {
+        return next(lastLotId);
+    }
+
+    public long nextAccountId() {
+        return next(lastAccountId);
+    }
+
+    public void shard(ShardMap shard) {
+        this.shard = shard;
+    }
+
+    public ShardMap shard() {
+        return shard;
+    }
+
+    /** Continues the sequences after the highest ids already persisted. */
+    public void restore(long maxTxId, long maxLotId, long maxAccountId) {
+        lastTxId.accumulateAndGet(maxTxId, Math::max);
+        lastLotId.accumulateAndGet(maxLotId, Math::max);
+        lastAccountId.accumulateAndGet(maxAccountId, Math::max);
+    }
+
+    private long next(AtomicLong last) {
+        ShardMap s = shard;
+        if (s.count() == 1) return last.incrementAndGet();
+        return last.updateAndGet(s::nextAfter);
+    }
+}
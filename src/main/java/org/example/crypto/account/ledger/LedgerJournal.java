@@ -0,0 +1,345 @@
+package org.example.crypto.account.ledger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind persistence for {@link Ledger} mutations.
+ * <p>
+ * In {@link DurabilityMode#SYNC} mode entries are written on the caller's thread. Otherwise they are
+ * queued and a background writer drains whatever has accumulated (up to {@code ledger.batch-size}
+ * appends) into one database transaction: a JDBC batch of transaction rows plus only the final balance,
+ * holding and lot state touched by the batch. Callers in {@link DurabilityMode#GROUP_COMMIT} mode wait for
+ * the sequence number returned by {@link #append(LedgerEntry)} to be committed.
+ * <p>
+ * A batch that keeps failing is retried {@code ledger.write.max-attempts} times, then split back into
+ * the appends it was made of. Each is tried once more on its own; those that still fail are quarantined
+ * (logged and kept in {@link #quarantined()}) so the writer moves on, and their GROUP_COMMIT callers get
+ * a {@link LedgerWriteException} instead of waiting forever.
+ */
+@Component
+public class LedgerJournal {
+
+    private static final String INSERT_TX =
+            "INSERT INTO transactions(id, account_id, symbol, quantity, price, type, pl, traded_at) VALUES (?,?,?,?,?,?,?,?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final DurabilityMode mode;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+
+    // Locks rather than monitors: callers may be virtual threads, which a monitor held across a
+    // blocking put or wait would pin to their carrier
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition committed = commitLock.newCondition();
+    private long appendedSeq;            // guarded by appendLock
+    private volatile long committedSeq;
+    private final Map<Long, String> failedSeqs = new ConcurrentHashMap<>(); // GROUP_COMMIT only, until awaited
+    private final List<LedgerEntry> quarantined = Collections.synchronizedList(new ArrayList<>());
+
+    @Value("${ledger.write.max-attempts:5}")
+    private int maxWriteAttempts = 5;
+
+    @Value("${ledger.write.retry-delay-ms:1000}")
+    private long retryDelayMillis = 1000;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public LedgerJournal(JdbcTemplate jdbc,
+                         PlatformTransactionManager txManager,
+                         @Value("${ledger.durability:GROUP_COMMIT}") DurabilityMode mode,
+                         @Value("${ledger.batch-size:1000}") int batchSize,
+                         @Value("${ledger.queue-capacity:100000}") int queueCapacity) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode == DurabilityMode.SYNC) return;
+        running = true;
+        writer = new Thread(this::runWriter, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) return;
+        flush();
+        running = false;
+        writer.interrupt();
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    public void setRetryPolicy(int maxAttempts, long delayMillis) {
+        this.maxWriteAttempts = maxAttempts;
+        this.retryDelayMillis = delayMillis;
+    }
+
+    /** Entries the writer gave up on; they are in the in-memory ledgers but not in the database. */
+    public List<LedgerEntry> quarantined() {
+        synchronized (quarantined) {
+            return new ArrayList<>(quarantined);
+        }
+    }
+
+    /**
+     * Journals an entry. In SYNC mode it is written before returning (and any failure is thrown);
+     * otherwise it is queued, blocking only if the queue is full.
+     *
+     * @return sequence number to pass to {@link #awaitCommit(long)}
+     */
+    public long append(LedgerEntry entry) {
+        return appendAll(List.of(entry));
+    }
+
+    /**
+     * Journals several entries so that they are written in order within one database transaction.
+     *
+     * @return sequence number to pass to {@link #awaitCommit(long)}
+     */
+    public long appendAll(List<LedgerEntry> entries) {
+        if (mode == DurabilityMode.SYNC) {
+            write(entries);
+            return 0;
+        }
+        appendLock.lock();
+        try {
+            long seq = ++appendedSeq;
+            queue.put(new Pending(seq, entries));
+            return seq;
+        } catch (InterruptedException e) {
+            appendedSeq--;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while journaling trade.", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * In GROUP_COMMIT mode, blocks until the entry with this sequence number is committed.
+     *
+     * @throws LedgerWriteException if the writer gave up on it
+     */
+    public void awaitCommit(long seq) {
+        if (mode != DurabilityMode.GROUP_COMMIT) return;
+        waitFor(seq);
+        String error = failedSeqs.remove(seq);
+        if (error != null) throw new LedgerWriteException("Trade was applied but could not be persisted: " + error);
+    }
+
+    /** Blocks until everything appended so far has been written. */
+    public void flush() {
+        if (mode == DurabilityMode.SYNC) return;
+        long target;
+        appendLock.lock();
+        try {
+            target = appendedSeq;
+        } finally {
+            appendLock.unlock();
+        }
+        waitFor(target);
+    }
+
+    private void waitFor(long seq) {
+        if (committedSeq >= seq) return;
+        commitLock.lock();
+        try {
+            while (committedSeq < seq) committed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ledger commit.", e);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        List<LedgerEntry> entries = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (Pending p : batch) entries.addAll(p.entries());
+                if (!writeWithRetry(entries)) quarantine(batch);
+
+                commitLock.lock();
+                try {
+                    committedSeq = batch.get(batch.size() - 1).seq();
+                    committed.signalAll();
+                } finally {
+                    commitLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                if (!running) return;
+            } finally {
+                batch.clear();
+                entries.clear();
+            }
+        }
+    }
+
+    // The ledger already accepted these entries, so transient failures (a lost connection, a full disk)
+    // are retried; false once every attempt has failed
+    private boolean writeWithRetry(List<LedgerEntry> entries) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(entries);
+                return true;
+            } catch (Exception e) {
+                if (attempt >= maxWriteAttempts) {
+                    System.err.println("[ERROR] Ledger write of " + entries.size() + " entries failed " + attempt + " times: " + e.getMessage());
+                    return false;
+                }
+                System.err.println("[ERROR] Ledger write of " + entries.size() + " entries failed, retrying: " + e.getMessage());
+                Thread.sleep(retryDelayMillis);
+            }
+        }
+    }
+
+    // Writes the appends of a failed batch one by one so a single bad one cannot hold back the rest
+    private void quarantine(List<Pending> batch) {
+        for (Pending p : batch) {
+            try {
+                write(p.entries());
+            } catch (Exception e) {
+                System.err.println("[ERROR] Quarantined ledger entries " + p.entries() + ": " + e.getMessage());
+                quarantined.addAll(p.entries());
+                if (mode == DurabilityMode.GROUP_COMMIT) failedSeqs.put(p.seq(), String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    /** Writes entries in order in one transaction, collapsing balance/holding updates to their final value. */
+    void write(List<LedgerEntry> entries) {
+        tx.executeWithoutResult(status -> {
+            Segment segment = new Segment();
+            for (LedgerEntry e : entries) {
+                if (e.isReset()) {
+                    segment.write();
+                    jdbc.update("UPDATE account SET balance=? WHERE id=?", e.balanceAfter(), e.accountId());
+                    jdbc.update("DELETE FROM holdings WHERE account_id=?", e.accountId());
+                    jdbc.update("DELETE FROM holding_lots WHERE account_id=?", e.accountId());
+                    jdbc.update("DELETE FROM transactions WHERE account_id=?", e.accountId());
+                    continue;
+                }
+                segment.add(e);
+            }
+            segment.write();
+        });
+    }
+
+    // Portable upsert: update every row, then insert the ones that did not exist. Safe because a
+    // holding is only ever written by one journal write at a time (per-account locks / one writer)
+    private void upsertHoldings(List<Object[]> rows) {
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (Object[] r : rows) updates.add(new Object[]{r[2], r[3], r[0], r[1]});
+        int[] counts = jdbc.batchUpdate("UPDATE holdings SET quantity=?, cost_basis=? WHERE account_id=? AND symbol=?", updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) inserts.add(rows.get(i));
+        }
+        if (!inserts.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO holdings (account_id, symbol, quantity, cost_basis) VALUES (?,?,?,?)", inserts);
+        }
+    }
+
+    /** Entries between resets, reduced to the rows that have to change. */
+    private final class Segment {
+        final List<Object[]> inserts = new ArrayList<>();
+        final Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        final Map<HoldingKey, LedgerEntry> holdings = new LinkedHashMap<>();  // last entry per account/symbol
+        final Map<Long, LotChange> lots = new LinkedHashMap<>();          // last change per lot
+        final Set<Long> openedLots = new HashSet<>();
+
+        void add(LedgerEntry e) {
+            inserts.add(new Object[]{e.id(), e.accountId(), e.symbol(), e.quantity(), e.price(), e.type(), e.pnl(),
+                    Timestamp.valueOf(e.timestamp())});
+            balances.put(e.accountId(), e.balanceAfter());
+            holdings.put(new HoldingKey(e.accountId(), e.symbol()), e);
+            for (LotChange lot : e.lotChanges()) {
+                lots.put(lot.lotId(), lot);
+                if (lot.opened()) openedLots.add(lot.lotId());
+            }
+        }
+
+        void write() {
+            if (!inserts.isEmpty()) jdbc.batchUpdate(INSERT_TX, inserts);
+
+            for (Map.Entry<Long, BigDecimal> b : balances.entrySet()) {
+                jdbc.update("UPDATE account SET balance=? WHERE id=?", b.getValue(), b.getKey());
+            }
+
+            List<Object[]> upserts = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            holdings.forEach((key, e) -> {
+                if (e.holdingAfter().signum() > 0) {
+                    upserts.add(new Object[]{key.accountId(), key.symbol(), e.holdingAfter(), e.costBasisAfter()});
+                } else {
+                    deletes.add(new Object[]{key.accountId(), key.symbol()});
+                }
+            });
+            if (!upserts.isEmpty()) upsertHoldings(upserts);
+            if (!deletes.isEmpty()) jdbc.batchUpdate("DELETE FROM holdings WHERE account_id=? AND symbol=?", deletes);
+
+            List<Object[]> lotInserts = new ArrayList<>();
+            List<Object[]> lotUpdates = new ArrayList<>();
+            List<Object[]> lotDeletes = new ArrayList<>();
+            lots.forEach((id, lot) -> {
+                boolean open = lot.remaining().signum() > 0;
+                if (openedLots.contains(id)) {
+                    if (open) lotInserts.add(new Object[]{id, lot.accountId(), lot.symbol(), lot.remaining(), lot.price()});
+                } else if (open) {
+                    lotUpdates.add(new Object[]{lot.remaining(), id});
+                } else {
+                    lotDeletes.add(new Object[]{id});
+                }
+            });
+            if (!lotInserts.isEmpty()) {
+                jdbc.batchUpdate("INSERT INTO holding_lots(id, account_id, symbol, quantity, price) VALUES (?,?,?,?,?)", lotInserts);
+            }
+            if (!lotUpdates.isEmpty()) jdbc.batchUpdate("UPDATE holding_lots SET quantity=? WHERE id=?", lotUpdates);
+            if (!lotDeletes.isEmpty()) jdbc.batchUpdate("DELETE FROM holding_lots WHERE id=?", lotDeletes);
+
+            inserts.clear();
+            balances.clear();
+            holdings.clear();
+            lots.clear();
+            openedLots.clear();
+        }
+    }
+
+    private record Pending(long seq, List<LedgerEntry> entries) { }
+
+    private record HoldingKey(long accountId, String symbol) { }
+}
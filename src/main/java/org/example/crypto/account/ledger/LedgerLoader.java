@@ -0,0 +1,142 @@
+package org.example.crypto.account.ledger;
+
+import org.example.crypto.cluster.ShardMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the {@link Ledger} of every account from the database on startup.
+ * <p>
+ * Before loading, holdings whose cost basis was never stored (rows written before cost-basis
+ * tracking existed) or that were tracked under a different {@link CostBasisMethod} are migrated:
+ * {@code transactions} are replayed in id order to recompute each holding's basis and open lots.
+ * On a sharded node only the node's own accounts are migrated, and the method they were migrated
+ * with is recorded per shard, so trade nodes sharing a database never rewrite each other's rows.
+ */
+@Component
+public class LedgerLoader {
+
+    static final String METHOD_SETTING = "cost_basis_method";
+    private static final String OWNED = "MOD(account_id, ?) = ?"; // bound to the shard count and index
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final CostBasisMethod method;
+
+    public LedgerLoader(JdbcTemplate jdbc,
+                        PlatformTransactionManager txManager,
+                        @Value("${ledger.cost-basis:AVERAGE_COST}") CostBasisMethod method) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.method = method;
+    }
+
+    public CostBasisMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Loads all accounts, continuing {@code ids} after the highest persisted ids. Only the accounts of
+     * the shard {@code ids} allocates for are migrated first.
+     */
+    public Map<Long, Ledger> loadAll(LedgerIds ids) {
+        migrateCostBasis(ids.shard());
+
+        Map<Long, Ledger> ledgers = new HashMap<>();
+        jdbc.query("SELECT id, balance FROM account", rs -> {
+            long id = rs.getLong("id");
+            ledgers.put(id, new Ledger(id, rs.getBigDecimal("balance"), method, ids));
+        });
+        jdbc.query("SELECT account_id, symbol, quantity, cost_basis FROM holdings", rs -> {
+            Ledger ledger = ledgers.get(rs.getLong("account_id"));
+            if (ledger != null) {
+                ledger.restorePosition(rs.getString("symbol"), rs.getBigDecimal("quantity"), rs.getBigDecimal("cost_basis"));
+            }
+        });
+        jdbc.query("SELECT id, account_id, symbol, quantity, price FROM holding_lots ORDER BY id", rs -> {
+            Ledger ledger = ledgers.get(rs.getLong("account_id"));
+            if (ledger != null) {
+                ledger.restoreLot(rs.getLong("id"), rs.getString("symbol"), rs.getBigDecimal("quantity"), rs.getBigDecimal("price"));
+            }
+        });
+
+        ids.restore(maxId("transactions"), maxId("holding_lots"), maxId("account"));
+        return ledgers;
+    }
+
+    /** Loads a single account (all accounts are read; intended for tests and tools). */
+    public Ledger load(long accountId) {
+        return loadAll(new LedgerIds()).get(accountId);
+    }
+
+    /** {@link #migrateCostBasis(ShardMap)} over every account. */
+    public boolean migrateCostBasis() {
+        return migrateCostBasis(ShardMap.SINGLE);
+    }
+
+    /**
+     * Recomputes stored cost basis and lots of the shard's accounts from their transaction history when
+     * they are missing or were built with another method.
+     *
+     * @return true if a migration was performed
+     */
+    public boolean migrateCostBasis(ShardMap shard) {
+        String setting = shard.count() == 1 ? METHOD_SETTING : METHOD_SETTING + ":" + shard.index() + "/" + shard.count();
+        Object[] owned = {shard.count(), shard.index()};
+        List<String> stored = jdbc.queryForList("SELECT setting FROM ledger_settings WHERE name=?", String.class, setting);
+        Integer unmigrated = jdbc.queryForObject("SELECT COUNT(*) FROM holdings WHERE cost_basis IS NULL AND " + OWNED, Integer.class, owned);
+        if (stored.contains(method.name()) && unmigrated != null && unmigrated == 0) return false;
+
+        tx.executeWithoutResult(status -> {
+            LedgerIds replayIds = new LedgerIds();
+            replayIds.shard(shard); // lots are rewritten with ids of this shard only
+            Map<Long, Ledger> replays = new HashMap<>();
+            jdbc.query("SELECT account_id, type, symbol, quantity, price FROM transactions WHERE " + OWNED + " ORDER BY id", rs -> {
+                long accountId = rs.getLong("account_id");
+                replays.computeIfAbsent(accountId, id -> new Ledger(id, BigDecimal.ZERO, method, replayIds))
+                        .replay(rs.getString("type"), rs.getString("symbol"), rs.getBigDecimal("quantity"), rs.getBigDecimal("price"));
+            }, owned);
+
+            List<Object[]> bases = new ArrayList<>();
+            jdbc.query("SELECT account_id, symbol FROM holdings WHERE " + OWNED, rs -> {
+                long accountId = rs.getLong("account_id");
+                String symbol = rs.getString("symbol");
+                Ledger replay = replays.get(accountId);
+                bases.add(new Object[]{replay == null ? BigDecimal.ZERO : replay.costBasis(symbol), accountId, symbol});
+            }, owned);
+            if (!bases.isEmpty()) jdbc.batchUpdate("UPDATE holdings SET cost_basis=? WHERE account_id=? AND symbol=?", bases);
+
+            List<Object[]> lots = new ArrayList<>();
+            for (Ledger replay : replays.values()) {
+                for (LotChange lot : replay.openLots()) {
+                    lots.add(new Object[]{lot.lotId(), lot.accountId(), lot.symbol(), lot.remaining(), lot.price()});
+                }
+            }
+            jdbc.update("DELETE FROM holding_lots WHERE " + OWNED, owned);
+            if (!lots.isEmpty()) {
+                jdbc.batchUpdate("INSERT INTO holding_lots(id, account_id, symbol, quantity, price) VALUES (?,?,?,?,?)", lots);
+            }
+
+            if (jdbc.update("UPDATE ledger_settings SET setting=? WHERE name=?", method.name(), setting) == 0) {
+                jdbc.update("INSERT INTO ledger_settings (name, setting) VALUES (?,?)", setting, method.name());
+            }
+        });
+        System.out.println("[INFO] Rebuilt cost basis from transaction history using " + method
+                + (shard.count() == 1 ? "" : " for shard " + shard.index() + " of " + shard.count()));
+        return true;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.crypto.account.ledger;
+
+/**
+ * A journaled change could not be written to the database after every retry. It has already been applied
+ * to the in-memory ledger and is not rolled back, so the caller must not repeat it; the entries are kept in
+ * {@link LedgerJournal#quarantined()} for repair and are lost on restart unless repaired.
+ */
+public class LedgerWriteException extends RuntimeException {
+
+    public LedgerWriteException(String message) {
+        super(message);
+    }
+}
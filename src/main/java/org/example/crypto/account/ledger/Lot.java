@@ -0,0 +1,17 @@
+package org.example.crypto.account.ledger;
+
+import java.math.BigDecimal;
+
+/** Units bought in one trade that are still held (FIFO/LIFO accounting). */
+class Lot {
+
+    final long id;
+    final BigDecimal price;
+    BigDecimal quantity;
+
+    Lot(long id, BigDecimal price, BigDecimal quantity) {
+        this.id = id;
+        this.price = price;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.crypto.account.ledger;
+
+import java.math.BigDecimal;
+
+/**
+ * Effect of a trade on one lot: a lot opened by a buy ({@code opened}), or the quantity left
+ * in an existing lot after a sell (zero when the lot is used up).
+ */
+public record LotChange(long lotId, long accountId, String symbol, BigDecimal price, BigDecimal remaining, boolean opened) {
+}
@@ -0,0 +1,13 @@
+package org.example.crypto.account.ledger;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/** Quantity held of one symbol and the cost basis of that quantity. */
+class Position {
+
+    BigDecimal quantity = BigDecimal.ZERO;
+    BigDecimal costBasis = BigDecimal.ZERO;       // total purchase cost of the units still held
+    final Deque<Lot> lots = new ArrayDeque<>();   // oldest first; empty under AVERAGE_COST
+}
@@ -0,0 +1,108 @@
+package org.example.crypto.admission;
+
+import org.example.crypto.account.ledger.LedgerWriteException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests sent with an {@code Idempotency-Key}, so a client that retries after
+ * a timeout gets the original result instead of a second trade.
+ * <p>
+ * The first request with a key runs; duplicates that arrive while it is running wait for it, and those
+ * that arrive later get its result back until the key expires. Successes are remembered, and so is a
+ * {@link LedgerWriteException}, which is thrown for a trade that was applied but not persisted: other
+ * rejected or failed trades changed nothing, so retrying them runs them again. Keys are evicted in insertion
+ * order, which with one TTL is also expiry order, and the oldest go early if more than
+ * {@code max-entries} are live.
+ */
+@Component
+public class IdempotencyCache {
+
+    /** The result of a call and whether it was replayed from an earlier request. */
+    public record Outcome<T>(T value, boolean replayed) { }
+
+    private record Entry(Object request, CompletableFuture<Object> result, long expiresAt) { }
+
+    private record Queued(String key, Entry entry) { }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Queued> order = new ConcurrentLinkedQueue<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public IdempotencyCache(@Value("${trading.idempotency.ttl-ms:86400000}") long ttlMillis,
+                            @Value("${trading.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Runs {@code action} unless {@code key} was already used for an equal {@code request}, in which case
+     * the earlier result is returned. A null key always runs the action.
+     *
+     * @throws IdempotencyKeyReusedException if the key was used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String key, Object request, Supplier<T> action) {
+        if (key == null) return new Outcome<>(action.get(), false);
+        long now = System.nanoTime();
+        evict(now);
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Entry fresh = new Entry(request, result, now + ttlNanos);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) break;
+            if (existing.expiresAt() - now <= 0) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.request().equals(request)) throw new IdempotencyKeyReusedException(key);
+            return new Outcome<>((T) await(existing.result()), true);
+        }
+        order.add(new Queued(key, fresh));
+
+        try {
+            T value = action.get();
+            result.complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException e) {
+            // A failed request may be retried, except one that took effect before failing
+            if (!(e instanceof LedgerWriteException)) entries.remove(key, fresh);
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Live keys. */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Queued head;
+        while ((head = order.peek()) != null
+                && (head.entry().expiresAt() - now <= 0 || entries.size() > maxEntries)) {
+            if (order.remove(head)) entries.remove(head.key(), head.entry());
+        }
+    }
+
+    // Duplicates of a request that failed see its exception; they may retry unless it is kept (see above)
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
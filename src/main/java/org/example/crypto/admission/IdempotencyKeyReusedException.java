@@ -0,0 +1,9 @@
+package org.example.crypto.admission;
+
+/** An {@code Idempotency-Key} was sent again with a different request than the one it was first used for. */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key " + key + " was already used for a different request.");
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.crypto.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.crypto.account.AccountService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Admission control for trade endpoints: one token per request from a {@link RateLimiter} bucket keyed
+ * by client address or by account. Rejections are written here with status 429 and a
+ * {@code Retry-After} header, before the request reaches the controller or a database connection.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public enum KeyBy { CLIENT, ACCOUNT }
+
+    private final RateLimiter limiter;
+    private final KeyBy keyBy;
+
+    public RateLimitInterceptor(RateLimiter limiter, KeyBy keyBy) {
+        this.limiter = limiter;
+        this.keyBy = keyBy;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        long waitNanos = limiter.tryAcquire(key(request));
+        if (waitNanos == 0) return true;
+
+        long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests; retry in " + seconds + "s.\"}");
+        return false;
+    }
+
+    private String key(HttpServletRequest request) {
+        if (keyBy == KeyBy.CLIENT) return request.getRemoteAddr();
+        @SuppressWarnings("unchecked")
+        Map<String, String> vars = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = vars == null ? null : vars.get("id");
+        return id != null ? id : Long.toString(AccountService.DEFAULT_ACCOUNT_ID);
+    }
+}
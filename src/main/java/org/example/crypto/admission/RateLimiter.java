@@ -0,0 +1,62 @@
+package org.example.crypto.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets, one per key.
+ * <p>
+ * Each bucket is a single {@code AtomicLong} holding its theoretical arrival time (the GCRA form of a
+ * token bucket): taking a token moves it forward by one emission interval, and the request is admitted
+ * while it stays within {@code burst} intervals of now. An admission is one CAS, with no timer thread
+ * and no refill bookkeeping; a bucket whose arrival time has passed is simply full again. Such buckets
+ * carry no state, so they are dropped whenever the number of keys reaches {@code maxKeys}.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param perSecond sustained rate per key
+     * @param burst     requests a key may make back to back after being idle
+     * @param maxKeys   keys tracked before idle buckets are swept
+     */
+    public RateLimiter(double perSecond, int burst, int maxKeys) {
+        if (perSecond <= 0 || burst < 1) throw new IllegalArgumentException("Rate and burst must be positive.");
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token for {@code key}.
+     *
+     * @return 0 if admitted, otherwise nanoseconds until a token will be available
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) bucket = newBucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival - now, 0) + now + intervalNanos; // an idle bucket starts from now
+            long wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(arrival, next)) return 0;
+        }
+    }
+
+    /** Keys currently tracked. */
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong newBucket(String key, long now) {
+        if (buckets.size() >= maxKeys) buckets.values().removeIf(b -> b.get() - now <= 0);
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.Ledger;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * One backtest: a strategy run over every tick of a price source against a fresh in-memory ledger.
+ * Runs share nothing mutable, so any number of them can execute in parallel.
+ */
+public record Backtest(String name, PriceSource source, Supplier<Strategy> strategy, BigDecimal startBalance,
+                       CostBasisMethod costBasis) {
+
+    /** Runs the whole source on the calling thread. */
+    public BacktestResult run() {
+        long start = System.nanoTime();
+        BacktestContext ctx = new BacktestContext(new Ledger(1, startBalance, costBasis), source.symbols());
+        Strategy s = strategy.get();
+        long ticks = source.replay((symbolId, price, timestamp) -> {
+            ctx.tick(symbolId, price, timestamp);
+            s.onTick(ctx, symbolId, price);
+        });
+        return ctx.result(name, startBalance, ticks, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.price.PriceTable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a {@link Strategy} sees of its backtest: the latest price of every symbol, the simulated clock
+ * (the timestamp of the current tick) and an in-memory {@link Ledger} it trades against.
+ * <p>
+ * Trades go through the same {@code prepare}/{@code apply} path and checks as live trades, stamped
+ * with the simulated time instead of {@code LocalDateTime.now()}, and fill at the current price.
+ * A trade the ledger refuses is counted as rejected rather than thrown.
+ */
+public class BacktestContext {
+
+    private final Ledger ledger;
+    private final List<String> symbols;
+    private final long[] prices;
+    private long now;
+
+    private long trades;
+    private long rejected;
+    private BigDecimal realizedPnl = BigDecimal.ZERO;
+    private long fingerprint = 1;
+
+    BacktestContext(Ledger ledger, List<String> symbols) {
+        this.ledger = ledger;
+        this.symbols = symbols;
+        this.prices = new long[symbols.size()];
+        Arrays.fill(prices, PriceTable.NO_PRICE);
+    }
+
+    void tick(int symbolId, long price, long timestamp) {
+        prices[symbolId] = price;
+        now = timestamp;
+    }
+
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    /** Simulated time, epoch millis. */
+    public long timestamp() {
+        return now;
+    }
+
+    /** Latest fixed-point price of a symbol, {@link PriceTable#NO_PRICE} before its first tick. */
+    public long price(int symbolId) {
+        return prices[symbolId];
+    }
+
+    public BigDecimal balance() {
+        return ledger.balance();
+    }
+
+    public BigDecimal holding(int symbolId) {
+        return ledger.holding(symbols.get(symbolId));
+    }
+
+    public boolean buy(int symbolId, BigDecimal quantity) {
+        return trade(true, symbolId, quantity);
+    }
+
+    public boolean sell(int symbolId, BigDecimal quantity) {
+        return trade(false, symbolId, quantity);
+    }
+
+    private boolean trade(boolean buy, int symbolId, BigDecimal quantity) {
+        long price = prices[symbolId];
+        if (price == PriceTable.NO_PRICE || quantity == null || quantity.signum() <= 0) {
+            rejected++;
+            return false;
+        }
+        String symbol = symbols.get(symbolId);
+        BigDecimal fill = PriceTable.toBigDecimal(price);
+        LocalDateTime at = LocalDateTime.ofEpochSecond(Math.floorDiv(now, 1000), (int) Math.floorMod(now, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+        LedgerEntry entry;
+        try {
+            entry = buy ? ledger.prepareBuy(symbol, quantity, fill, at) : ledger.prepareSell(symbol, quantity, fill, at);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+            return false;
+        }
+        ledger.apply(entry);
+        trades++;
+        if (entry.pnl() != null) realizedPnl = realizedPnl.add(entry.pnl());
+        fingerprint = 31 * (31 * fingerprint + entry.balanceAfter().hashCode()) + entry.holdingAfter().hashCode();
+        return true;
+    }
+
+    BacktestResult result(String name, BigDecimal startBalance, long ticks, long elapsedNanos) {
+        BigDecimal equity = ledger.balance();
+        for (int id = 0; id < symbols.size(); id++) {
+            BigDecimal held = ledger.holding(symbols.get(id));
+            if (held.signum() > 0) equity = equity.add(held.multiply(PriceTable.toBigDecimal(prices[id])));
+        }
+        return new BacktestResult(name, ticks, trades, rejected, startBalance, ledger.balance(),
+                equity.setScale(2, RoundingMode.HALF_UP), realizedPnl.setScale(2, RoundingMode.HALF_UP),
+                ledger.holdings(), fingerprint, elapsedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.backtest.dto.BacktestRequest;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class BacktestController {
+
+    private final BacktestService service;
+
+    public BacktestController(BacktestService service) {
+        this.service = service;
+    }
+
+    // Runs one backtest per seed in parallel and returns the results in seed order
+    @PostMapping("/backtests")
+    public List<BacktestResult> run(@RequestBody BacktestRequest req) { return service.run(req); }
+}
@@ -0,0 +1,25 @@
+package org.example.crypto.backtest;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Outcome of one backtest. Everything but {@code elapsedMillis} is a pure function of the source,
+ * strategy and settings; {@code fingerprint} hashes the state after every trade, so two runs that
+ * traded identically have equal fingerprints.
+ *
+ * @param equity balance plus holdings at their last price
+ */
+public record BacktestResult(
+        String name,
+        long ticks,
+        long trades,
+        long rejected,
+        BigDecimal startBalance,
+        BigDecimal finalBalance,
+        BigDecimal equity,
+        BigDecimal realizedPnl,
+        Map<String, BigDecimal> holdings,
+        long fingerprint,
+        long elapsedMillis
+) {}
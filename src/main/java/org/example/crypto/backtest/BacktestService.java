@@ -0,0 +1,121 @@
+package org.example.crypto.backtest;
+
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.backtest.dto.BacktestRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs backtests on a dedicated fork-join pool, one task per backtest, so independent runs spread over
+ * all cores without touching the live feed, the database or the web request threads.
+ */
+@Service
+public class BacktestService {
+
+    private static final int MAX_RUNS = 1000;
+    private static final int MAX_TICKS = 50_000_000;
+    private static final BigDecimal DEFAULT_START_BALANCE = new BigDecimal("10000.00");
+
+    private final ForkJoinPool pool;
+    private final Path dataDir;
+
+    public BacktestService(@Value("${backtest.parallelism:0}") int parallelism,
+                           @Value("${backtest.data-dir:data}") String dataDir) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.dataDir = Path.of(dataDir).toAbsolutePath().normalize();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /** Runs all backtests in parallel; results are in the order of {@code backtests}. */
+    public List<BacktestResult> runAll(List<Backtest> backtests) {
+        List<ForkJoinTask<BacktestResult>> tasks = new ArrayList<>(backtests.size());
+        for (Backtest backtest : backtests) tasks.add(pool.submit(backtest::run));
+        List<BacktestResult> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<BacktestResult> task : tasks) results.add(task.join());
+        return results;
+    }
+
+    // Builds one backtest per seed from a request
+    public List<BacktestResult> run(BacktestRequest req) {
+        if (req == null) throw new IllegalArgumentException("Backtest request cannot be null.");
+        List<Long> seeds = req.seeds() == null || req.seeds().isEmpty() ? List.of(1L) : req.seeds();
+        if (seeds.size() > MAX_RUNS) throw new IllegalArgumentException("At most " + MAX_RUNS + " runs per request.");
+        BigDecimal startBalance = req.startBalance() == null ? DEFAULT_START_BALANCE : req.startBalance();
+        if (startBalance.signum() < 0) throw new IllegalArgumentException("Start balance cannot be negative.");
+        CostBasisMethod costBasis = parse(CostBasisMethod.class, req.costBasis(), CostBasisMethod.AVERAGE_COST, "Cost basis");
+        BigDecimal quantity = req.quantity() == null ? BigDecimal.ONE : req.quantity();
+
+        PriceSource shared = null; // file sources are read once and replayed by every run
+        String source = req.source() == null ? "RANDOM_WALK" : req.source();
+        try {
+            if ("CSV".equals(source)) shared = new CsvPriceSource(dataFile(req.path()));
+            else if ("JOURNAL".equals(source)) shared = new JournalPriceSource(dataFile(req.path()));
+            else if (!"RANDOM_WALK".equals(source)) throw new IllegalArgumentException("Source must be RANDOM_WALK, CSV or JOURNAL.");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + req.path() + ": " + e.getMessage());
+        }
+        int ticks = req.ticks() == null ? 100_000 : req.ticks();
+        if (shared == null && (ticks <= 0 || ticks > MAX_TICKS)) {
+            throw new IllegalArgumentException("Ticks must be between 1 and " + MAX_TICKS + ".");
+        }
+        List<String> symbols = req.symbols() == null || req.symbols().isEmpty() ? List.of("XBT/USD", "ETH/USD") : req.symbols();
+
+        List<Backtest> backtests = new ArrayList<>(seeds.size());
+        for (Long seed : seeds) {
+            if (seed == null) throw new IllegalArgumentException("Seeds cannot be null.");
+            PriceSource prices = shared != null ? shared : new RandomWalkPriceSource(symbols, seed, ticks);
+            Supplier<Strategy> strategy = strategy(req, seed, quantity);
+            strategy.get(); // validate parameters before anything runs
+            backtests.add(new Backtest("seed-" + seed, prices, strategy, startBalance, costBasis));
+        }
+        return runAll(backtests);
+    }
+
+    private static Supplier<Strategy> strategy(BacktestRequest req, long seed, BigDecimal quantity) {
+        String name = req.strategy() == null ? "MA_CROSS" : req.strategy();
+        if ("MA_CROSS".equals(name)) {
+            int fast = req.fast() == null ? 20 : req.fast();
+            int slow = req.slow() == null ? 100 : req.slow();
+            return () -> new MovingAverageCrossStrategy(fast, slow, quantity);
+        }
+        if ("RANDOM".equals(name)) {
+            double probability = req.probability() == null ? 0.1 : req.probability();
+            return () -> new RandomStrategy(seed, probability, quantity);
+        }
+        throw new IllegalArgumentException("Strategy must be MA_CROSS or RANDOM.");
+    }
+
+    // Backtests only read files below backtest.data-dir
+    private Path dataFile(String path) {
+        if (path == null || path.isBlank()) throw new IllegalArgumentException("Path is required for file sources.");
+        Path file = dataDir.resolve(path).normalize();
+        if (!file.startsWith(dataDir) || !Files.exists(file)) {
+            throw new IllegalArgumentException("No such file in the backtest data directory: " + path);
+        }
+        return file;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, E defaultValue, String what) {
+        if (value == null) return defaultValue;
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(what + " " + value + " is not supported.");
+        }
+    }
+}
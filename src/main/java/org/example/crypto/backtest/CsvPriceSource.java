@@ -0,0 +1,82 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.ring.TickListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ticks from a CSV file of {@code timestamp,symbol,price} lines (epoch millis, e.g. {@code XBT/USD},
+ * decimal price), in file order. An optional header line is skipped. The file is parsed once into
+ * primitive arrays, so replays allocate nothing.
+ */
+public class CsvPriceSource implements PriceSource {
+
+    private final List<String> symbols;
+    private final long[] timestamps;
+    private final int[] symbolIds;
+    private final long[] prices;
+
+    public CsvPriceSource(Path file) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        long[] ts = new long[1024];
+        int[] sym = new int[1024];
+        long[] px = new long[1024];
+        int n = 0;
+        int lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || (lineNo == 1 && !Character.isDigit(line.charAt(0)))) continue;
+                String[] fields = line.split(",");
+                if (fields.length != 3) throw new IllegalArgumentException("Line " + lineNo + " must be timestamp,symbol,price.");
+                if (n == ts.length) {
+                    ts = Arrays.copyOf(ts, n * 2);
+                    sym = Arrays.copyOf(sym, n * 2);
+                    px = Arrays.copyOf(px, n * 2);
+                }
+                try {
+                    ts[n] = Long.parseLong(fields[0].trim());
+                    px[n] = PriceTable.toFixed(new BigDecimal(fields[2].trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Line " + lineNo + " has an invalid timestamp or price.");
+                }
+                String symbol = fields[1].trim();
+                Integer id = ids.get(symbol);
+                if (id == null) {
+                    id = names.size();
+                    ids.put(symbol, id);
+                    names.add(symbol);
+                }
+                sym[n++] = id;
+            }
+        }
+        this.symbols = List.copyOf(names);
+        this.timestamps = Arrays.copyOf(ts, n);
+        this.symbolIds = Arrays.copyOf(sym, n);
+        this.prices = Arrays.copyOf(px, n);
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public long replay(TickListener listener) {
+        for (int i = 0; i < timestamps.length; i++) listener.onTick(symbolIds[i], prices[i], timestamps[i]);
+        return timestamps.length;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.price.journal.TickReplayer;
+import org.example.crypto.price.ring.TickListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Ticks recorded by the live feed's tick journal ({@code prices.journal.dir}), replayed unpaced. */
+public class JournalPriceSource implements PriceSource {
+
+    private final TickReplayer replayer;
+    private final List<String> symbols;
+
+    public JournalPriceSource(Path dir) throws IOException {
+        this.replayer = new TickReplayer(dir);
+        this.symbols = List.copyOf(replayer.symbols());
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public long replay(TickListener listener) {
+        try {
+            return replayer.replay(listener, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // unpaced replays never wait, so this is not expected
+            throw new IllegalStateException("Replay interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.crypto.backtest;
+
+import java.math.BigDecimal;
+
+/**
+ * Buys a fixed quantity when a symbol's fast moving average crosses above its slow one and sells the
+ * whole holding when it crosses back below. Averages are kept as running sums of fixed-point prices
+ * over a ring of the last {@code slow} prices per symbol.
+ */
+public class MovingAverageCrossStrategy implements Strategy {
+
+    private final int fast;
+    private final int slow;
+    private final BigDecimal quantity;
+
+    private long[][] windows;   // by symbol: last `slow` prices, circular
+    private long[] fastSums;
+    private long[] slowSums;
+    private long[] seen;        // ticks per symbol
+    private boolean[] above;    // fast average above slow at the previous tick
+
+    public MovingAverageCrossStrategy(int fast, int slow, BigDecimal quantity) {
+        if (fast <= 0 || slow <= fast) throw new IllegalArgumentException("Windows must satisfy 0 < fast < slow.");
+        if (quantity == null || quantity.signum() <= 0) throw new IllegalArgumentException("Quantity must be a positive number.");
+        this.fast = fast;
+        this.slow = slow;
+        this.quantity = quantity;
+    }
+
+    @Override
+    public void onTick(BacktestContext ctx, int symbolId, long price) {
+        if (windows == null) allocate(ctx.symbols().size());
+        long[] window = windows[symbolId];
+        long n = seen[symbolId]++;
+        slowSums[symbolId] += price - (n >= slow ? window[(int) (n % slow)] : 0);
+        fastSums[symbolId] += price - (n >= fast ? window[(int) ((n - fast) % slow)] : 0);
+        window[(int) (n % slow)] = price;
+        if (n + 1 < slow) return;
+
+        // fast/f > slow/s without dividing
+        boolean nowAbove = (double) fastSums[symbolId] * slow > (double) slowSums[symbolId] * fast;
+        boolean crossed = n + 1 > slow && nowAbove != above[symbolId];
+        above[symbolId] = nowAbove;
+        if (!crossed) return;
+        if (nowAbove) {
+            ctx.buy(symbolId, quantity);
+        } else {
+            BigDecimal held = ctx.holding(symbolId);
+            if (held.signum() > 0) ctx.sell(symbolId, held);
+        }
+    }
+
+    private void allocate(int symbols) {
+        windows = new long[symbols][slow];
+        fastSums = new long[symbols];
+        slowSums = new long[symbols];
+        seen = new long[symbols];
+        above = new boolean[symbols];
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.price.ring.TickListener;
+
+import java.util.List;
+
+/**
+ * Historical or synthetic ticks for a backtest. A source is immutable: every {@link #replay} delivers
+ * the same ticks in the same order, so one source can be shared by backtests running in parallel.
+ */
+public interface PriceSource {
+
+    /** Symbols of the source; the symbol ids passed to listeners index this list. */
+    List<String> symbols();
+
+    /**
+     * Delivers every tick, in time order, on the calling thread.
+     *
+     * @return number of ticks delivered
+     */
+    long replay(TickListener listener);
+}
@@ -0,0 +1,30 @@
+package org.example.crypto.backtest;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded coin-flip trader: on each tick, with the given probability, buys or sells a fixed quantity
+ * of the ticking symbol. Useful as a baseline and as a load generator for the ledger.
+ */
+public class RandomStrategy implements Strategy {
+
+    private final SplittableRandom random;
+    private final double probability;
+    private final BigDecimal quantity;
+
+    public RandomStrategy(long seed, double probability, BigDecimal quantity) {
+        if (probability < 0 || probability > 1) throw new IllegalArgumentException("Probability must be between 0 and 1.");
+        if (quantity == null || quantity.signum() <= 0) throw new IllegalArgumentException("Quantity must be a positive number.");
+        this.random = new SplittableRandom(seed);
+        this.probability = probability;
+        this.quantity = quantity;
+    }
+
+    @Override
+    public void onTick(BacktestContext ctx, int symbolId, long price) {
+        if (random.nextDouble() >= probability) return;
+        if (random.nextBoolean()) ctx.buy(symbolId, quantity);
+        else ctx.sell(symbolId, quantity);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.crypto.backtest;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.ring.TickListener;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded geometric random walk: each tick moves one symbol (round robin) by a normally distributed
+ * relative step. The same seed always produces the same ticks, on any JVM ({@link StrictMath}).
+ */
+public class RandomWalkPriceSource implements PriceSource {
+
+    private static final long START_TIME = 1_700_000_000_000L; // fixed, so timestamps are reproducible too
+    private static final long TICK_SIZE = PriceTable.toFixed(new BigDecimal("0.0001")); // prices keep 4 decimals
+
+    private final List<String> symbols;
+    private final long seed;
+    private final int ticks;
+    private final double startPrice;
+    private final double volatility;
+    private final long stepMillis;
+
+    /**
+     * @param volatility standard deviation of the relative move per tick, e.g. 0.001 for 0.1%
+     * @param stepMillis simulated time between ticks
+     */
+    public RandomWalkPriceSource(List<String> symbols, long seed, int ticks, double startPrice, double volatility,
+                                 long stepMillis) {
+        if (symbols == null || symbols.isEmpty()) throw new IllegalArgumentException("At least one symbol is required.");
+        if (ticks < 0) throw new IllegalArgumentException("Ticks cannot be negative.");
+        if (startPrice <= 0 || volatility < 0) {
+            throw new IllegalArgumentException("Start price must be positive and volatility non-negative.");
+        }
+        this.symbols = List.copyOf(symbols);
+        this.seed = seed;
+        this.ticks = ticks;
+        this.startPrice = startPrice;
+        this.volatility = volatility;
+        this.stepMillis = stepMillis;
+    }
+
+    public RandomWalkPriceSource(List<String> symbols, long seed, int ticks) {
+        this(symbols, seed, ticks, 1000, 0.001, 1000);
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public long replay(TickListener listener) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] prices = new double[symbols.size()];
+        Arrays.fill(prices, startPrice);
+        for (int i = 0; i < ticks; i++) {
+            int symbolId = i % prices.length;
+            prices[symbolId] *= StrictMath.exp(volatility * random.nextGaussian());
+            long fixed = Math.max(1, Math.round(prices[symbolId] * 10_000)) * TICK_SIZE;
+            listener.onTick(symbolId, fixed, START_TIME + i * stepMillis);
+        }
+        return ticks;
+    }
+}
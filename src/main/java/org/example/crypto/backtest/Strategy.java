@@ -0,0 +1,13 @@
+package org.example.crypto.backtest;
+
+/**
+ * Trading logic under test. A fresh instance is created for every backtest, so strategies may keep
+ * state in plain fields; they must not use wall-clock time or unseeded randomness if results are to
+ * be reproducible.
+ */
+@FunctionalInterface
+public interface Strategy {
+
+    /** Called for every tick, after {@code ctx} has been updated with its price and timestamp. */
+    void onTick(BacktestContext ctx, int symbolId, long price);
+}
@@ -0,0 +1,19 @@
+package org.example.crypto.backtest.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BacktestRequest(
+        String source,          // RANDOM_WALK (default), CSV or JOURNAL
+        String path,            // CSV file or journal directory, relative to backtest.data-dir
+        List<String> symbols,   // RANDOM_WALK only
+        Integer ticks,          // RANDOM_WALK only: ticks per run
+        List<Long> seeds,       // one run per seed, seeding the random walk and the RANDOM strategy
+        String strategy,        // MA_CROSS (default) or RANDOM
+        Integer fast,           // MA_CROSS windows, in ticks of the symbol
+        Integer slow,
+        Double probability,     // RANDOM: chance of trading on a tick
+        BigDecimal quantity,
+        BigDecimal startBalance,
+        String costBasis        // AVERAGE_COST (default), FIFO or LIFO
+) {}
@@ -0,0 +1,7 @@
+package org.example.crypto.candle;
+
+/**
+ * One OHLC bar with fixed-point prices (see {@link org.example.crypto.price.PriceTable#SCALE}).
+ * {@code ticks} is the number of ticker updates folded into it; the ticker channel carries no trade sizes.
+ */
+public record Candle(long openTime, long open, long high, long low, long close, long ticks) {}
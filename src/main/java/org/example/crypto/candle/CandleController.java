@@ -0,0 +1,27 @@
+package org.example.crypto.candle;
+
+import org.example.crypto.candle.dto.CandleDTO;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class CandleController {
+
+    private final CandleService service;
+
+    public CandleController(CandleService service) {
+        this.service = service;
+    }
+
+    // e.g. /api/candles?symbol=XBT/USD&interval=5m&limit=288
+    @GetMapping("/candles")
+    public List<CandleDTO> candles(@RequestParam(name = "symbol") String symbol,
+                                   @RequestParam(name = "interval", defaultValue = "1m") String interval,
+                                   @RequestParam(name = "from", required = false) Long from,
+                                   @RequestParam(name = "limit", required = false) Integer limit) {
+        return service.getCandles(symbol, interval, from, limit);
+    }
+}
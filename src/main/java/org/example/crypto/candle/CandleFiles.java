@@ -0,0 +1,105 @@
+package org.example.crypto.candle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only candle files, one per symbol and interval: {@code <dir>/XBT_USD/1m.bin}.
+ * <p>
+ * A file is a flat array of 48-byte records (open time, open, high, low, close, ticks as big-endian
+ * longs), ordered by open time, so its tail can be read back with one positioned read and a torn
+ * record left by a crash is simply cut off. Writes go to the page cache; files are forced on close.
+ */
+class CandleFiles {
+
+    static final int RECORD_BYTES = CandleSeries.FIELDS * Long.BYTES;
+    private static final String SUFFIX = ".bin";
+
+    private final Path dir;
+    private final Map<Path, FileChannel> channels = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    CandleFiles(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Symbols that have at least one candle file. */
+    synchronized List<String> symbols() throws IOException {
+        List<String> symbols = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return symbols;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path entry : entries) symbols.add(entry.getFileName().toString().replace('_', '/'));
+        }
+        return symbols;
+    }
+
+    synchronized void append(String symbol, CandleInterval interval, Candle candle) throws IOException {
+        record.clear();
+        record.putLong(candle.openTime()).putLong(candle.open()).putLong(candle.high())
+                .putLong(candle.low()).putLong(candle.close()).putLong(candle.ticks());
+        record.flip();
+        FileChannel channel = channel(file(symbol, interval));
+        while (record.hasRemaining()) channel.write(record);
+    }
+
+    /** The last {@code max} complete records of a file, oldest first. */
+    synchronized List<Candle> readTail(String symbol, CandleInterval interval, int max) throws IOException {
+        Path file = file(symbol, interval);
+        List<Candle> candles = new ArrayList<>();
+        if (!Files.exists(file)) return candles;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = channel.size() / RECORD_BYTES;
+            long first = Math.max(0, records - max);
+            ByteBuffer buf = ByteBuffer.allocate((int) (records - first) * RECORD_BYTES);
+            long position = first * RECORD_BYTES;
+            while (buf.hasRemaining()) {
+                int read = channel.read(buf, position);
+                if (read < 0) break;
+                position += read;
+            }
+            buf.flip();
+            while (buf.remaining() >= RECORD_BYTES) {
+                candles.add(new Candle(buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong()));
+            }
+        }
+        return candles;
+    }
+
+    synchronized void close() {
+        for (Map.Entry<Path, FileChannel> entry : channels.entrySet()) {
+            try {
+                entry.getValue().force(false);
+                entry.getValue().close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to close candle file " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+        channels.clear();
+    }
+
+    private FileChannel channel(Path file) throws IOException {
+        FileChannel channel = channels.get(file);
+        if (channel == null) {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            long size = channel.size();
+            channel.truncate(size - size % RECORD_BYTES); // drop a record torn by a crash
+            channel.position(channel.size());
+            channels.put(file, channel);
+        }
+        return channel;
+    }
+
+    private Path file(String symbol, CandleInterval interval) {
+        return dir.resolve(symbol.replace('/', '_')).resolve(interval.label() + SUFFIX);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.crypto.candle;
+
+/** Candle widths kept for every symbol. Candles are aligned to multiples of their width since the epoch. */
+public enum CandleInterval {
+    ONE_SECOND("1s", 1_000L),
+    ONE_MINUTE("1m", 60_000L),
+    FIVE_MINUTES("5m", 300_000L),
+    ONE_HOUR("1h", 3_600_000L);
+
+    private static final CandleInterval[] VALUES = values();
+
+    private final String label;
+    private final long millis;
+
+    CandleInterval(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    /** Open time of the candle containing {@code timestamp} (epoch millis). */
+    public long openTime(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+
+    /** Parses a label such as {@code 1m}. */
+    public static CandleInterval of(String label) {
+        for (CandleInterval interval : VALUES) {
+            if (interval.label.equals(label)) return interval;
+        }
+        throw new IllegalArgumentException("Interval must be one of 1s, 1m, 5m or 1h.");
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.crypto.candle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent candles of one symbol at one interval, in a fixed ring of primitive longs.
+ * <p>
+ * Each candle takes {@link #FIELDS} consecutive longs, so a series costs {@code capacity * 48} bytes
+ * however long it runs; once full, every new candle overwrites the oldest. The newest candle is the one
+ * still being built: ticks in its interval update it in place, and the first tick of a later interval
+ * closes it and opens the next. Intervals without ticks produce no candle.
+ * <p>
+ * One thread updates a series while request threads read it, so every method locks the series; the
+ * lock is uncontended apart from the occasional read.
+ */
+public class CandleSeries {
+
+    static final int FIELDS = 6;
+    private static final int TIME = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int TICKS = 5;
+
+    private final CandleInterval interval;
+    private final int capacity;
+    private final long[] bars;
+    private long count; // candles ever opened; the newest sits at slot(count - 1)
+
+    public CandleSeries(CandleInterval interval, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        this.interval = interval;
+        this.capacity = capacity;
+        this.bars = new long[capacity * FIELDS];
+    }
+
+    public CandleInterval interval() {
+        return interval;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Folds a tick into the current candle, or opens a new one if the tick falls in a later interval.
+     * A tick stamped before the current candle (the clock stepped back) is folded into the current one.
+     *
+     * @return true if the tick closed the previous candle, which is then {@code latest(1)}
+     */
+    public synchronized boolean update(long timestamp, long price) {
+        long openTime = interval.openTime(timestamp);
+        if (count > 0) {
+            int i = slot(count - 1);
+            if (openTime <= bars[i + TIME]) {
+                if (price > bars[i + HIGH]) bars[i + HIGH] = price;
+                if (price < bars[i + LOW]) bars[i + LOW] = price;
+                bars[i + CLOSE] = price;
+                bars[i + TICKS]++;
+                return false;
+            }
+        }
+        int i = slot(count++);
+        bars[i + TIME] = openTime;
+        bars[i + OPEN] = price;
+        bars[i + HIGH] = price;
+        bars[i + LOW] = price;
+        bars[i + CLOSE] = price;
+        bars[i + TICKS] = 1;
+        return count > 1;
+    }
+
+    /**
+     * Appends a candle read back from storage. One with the same open time as the newest candle
+     * replaces it (a partial candle saved at shutdown, then saved again once complete); older ones
+     * are ignored.
+     */
+    public synchronized void restore(Candle candle) {
+        if (count > 0) {
+            long newest = bars[slot(count - 1) + TIME];
+            if (candle.openTime() < newest) return;
+            if (candle.openTime() == newest) count--;
+        }
+        int i = slot(count++);
+        bars[i + TIME] = candle.openTime();
+        bars[i + OPEN] = candle.open();
+        bars[i + HIGH] = candle.high();
+        bars[i + LOW] = candle.low();
+        bars[i + CLOSE] = candle.close();
+        bars[i + TICKS] = candle.ticks();
+    }
+
+    /** Candles held, at most {@link #capacity()}. */
+    public synchronized int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    /** The candle {@code back} places before the newest (0 = newest), or null if it is no longer held. */
+    public synchronized Candle latest(int back) {
+        if (back < 0 || back >= size()) return null;
+        return read(slot(count - 1 - back));
+    }
+
+    /** Up to {@code limit} of the newest candles opened at or after {@code from}, oldest first. */
+    public synchronized List<Candle> read(long from, int limit) {
+        int n = 0;
+        int held = size();
+        while (n < held && n < limit && bars[slot(count - 1 - n) + TIME] >= from) n++;
+        List<Candle> result = new ArrayList<>(n);
+        for (long seq = count - n; seq < count; seq++) result.add(read(slot(seq)));
+        return result;
+    }
+
+    private Candle read(int i) {
+        return new Candle(bars[i + TIME], bars[i + OPEN], bars[i + HIGH], bars[i + LOW], bars[i + CLOSE], bars[i + TICKS]);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity) * FIELDS;
+    }
+}
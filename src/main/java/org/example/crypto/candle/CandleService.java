@@ -0,0 +1,143 @@
+package org.example.crypto.candle;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.candle.dto.CandleDTO;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.ring.TickConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * OHLC candles at every {@link CandleInterval}, built from the tick stream.
+ * <p>
+ * A {@code candles} tick consumer folds each tick into one {@link CandleSeries} per interval of its
+ * symbol, so memory is bounded by {@code candles.capacity} candles per series. When a tick closes a
+ * candle, the candle is appended to its file under {@code candles.dir} (if set); on start the newest
+ * candles of every file are loaded back, so history survives restarts.
+ */
+@Service
+public class CandleService {
+
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+    private static final int DEFAULT_LIMIT = 500;
+
+    private final KrakenPriceService priceService;
+    private final PriceTable table;
+    private final int capacity;
+    private final CandleFiles files;                            // null when persistence is off
+    private final AtomicReferenceArray<CandleSeries[]> series;  // by symbol id, then interval ordinal
+    private TickConsumer ticks;
+
+    public CandleService(KrakenPriceService priceService,
+                         @Value("${candles.capacity:1440}") int capacity,
+                         @Value("${candles.dir:}") String dir) {
+        if (capacity <= 0) throw new IllegalArgumentException("candles.capacity must be positive.");
+        this.priceService = priceService;
+        this.table = priceService.getPriceTable();
+        this.capacity = capacity;
+        this.files = dir == null || dir.isBlank() ? null : new CandleFiles(Path.of(dir));
+        this.series = new AtomicReferenceArray<>(table.capacity());
+    }
+
+    // Loads saved candles, then starts building from live ticks
+    @PostConstruct
+    public void start() {
+        if (files != null) restore();
+        ticks = priceService.addTickListener("candles", this::onTick);
+    }
+
+    // Saves the candles still being built, so a restart continues them instead of losing them
+    @PreDestroy
+    public void stop() {
+        if (ticks != null) priceService.removeTickListener(ticks);
+        if (files == null) return;
+        for (int id = 0; id < series.length(); id++) {
+            CandleSeries[] bySymbol = series.get(id);
+            if (bySymbol == null) continue;
+            for (CandleSeries s : bySymbol) {
+                Candle current = s.latest(0);
+                if (current != null) save(id, s.interval(), current);
+            }
+        }
+        files.close();
+    }
+
+    /**
+     * Newest candles of a symbol, oldest first. The last one may still be open.
+     *
+     * @param from  only candles opened at or after this time (epoch millis), if given
+     * @param limit max candles returned, 500 by default
+     */
+    public List<CandleDTO> getCandles(String symbol, String interval, Long from, Integer limit) {
+        if (symbol == null || symbol.isBlank()) throw new IllegalArgumentException("Symbol is required.");
+        CandleInterval width = CandleInterval.of(interval == null ? "1m" : interval);
+        int max = limit == null ? Math.min(DEFAULT_LIMIT, capacity) : limit;
+        if (max <= 0 || max > capacity) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + capacity + ".");
+        }
+        int symbolId = table.idOf(symbol);
+        if (symbolId < 0) throw new IllegalArgumentException("Unknown symbol " + symbol);
+
+        CandleSeries[] bySymbol = series.get(symbolId);
+        if (bySymbol == null) return List.of();
+        List<Candle> candles = bySymbol[width.ordinal()].read(from == null ? Long.MIN_VALUE : from, max);
+        long now = System.currentTimeMillis();
+        List<CandleDTO> result = new ArrayList<>(candles.size());
+        for (Candle c : candles) {
+            result.add(new CandleDTO(c.openTime(), PriceTable.toBigDecimal(c.open()), PriceTable.toBigDecimal(c.high()),
+                    PriceTable.toBigDecimal(c.low()), PriceTable.toBigDecimal(c.close()), c.ticks(),
+                    c.openTime() + width.millis() <= now));
+        }
+        return result;
+    }
+
+    // Tick consumer: runs on the tick-candles thread, the only writer of every series
+    private void onTick(int symbolId, long price, long timestamp) {
+        CandleSeries[] bySymbol = seriesOf(symbolId);
+        for (CandleSeries s : bySymbol) {
+            if (s.update(timestamp, price) && files != null) save(symbolId, s.interval(), s.latest(1));
+        }
+    }
+
+    private CandleSeries[] seriesOf(int symbolId) {
+        CandleSeries[] bySymbol = series.get(symbolId);
+        if (bySymbol == null) {
+            bySymbol = new CandleSeries[INTERVALS.length];
+            for (CandleInterval interval : INTERVALS) bySymbol[interval.ordinal()] = new CandleSeries(interval, capacity);
+            series.set(symbolId, bySymbol);
+        }
+        return bySymbol;
+    }
+
+    private void save(int symbolId, CandleInterval interval, Candle candle) {
+        try {
+            files.append(table.symbol(symbolId), interval, candle);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save " + interval.label() + " candle of " + table.symbol(symbolId)
+                    + ": " + e.getMessage());
+        }
+    }
+
+    private void restore() {
+        try {
+            List<String> symbols = files.symbols();
+            for (String symbol : symbols) {
+                CandleSeries[] bySymbol = seriesOf(table.register(symbol));
+                for (CandleInterval interval : INTERVALS) {
+                    for (Candle c : files.readTail(symbol, interval, capacity)) bySymbol[interval.ordinal()].restore(c);
+                }
+            }
+            if (!symbols.isEmpty()) System.out.println("[INFO] Restored candles for " + symbols.size() + " symbols");
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("[ERROR] Failed to restore candles: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.crypto.candle.dto;
+
+import java.math.BigDecimal;
+
+public record CandleDTO(
+        long time,          // open time, epoch millis
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        long ticks,         // ticker updates in the candle
+        boolean closed      // false while its interval is still running
+) {}
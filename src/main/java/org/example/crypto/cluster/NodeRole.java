@@ -0,0 +1,14 @@
+package org.example.crypto.cluster;
+
+/**
+ * What a node does in a scaled-out deployment ({@code node.role}).
+ * <ul>
+ *   <li>{@link #STANDALONE} - connects to Kraken itself and serves every account; the default.</li>
+ *   <li>{@link #FEED} - connects to Kraken and republishes its ticks to trade nodes over TCP.</li>
+ *   <li>{@link #TRADE} - takes prices from a feed node instead of Kraken and serves the accounts of its
+ *       shard ({@code node.shard.index} of {@code node.shard.count}).</li>
+ * </ul>
+ */
+public enum NodeRole {
+    STANDALONE, FEED, TRADE
+}
@@ -0,0 +1,31 @@
+package org.example.crypto.cluster;
+
+/**
+ * Which accounts a node serves: account {@code id} belongs to shard {@code id mod count}. Ids a node
+ * allocates are chosen from its own shard, so an account is created on the node that will serve it and
+ * a load balancer can route {@code /api/accounts/{id}/...} by the same rule.
+ */
+public record ShardMap(int count, int index) {
+
+    public static final ShardMap SINGLE = new ShardMap(1, 0);
+
+    public ShardMap {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shard index must be in [0, " + count + "), got " + index + ".");
+        }
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) count);
+    }
+
+    public boolean owns(long id) {
+        return shardOf(id) == index;
+    }
+
+    /** Smallest id greater than {@code last} that this shard owns. */
+    public long nextAfter(long last) {
+        long next = last + 1;
+        return next + Math.floorMod(index - next, (long) count);
+    }
+}
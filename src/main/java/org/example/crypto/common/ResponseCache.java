@@ -0,0 +1,132 @@
+package org.example.crypto.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized JSON responses for endpoints that dashboards poll.
+ * <p>
+ * Each entry holds the bytes of one response together with the version of the state it was built
+ * from; callers pass the current version on every request and the body is rebuilt only when it has
+ * moved on. Versions come from counters the services already keep: the tick sequence for prices, and
+ * the per-account revision of applied ledger changes for accounts and their history (see
+ * {@code AccountService.historyVersion}). An unchanged poll therefore costs a map lookup and, with
+ * {@code If-None-Match}, a 304 with no body at all. Read the version before building the body: a change that races the build then
+ * leaves an older version on the entry and forces a rebuild next time, never a stale hit.
+ * <p>
+ * ETags are derived from the bytes (CRC32 and length), so they stay stable across rebuilds that
+ * produce the same body. Bodies above {@code http.cache.gzip-min-bytes} are also kept gzipped when
+ * {@code http.cache.gzip} is on, and served that way to clients that accept it.
+ */
+@Component
+public class ResponseCache {
+
+    /** A value to serialize and the headers to send with it. */
+    public record Body(Object value, Map<String, String> headers) {
+        public static Body of(Object value) {
+            return new Body(value, Map.of());
+        }
+    }
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private final ObjectMapper mapper;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${http.cache.gzip:true}")
+    private boolean gzip = true;
+
+    @Value("${http.cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes = 1024;
+
+    @Value("${http.cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    public ResponseCache(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Responds with the cached body for {@code key} if it was built at {@code version} or later, and
+     * builds and caches it otherwise. Concurrent misses on one key build it once.
+     */
+    public ResponseEntity<byte[]> respond(Object key, long version, Supplier<Body> build, WebRequest request) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version < version) {
+            if (entries.size() >= maxEntries && !entries.containsKey(key)) entries.clear(); // a bound, not an LRU
+            entry = entries.compute(key, (k, current) ->
+                    current != null && current.version >= version ? current : serialize(version, build.get()));
+        }
+        return entry.toResponse(request);
+    }
+
+    public void invalidate(Object key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry serialize(long version, Body body) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(body.value());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        String tag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(json.length);
+        byte[] gzipped = gzip && json.length >= gzipMinBytes ? gzip(json) : null;
+        return new Entry(version, json, gzipped, "\"" + tag + "\"", "\"" + tag + "-gz\"", body.headers());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Entry(long version, byte[] json, byte[] gzipped, String etag, String gzipEtag, Map<String, String> headers) {
+
+        ResponseEntity<byte[]> toResponse(WebRequest request) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            boolean gz = gzipped != null && accept != null && accept.contains("gzip");
+            String tag = gz ? gzipEtag : etag;
+
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            boolean notModified = ifNoneMatch != null && (ifNoneMatch.contains(tag) || ifNoneMatch.trim().equals("*"));
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                    .eTag(tag)
+                    .cacheControl(REVALIDATE);
+            if (gzipped != null) response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+            headers.forEach(response::header);
+            if (notModified) return response.build();
+
+            if (gz) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return response.contentType(MediaType.APPLICATION_JSON).body(gz ? gzipped : json);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.crypto.config;
+
+import org.example.crypto.admission.RateLimitInterceptor;
+import org.example.crypto.admission.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private static final String[] TRADE_PATHS = {
+            "/api/buy", "/api/sell", "/api/orders/batch",
+            "/api/accounts/*/buy", "/api/accounts/*/sell", "/api/accounts/*/orders/batch"
+    };
+
+    private final boolean rateLimitEnabled;
+    private final double perSecond;
+    private final int burst;
+    private final int maxClients;
+    private final RateLimitInterceptor.KeyBy keyBy;
+
+    public WebMvcConfig(@Value("${trading.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                        @Value("${trading.rate-limit.per-second:50}") double perSecond,
+                        @Value("${trading.rate-limit.burst:100}") int burst,
+                        @Value("${trading.rate-limit.max-clients:100000}") int maxClients,
+                        @Value("${trading.rate-limit.key-by:CLIENT}") RateLimitInterceptor.KeyBy keyBy) {
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.perSecond = perSecond;
+        this.burst = burst;
+        this.maxClients = maxClients;
+        this.keyBy = keyBy;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!rateLimitEnabled) return;
+        registry.addInterceptor(new RateLimitInterceptor(new RateLimiter(perSecond, burst, maxClients), keyBy))
+                .addPathPatterns(TRADE_PATHS);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.crypto.config;
+
+import org.example.crypto.price.PriceStreamHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketServerConfig implements WebSocketConfigurer {
+
+    private final PriceStreamHandler priceStreamHandler;
+    private final String[] allowedOrigins;
+
+    public WebSocketServerConfig(PriceStreamHandler priceStreamHandler,
+                                 @Value("${spring.web.cors.allowed-origins:*}") String[] allowedOrigins) {
+        this.priceStreamHandler = priceStreamHandler;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(priceStreamHandler, "/ws/prices").setAllowedOrigins(allowedOrigins);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.crypto.order;
+
+import org.example.crypto.order.dto.OrderDTO;
+import org.example.crypto.order.dto.PlaceOrderRequest;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class OrderController {
+
+    private final OrderService service;
+
+    public OrderController(OrderService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/orders")
+    public List<OrderDTO> orders() { return service.getOrders(); }
+
+    @PostMapping("/orders")
+    public OrderDTO place(@RequestBody PlaceOrderRequest req) { return service.place(req); }
+
+    @DeleteMapping("/orders/{orderId}")
+    public OrderDTO cancel(@PathVariable("orderId") long orderId) { return service.cancel(orderId); }
+
+    @GetMapping("/accounts/{id}/orders")
+    public List<OrderDTO> orders(@PathVariable("id") long id) { return service.getOrders(id); }
+
+    @PostMapping("/accounts/{id}/orders")
+    public OrderDTO place(@PathVariable("id") long id, @RequestBody PlaceOrderRequest req) { return service.place(id, req); }
+
+    @DeleteMapping("/accounts/{id}/orders/{orderId}")
+    public OrderDTO cancel(@PathVariable("id") long id, @PathVariable("orderId") long orderId) {
+        return service.cancel(id, orderId);
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.crypto.order;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.cluster.ShardMap;
+import org.example.crypto.order.dto.OrderDTO;
+import org.example.crypto.order.dto.PlaceOrderRequest;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+import org.example.crypto.price.ring.TickConsumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Resting limit, stop-loss and take-profit orders.
+ * <p>
+ * The tick consumer only flags the symbol of each tick in a bitset and wakes the {@code order-matcher}
+ * thread, which reads the latest quote of every flagged symbol, takes the crossed orders out of that
+ * symbol's {@link TriggerBook} and fills them through {@link AccountService}: buys at the ask and sells
+ * at the bid, the same prices their triggers were checked against and a market order would get. Bursts
+ * of ticks for one symbol therefore collapse into a single match against the newest quote.
+ * <p>
+ * On a sharded node only the orders of the node's own accounts are loaded and matched, and new order
+ * ids are taken from the node's shard, so trade nodes can share the orders table.
+ */
+@Service
+public class OrderService {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final JdbcTemplate jdbc;
+    private final KrakenPriceService priceService;
+    private final AccountService accounts;
+    private final PriceTable table;
+
+    private final AtomicLong lastOrderId = new AtomicLong();
+    private ShardMap shard = ShardMap.SINGLE;
+    private final Map<Long, RestingOrder> open = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<TriggerBook> books;   // by symbol id, created on first order
+    private final AtomicLongArray dirty;                      // one bit per symbol id with an unmatched tick
+    private final Quote quote = new Quote();                  // matcher thread only
+    private TickConsumer ticks;
+    private Thread matcher;
+    private volatile boolean running;
+
+    public OrderService(JdbcTemplate jdbc, KrakenPriceService priceService, AccountService accounts) {
+        this.jdbc = jdbc;
+        this.priceService = priceService;
+        this.accounts = accounts;
+        this.table = priceService.getPriceTable();
+        this.books = new AtomicReferenceArray<>(table.capacity());
+        this.dirty = new AtomicLongArray((table.capacity() + 63) / 64);
+    }
+
+    // Reloads this node's open orders, then starts matching ticks
+    @PostConstruct
+    public void start() {
+        shard = accounts.getShard();
+        Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+        lastOrderId.set(maxId == null ? 0 : maxId);
+        jdbc.query("SELECT * FROM orders WHERE status=? ORDER BY id", rs -> {
+            RestingOrder order = mapOrder(rs);
+            if (shard.owns(order.accountId)) rest(table.register(order.symbol), order);
+        }, OrderStatus.OPEN.name());
+
+        running = true;
+        matcher = new Thread(this::runMatcher, "order-matcher");
+        matcher.setDaemon(true);
+        matcher.start();
+        ticks = priceService.addTickListener("order-trigger", this::onTick);
+        if (!open.isEmpty()) System.out.println("[INFO] Restored " + open.size() + " open orders");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticks != null) priceService.removeTickListener(ticks);
+        running = false;
+        if (matcher != null) LockSupport.unpark(matcher);
+    }
+
+    public OrderDTO place(PlaceOrderRequest req) { return place(AccountService.DEFAULT_ACCOUNT_ID, req); }
+
+    // Validates and books a resting order; it fires on the next tick that reaches its trigger
+    public OrderDTO place(long accountId, PlaceOrderRequest req) {
+        if (req == null) throw new IllegalArgumentException("Order request cannot be null.");
+        OrderType type = parseType(req.type());
+        if (!"BUY".equals(req.side()) && !"SELL".equals(req.side())) {
+            throw new IllegalArgumentException("Side must be BUY or SELL.");
+        }
+        if (req.symbol() == null || req.symbol().isBlank()) {
+            throw new IllegalArgumentException("Symbol is required.");
+        }
+        if (req.quantity() == null || req.quantity().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Quantity must be a positive number.");
+        }
+        if (req.triggerPrice() == null || req.triggerPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Trigger price must be a positive number.");
+        }
+        long trigger = PriceTable.toFixedOrNone(req.triggerPrice());
+        if (trigger == PriceTable.NO_PRICE) throw new IllegalArgumentException("Trigger price is too large.");
+        int symbolId = table.idOf(req.symbol());
+        if (symbolId < 0) throw new IllegalArgumentException("Unknown symbol " + req.symbol());
+        accounts.getAccount(accountId); // throws UnknownAccountException
+
+        RestingOrder order = new RestingOrder(nextOrderId(), accountId, type, req.side(), req.symbol(),
+                req.quantity(), req.triggerPrice(), trigger, LocalDateTime.now());
+        jdbc.update("INSERT INTO orders(id, account_id, type, side, symbol, quantity, trigger_price, status, created_at) "
+                        + "VALUES (?,?,?,?,?,?,?,?,?)",
+                order.id, accountId, type.name(), order.side, order.symbol, order.quantity, order.triggerPrice,
+                OrderStatus.OPEN.name(), Timestamp.valueOf(order.createdAt));
+        rest(symbolId, order);
+        markDirty(symbolId); // the price may already be through the trigger
+        return toDTO(order);
+    }
+
+    public OrderDTO cancel(long orderId) { return cancel(AccountService.DEFAULT_ACCOUNT_ID, orderId); }
+
+    // Cancels an open order; fails if it has already been triggered
+    public OrderDTO cancel(long accountId, long orderId) {
+        RestingOrder order = open.get(orderId);
+        if (order == null || order.accountId != accountId || !open.remove(orderId, order)) {
+            throw new IllegalArgumentException("Order " + orderId + " is not open.");
+        }
+        TriggerBook book = books.get(table.idOf(order.symbol));
+        synchronized (book) {
+            book.remove(order);
+        }
+        order.status = OrderStatus.CANCELLED;
+        jdbc.update("UPDATE orders SET status=? WHERE id=?", OrderStatus.CANCELLED.name(), orderId);
+        return toDTO(order);
+    }
+
+    public List<OrderDTO> getOrders() { return getOrders(AccountService.DEFAULT_ACCOUNT_ID); }
+
+    // Returns all orders of an account, newest first
+    public List<OrderDTO> getOrders(long accountId) {
+        accounts.getAccount(accountId);
+        return jdbc.query("SELECT * FROM orders WHERE account_id=? ORDER BY id DESC", (rs, n) -> toDTO(mapOrder(rs)), accountId);
+    }
+
+    // Another node sharing the table allocates from other residues, so ids past the loaded maximum never collide
+    private long nextOrderId() {
+        ShardMap s = shard;
+        if (s.count() == 1) return lastOrderId.incrementAndGet();
+        return lastOrderId.updateAndGet(s::nextAfter);
+    }
+
+    private void rest(int symbolId, RestingOrder order) {
+        TriggerBook book = books.get(symbolId);
+        if (book == null) {
+            books.compareAndSet(symbolId, null, new TriggerBook());
+            book = books.get(symbolId);
+        }
+        open.put(order.id, order);
+        synchronized (book) {
+            book.add(order);
+        }
+    }
+
+    // Tick consumer: only flags the symbol so that bursts conflate, matching happens on the matcher thread
+    private void onTick(int symbolId, long price, long timestamp) {
+        if (books.get(symbolId) != null) markDirty(symbolId);
+    }
+
+    private void markDirty(int symbolId) {
+        long bit = 1L << symbolId;
+        if ((dirty.getAndAccumulate(symbolId >>> 6, bit, (a, b) -> a | b) & bit) == 0) {
+            LockSupport.unpark(matcher);
+        }
+    }
+
+    // ---------------------------------------------------------------- matching
+
+    private void runMatcher() {
+        while (running) {
+            boolean matched = false;
+            for (int word = 0; word < dirty.length(); word++) {
+                if (dirty.get(word) == 0) continue;
+                long bits = dirty.getAndSet(word, 0);
+                while (bits != 0) {
+                    match((word << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                    matched = true;
+                }
+            }
+            if (!matched) LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void match(int symbolId) {
+        TriggerBook book = books.get(symbolId);
+        if (book == null || !table.quote(symbolId, quote)) return;
+        long buyPrice = quote.buyPrice();
+        long sellPrice = quote.sellPrice();
+
+        List<RestingOrder> fired;
+        synchronized (book) {
+            fired = book.crossed(buyPrice, sellPrice);
+        }
+        for (RestingOrder order : fired) fill(order, PriceTable.toBigDecimal(order.buy ? buyPrice : sellPrice));
+    }
+
+    // Executes a triggered order through the same validation and ledger path as a market order
+    private void fill(RestingOrder order, BigDecimal price) {
+        if (!open.remove(order.id, order)) return; // cancelled meanwhile
+
+        BuySellRequest req = new BuySellRequest(order.symbol, order.quantity);
+        try {
+            if (order.buy) accounts.buyAt(order.accountId, req, price);
+            else accounts.sellAt(order.accountId, req, price);
+            order.fillPrice = price;
+            order.status = OrderStatus.FILLED;
+        } catch (RuntimeException e) {
+            order.message = e.getMessage();
+            order.status = OrderStatus.REJECTED;
+        }
+        try {
+            jdbc.update("UPDATE orders SET status=?, fill_price=?, message=? WHERE id=?",
+                    order.status.name(), order.fillPrice, order.message, order.id);
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to record outcome of order " + order.id + ": " + e.getMessage());
+        }
+    }
+
+    // ---------------------------------------------------------------- mapping
+
+    private static OrderType parseType(String type) {
+        try {
+            return OrderType.valueOf(type);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Type must be LIMIT, STOP_LOSS or TAKE_PROFIT.");
+        }
+    }
+
+    private RestingOrder mapOrder(ResultSet rs) throws SQLException {
+        BigDecimal trigger = rs.getBigDecimal("trigger_price");
+        RestingOrder order = new RestingOrder(rs.getLong("id"), rs.getLong("account_id"), OrderType.valueOf(rs.getString("type")),
+                rs.getString("side"), rs.getString("symbol"), rs.getBigDecimal("quantity"), trigger,
+                PriceTable.toFixed(trigger), rs.getTimestamp("created_at").toLocalDateTime());
+        order.status = OrderStatus.valueOf(rs.getString("status"));
+        order.fillPrice = rs.getBigDecimal("fill_price");
+        order.message = rs.getString("message");
+        return order;
+    }
+
+    private static OrderDTO toDTO(RestingOrder o) {
+        return new OrderDTO(o.id, o.accountId, o.type.name(), o.side, o.symbol, o.quantity, o.triggerPrice,
+                o.status.name(), o.fillPrice, o.message, o.createdAt);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.crypto.order;
+
+public enum OrderStatus {
+    OPEN,
+    FILLED,
+    REJECTED,   // triggered but the trade was not allowed (e.g. insufficient balance)
+    CANCELLED
+}
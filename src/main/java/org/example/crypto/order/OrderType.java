@@ -0,0 +1,17 @@
+package org.example.crypto.order;
+
+/**
+ * Kinds of resting orders. Whether an order fires when the price falls to its trigger or rises to
+ * it depends on the type and side: limit and take-profit orders wait for a better price (buy low,
+ * sell high), stop-loss orders for a worse one.
+ */
+public enum OrderType {
+    LIMIT,
+    STOP_LOSS,
+    TAKE_PROFIT;
+
+    /** True if an order of this type and side fires once the price is at or below its trigger. */
+    public boolean triggersAtOrBelow(boolean buy) {
+        return buy != (this == STOP_LOSS);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.crypto.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** An open order waiting in a {@link TriggerBook}. Status fields are owned by {@link OrderService}. */
+class RestingOrder {
+
+    final long id;
+    final long accountId;
+    final OrderType type;
+    final String side;
+    final String symbol;
+    final BigDecimal quantity;
+    final BigDecimal triggerPrice;
+    final long trigger;             // fixed-point trigger price (PriceTable.SCALE)
+    final boolean buy;
+    final boolean atOrBelow;
+    final LocalDateTime createdAt;
+
+    volatile OrderStatus status = OrderStatus.OPEN;
+    volatile BigDecimal fillPrice;
+    volatile String message;
+
+    RestingOrder(long id, long accountId, OrderType type, String side, String symbol, BigDecimal quantity,
+                 BigDecimal triggerPrice, long trigger, LocalDateTime createdAt) {
+        this.id = id;
+        this.accountId = accountId;
+        this.type = type;
+        this.side = side;
+        this.symbol = symbol;
+        this.quantity = quantity;
+        this.triggerPrice = triggerPrice;
+        this.trigger = trigger;
+        this.buy = "BUY".equals(side);
+        this.atOrBelow = type.triggersAtOrBelow(buy);
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.crypto.order;
+
+import org.example.crypto.price.PriceTable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Resting orders of one symbol, indexed by fixed-point trigger price.
+ * <p>
+ * Buys and sells are kept apart because they are matched against different sides of the book: a buy
+ * against the price it would pay (the ask), a sell against the price it would get (the bid). Within a
+ * side, orders that fire on a falling price are kept highest trigger first and those that fire on a
+ * rising price lowest first, so a tick only walks the levels it has crossed and stops at the first one
+ * it has not. Orders at the same level fire in arrival order. Not thread-safe.
+ */
+class TriggerBook {
+
+    private final Side buys = new Side();
+    private final Side sells = new Side();
+    private int size;
+
+    void add(RestingOrder order) {
+        side(order).levels(order).computeIfAbsent(order.trigger, k -> new ArrayDeque<>()).addLast(order);
+        size++;
+    }
+
+    boolean remove(RestingOrder order) {
+        NavigableMap<Long, ArrayDeque<RestingOrder>> levels = side(order).levels(order);
+        ArrayDeque<RestingOrder> level = levels.get(order.trigger);
+        if (level == null || !level.remove(order)) return false;
+        if (level.isEmpty()) levels.remove(order.trigger);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes and returns every buy the buy price has reached and every sell the sell price has reached,
+     * in trigger then arrival order. A side whose price is {@link PriceTable#NO_PRICE} fires nothing.
+     */
+    List<RestingOrder> crossed(long buyPrice, long sellPrice) {
+        List<RestingOrder> fired = new ArrayList<>();
+        if (buyPrice != PriceTable.NO_PRICE) buys.crossed(buyPrice, fired);
+        if (sellPrice != PriceTable.NO_PRICE) sells.crossed(sellPrice, fired);
+        return fired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Side side(RestingOrder order) {
+        return order.buy ? buys : sells;
+    }
+
+    private class Side {
+        final NavigableMap<Long, ArrayDeque<RestingOrder>> atOrBelow = new TreeMap<>(); // fire when price <= key
+        final NavigableMap<Long, ArrayDeque<RestingOrder>> atOrAbove = new TreeMap<>(); // fire when price >= key
+
+        NavigableMap<Long, ArrayDeque<RestingOrder>> levels(RestingOrder order) {
+            return order.atOrBelow ? atOrBelow : atOrAbove;
+        }
+
+        void crossed(long price, List<RestingOrder> out) {
+            drain(atOrBelow.tailMap(price, true).descendingMap(), out);
+            drain(atOrAbove.headMap(price, true), out);
+        }
+
+        private void drain(NavigableMap<Long, ArrayDeque<RestingOrder>> levels, List<RestingOrder> out) {
+            Iterator<Map.Entry<Long, ArrayDeque<RestingOrder>>> it = levels.entrySet().iterator();
+            while (it.hasNext()) {
+                ArrayDeque<RestingOrder> level = it.next().getValue();
+                size -= level.size();
+                out.addAll(level);
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.crypto.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderDTO(
+        long id,
+        long accountId,
+        String type,
+        String side,
+        String symbol,
+        BigDecimal quantity,
+        BigDecimal triggerPrice,
+        String status,
+        BigDecimal fillPrice,   // null until filled
+        String message,         // reason for rejection, if any
+        LocalDateTime createdAt
+) {}
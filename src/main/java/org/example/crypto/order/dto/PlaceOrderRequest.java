@@ -0,0 +1,11 @@
+package org.example.crypto.order.dto;
+
+import java.math.BigDecimal;
+
+public record PlaceOrderRequest(
+        String type,            // LIMIT, STOP_LOSS or TAKE_PROFIT
+        String side,            // BUY or SELL
+        String symbol,
+        BigDecimal quantity,
+        BigDecimal triggerPrice
+) {}
@@ -0,0 +1,103 @@
+package org.example.crypto.portfolio;
+
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.portfolio.dto.PortfolioDTO;
+import org.example.crypto.portfolio.dto.PortfolioHoldingDTO;
+import org.example.crypto.price.PriceTable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Valuation state of one account between two of its trades: cash and positions are fixed, only the
+ * prices of its holdings move. Every {@link PriceTable} slot carries a version that changes on each
+ * write, so the sum of the held symbols' versions changes exactly when a tick touches one of them.
+ * The serialized snapshot is kept with the sum it was built at and reused until that moves on; ticks
+ * on symbols the account does not hold never invalidate it, and the tick path does no work at all.
+ */
+class Portfolio {
+
+    private static final int MONEY_SCALE = 2;
+    private static final int ALLOCATION_SCALE = 4;
+
+    /** A serialized snapshot and the version of the prices it was built from. */
+    record Snapshot(long version, byte[] json) {}
+
+    private final long accountId;
+    private final PriceTable table;
+    private final BigDecimal balance;
+    private final String[] symbols;
+    private final int[] symbolIds;
+    private final BigDecimal[] quantities;
+    private final BigDecimal[] costBases;
+    private volatile Snapshot snapshot;
+
+    Portfolio(Ledger ledger, PriceTable table) {
+        Map<String, BigDecimal> holdings = ledger.holdings();
+        int n = holdings.size();
+        this.accountId = ledger.accountId();
+        this.table = table;
+        this.balance = ledger.balance();
+        this.symbols = holdings.keySet().toArray(new String[0]);
+        this.quantities = new BigDecimal[n];
+        this.costBases = new BigDecimal[n];
+        this.symbolIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            quantities[i] = holdings.get(symbols[i]);
+            costBases[i] = ledger.costBasis(symbols[i]);
+            symbolIds[i] = table.register(symbols[i]);
+        }
+    }
+
+    /** Changes whenever the price of any holding does. */
+    long version() {
+        long sum = 0;
+        for (int id : symbolIds) sum += table.version(id);
+        return sum;
+    }
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    void cache(Snapshot s) {
+        snapshot = s;
+    }
+
+    /** Values every holding at the latest prices; read {@link #version()} first. */
+    PortfolioDTO value() {
+        int n = symbols.length;
+        BigDecimal[] values = new BigDecimal[n];
+        BigDecimal marketValue = BigDecimal.ZERO;
+        BigDecimal cost = BigDecimal.ZERO;
+        long[] seen = new long[n];
+        for (int i = 0; i < n; i++) {
+            seen[i] = table.get(symbolIds[i]);
+            values[i] = seen[i] == PriceTable.NO_PRICE ? null : money(quantities[i].multiply(PriceTable.toBigDecimal(seen[i])));
+            if (values[i] != null) marketValue = marketValue.add(values[i]);
+            cost = cost.add(costBases[i]);
+        }
+        BigDecimal equity = balance.add(marketValue);
+
+        List<PortfolioHoldingDTO> holdings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BigDecimal value = values[i];
+            holdings.add(new PortfolioHoldingDTO(
+                    symbols[i],
+                    quantities[i],
+                    seen[i] == PriceTable.NO_PRICE ? null : PriceTable.toBigDecimal(seen[i]),
+                    value,
+                    money(costBases[i]),
+                    value == null ? null : value.subtract(money(costBases[i])),
+                    value == null || equity.signum() == 0 ? null : value.divide(equity, ALLOCATION_SCALE, RoundingMode.HALF_UP)));
+        }
+        return new PortfolioDTO(accountId, balance, marketValue, equity, money(cost), marketValue.subtract(money(cost)), holdings);
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+}
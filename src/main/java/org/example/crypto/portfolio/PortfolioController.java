@@ -0,0 +1,29 @@
+package org.example.crypto.portfolio;
+
+import org.example.crypto.account.AccountService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+public class PortfolioController {
+
+    private final PortfolioService service;
+
+    public PortfolioController(PortfolioService service) {
+        this.service = service;
+    }
+
+    // Pre-serialized: the cached bytes are written as they are
+    @GetMapping("/portfolio")
+    public ResponseEntity<byte[]> portfolio() {
+        return portfolio(AccountService.DEFAULT_ACCOUNT_ID);
+    }
+
+    @GetMapping("/accounts/{id}/portfolio")
+    public ResponseEntity<byte[]> portfolio(@PathVariable("id") long id) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(service.getPortfolioJson(id));
+    }
+}
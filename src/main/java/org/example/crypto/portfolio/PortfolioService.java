@@ -0,0 +1,67 @@
+package org.example.crypto.portfolio;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.example.crypto.account.AccountService;
+import org.example.crypto.portfolio.dto.PortfolioDTO;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side portfolio valuation: equity, market value, unrealized P/L and allocation per holding.
+ * <p>
+ * Each account's {@link Portfolio} is built once from a ledger snapshot and dropped only when that
+ * account trades, so reads never touch the database. Its JSON is cached until a price of one of its
+ * own holdings changes; polling an account whose coins have not ticked returns the same bytes.
+ */
+@Service
+public class PortfolioService {
+
+    private final AccountService accounts;
+    private final PriceTable table;
+    private final ObjectMapper mapper;
+    private final Map<Long, Portfolio> portfolios = new ConcurrentHashMap<>();
+
+    public PortfolioService(AccountService accounts, KrakenPriceService priceService, ObjectMapper mapper) {
+        this.accounts = accounts;
+        this.table = priceService.getPriceTable();
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        accounts.addChangeListener(id -> portfolios.remove(id));
+    }
+
+    public PortfolioDTO getPortfolio(long accountId) {
+        return portfolio(accountId).value();
+    }
+
+    /** The portfolio as JSON, re-serialized only if a held symbol has ticked since the last call. */
+    public byte[] getPortfolioJson(long accountId) {
+        Portfolio portfolio = portfolio(accountId);
+        long version = portfolio.version(); // read before the prices, so a racing tick forces a rebuild next time
+        Portfolio.Snapshot cached = portfolio.snapshot();
+        if (cached != null && cached.version() == version) return cached.json();
+        try {
+            byte[] json = mapper.writeValueAsBytes(portfolio.value());
+            portfolio.cache(new Portfolio.Snapshot(version, json));
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize portfolio " + accountId, e);
+        }
+    }
+
+    // A trade removes the entry after it is applied; computeIfAbsent and remove are atomic per key,
+    // so a snapshot taken before the trade can never outlive it
+    private Portfolio portfolio(long accountId) {
+        Portfolio portfolio = portfolios.get(accountId);
+        if (portfolio != null) return portfolio;
+        return portfolios.computeIfAbsent(accountId, id -> new Portfolio(accounts.snapshot(id), table));
+    }
+}
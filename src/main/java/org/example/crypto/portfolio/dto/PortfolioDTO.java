@@ -0,0 +1,14 @@
+package org.example.crypto.portfolio.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PortfolioDTO(
+        long accountId,
+        BigDecimal balance,         // cash
+        BigDecimal marketValue,     // holdings at the latest prices
+        BigDecimal equity,          // balance + marketValue
+        BigDecimal costBasis,       // purchase cost of the holdings
+        BigDecimal unrealizedPnl,   // marketValue - costBasis
+        List<PortfolioHoldingDTO> holdings
+) {}
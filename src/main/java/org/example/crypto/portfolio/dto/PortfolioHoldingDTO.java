@@ -0,0 +1,13 @@
+package org.example.crypto.portfolio.dto;
+
+import java.math.BigDecimal;
+
+public record PortfolioHoldingDTO(
+        String symbol,
+        BigDecimal quantity,
+        BigDecimal price,           // null until the pair has a price
+        BigDecimal marketValue,
+        BigDecimal costBasis,
+        BigDecimal unrealizedPnl,
+        BigDecimal allocation       // share of equity, 0..1
+) {}
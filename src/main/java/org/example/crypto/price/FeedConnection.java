@@ -0,0 +1,269 @@
+package org.example.crypto.price;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a Kraken v2 ticker subscription alive.
+ * <p>
+ * Every connection ("link") subscribes to all current pairs as soon as it opens. When the active link
+ * closes, errors, or goes silent for longer than the idle timeout (Kraken sends a heartbeat every
+ * second), it is dropped and a new one is dialled after a jittered exponential backoff, so a Kraken
+ * outage is not met by a reconnect storm. With a warm standby a second, fully subscribed link runs
+ * alongside the active one; its frames are discarded until the active link fails, at which point it
+ * takes over immediately and a new standby is dialled in the background.
+ * <p>
+ * Only frames from the active link reach {@code onMessage}, on a WebSocket client thread and one frame
+ * at a time: a promoted standby waits for a frame the old link is still delivering, so everything
+ * downstream keeps a single writer.
+ */
+public class FeedConnection {
+
+    public record Settings(long initialBackoffMillis, long maxBackoffMillis, long idleTimeoutMillis, boolean warmStandby) {}
+
+    private final WebSocketClient client;
+    private final String url;
+    private final Supplier<String[]> pairs;
+    private final Consumer<String> onMessage;
+    private final Runnable onReconnect;
+    private final Settings settings;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "kraken-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong reconnects = new AtomicLong();
+    private final Object delivery = new Object(); // held while a frame is checked against active and delivered
+
+    private volatile Link active;
+    private volatile Link standby;
+    private volatile boolean running;
+    private int activeAttempts;   // failed dials in a row; guarded by this
+    private int standbyAttempts;
+
+    public FeedConnection(WebSocketClient client, String url, Supplier<String[]> pairs, Consumer<String> onMessage,
+                          Runnable onReconnect, Settings settings) {
+        this.client = client;
+        this.url = url;
+        this.pairs = pairs;
+        this.onMessage = onMessage;
+        this.onReconnect = onReconnect;
+        this.settings = settings;
+    }
+
+    public synchronized void start() {
+        running = true;
+        active = dial(true);
+        if (settings.warmStandby()) standby = dial(false);
+        long check = Math.max(100, settings.idleTimeoutMillis() / 4);
+        scheduler.scheduleWithFixedDelay(this::checkIdle, check, check, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        close(active);
+        close(standby);
+        active = null;
+        standby = null;
+    }
+
+    /** True while the active link is open and subscribed. */
+    public boolean isConnected() {
+        Link link = active;
+        return link != null && link.subscribed;
+    }
+
+    /** Links that have replaced a failed active link, standby promotions included. */
+    public long reconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * Changes the subscription of every open link; active and standby must stay in step. Links opened
+     * later subscribe to the {@code pairs} supplier's current value instead, so update it first.
+     */
+    public void changeSubscription(String[] added, String[] removed) throws IOException {
+        for (Link link : new Link[]{active, standby}) {
+            if (link == null || !link.subscribed) continue;
+            if (added.length > 0) link.send(request("subscribe", added));
+            if (removed.length > 0) link.send(request("unsubscribe", removed));
+        }
+    }
+
+    // ---------------------------------------------------------------- links
+
+    private Link dial(boolean forActive) {
+        Link link = new Link(!forActive);
+        client.execute(link, url).whenComplete((session, error) -> {
+            if (error != null && running) {
+                System.err.println("[ERROR] Kraken WebSocket connect failed: " + error.getMessage());
+                scheduler.execute(() -> failed(link)); // may complete inline, before the caller has stored the link
+            }
+        });
+        return link;
+    }
+
+    // Called once per link, from whichever thread noticed the failure
+    private synchronized void failed(Link link) {
+        if (link.failed) return;
+        link.failed = true;
+        close(link);
+        if (!running) return;
+
+        if (link == active) {
+            reconnects.incrementAndGet();
+            onReconnect.run();
+            Link next = standby;
+            if (next != null && next.subscribed) {
+                System.err.println("[WARN] Kraken feed lost; promoting warm standby.");
+                next.standby = false;
+                active = next;
+                standby = null;
+                schedule(false, standbyAttempts++);
+            } else {
+                System.err.println("[WARN] Kraken feed lost; reconnecting.");
+                active = null;
+                schedule(true, activeAttempts++);
+            }
+        } else if (link == standby) {
+            standby = null;
+            schedule(false, standbyAttempts++);
+        }
+    }
+
+    private void schedule(boolean forActive, int attempt) {
+        long delay = backoff(attempt);
+        scheduler.schedule(() -> redial(forActive), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void redial(boolean forActive) {
+        if (!running) return;
+        if (forActive) {
+            if (active != null) return;
+            Link next = standby;
+            if (next != null && next.subscribed) { // the standby came up while we were waiting
+                next.standby = false;
+                active = next;
+                standby = null;
+                schedule(false, 0);
+            } else {
+                active = dial(true);
+            }
+        } else if (standby == null && settings.warmStandby()) {
+            standby = dial(false);
+        }
+    }
+
+    /** Full jitter over an exponentially growing window: uniform in [window/2, window]. */
+    long backoff(int attempt) {
+        long window = Math.min(settings.maxBackoffMillis(), settings.initialBackoffMillis() << Math.min(attempt, 20));
+        return window / 2 + ThreadLocalRandom.current().nextLong(window / 2 + 1);
+    }
+
+    private void checkIdle() {
+        long now = System.currentTimeMillis();
+        for (Link link : new Link[]{active, standby}) {
+            if (link != null && link.subscribed && now - link.lastMessageAt > settings.idleTimeoutMillis()) {
+                System.err.println("[WARN] Kraken feed silent for " + (now - link.lastMessageAt) + "ms; dropping connection.");
+                failed(link);
+            }
+        }
+    }
+
+    private synchronized void established(Link link) {
+        if (link == active) activeAttempts = 0;
+        else if (link == standby) standbyAttempts = 0;
+    }
+
+    private static void close(Link link) {
+        if (link == null || link.session == null) return;
+        try {
+            link.session.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    private String request(String method, String[] symbols) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("channel", "ticker");
+        params.put("symbol", symbols);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("method", method);
+        payload.put("params", params);
+        return mapper.writeValueAsString(payload);
+    }
+
+    private class Link extends AbstractWebSocketHandler {
+        volatile WebSocketSession session;
+        volatile boolean subscribed;
+        volatile boolean standby;
+        volatile long lastMessageAt = System.currentTimeMillis();
+        boolean failed; // guarded by FeedConnection.this
+
+        Link(boolean standby) {
+            this.standby = standby;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) {
+            this.session = session;
+            lastMessageAt = System.currentTimeMillis();
+            try {
+                send(request("subscribe", pairs.get()));
+                subscribed = true;
+                established(this);
+                System.out.println("[INFO] Subscribed to Kraken ticker" + (standby ? " (standby)" : "")
+                        + " for: " + Arrays.toString(pairs.get()));
+            } catch (Exception e) {
+                System.err.println("[ERROR] Failed to subscribe to Kraken ticker: " + e.getMessage());
+                failed(this);
+            }
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            lastMessageAt = System.currentTimeMillis();
+            synchronized (delivery) {
+                if (this == active) onMessage.accept(message.getPayload());
+            }
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) {
+            System.err.println("[ERROR] WebSocket transport error: " + exception.getMessage());
+            failed(this);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+            if (running) System.err.println("[WARN] Kraken WebSocket closed: " + status);
+            failed(this);
+        }
+
+        void send(String json) throws IOException {
+            synchronized (this) { // sessions do not allow concurrent sends
+                session.sendMessage(new TextMessage(json));
+            }
+        }
+    }
+}
@@ -2,90 +2,292 @@ package org.example.crypto.price;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.cluster.NodeRole;
+import org.example.crypto.price.fanout.TickFanout;
+import org.example.crypto.price.fanout.TickSubscriber;
+import org.example.crypto.price.journal.TickJournal;
+import org.example.crypto.price.journal.TickReplayer;
+import org.example.crypto.price.ring.TickConsumer;
+import org.example.crypto.price.ring.TickListener;
+import org.example.crypto.price.ring.TickRingBuffer;
+import org.example.crypto.price.ring.WaitStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.socket.*;
 import org.springframework.web.socket.client.WebSocketClient;
-import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.net.URI;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class KrakenPriceService {
 
-    private String[] pairs = new String[0];
+    private static final int MAX_SYMBOLS = 2048;
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    private volatile String[] pairs = new String[0];
 
     private final WebSocketClient client;
-    private final Map<String, BigDecimal> prices = new ConcurrentHashMap<>();
+    private final PriceTable prices = new PriceTable(MAX_SYMBOLS);
     private final ObjectMapper mapper = new ObjectMapper();
+    private final TickerParser tickerParser = new TickerParser(mapper, prices);
+    private final TickRingBuffer ticks;
+    private final TickerParser.TickHandler onTicker = this::onTick;
+    private volatile TickJournal journal;
+    private PriceMetrics metrics = PriceMetrics.detached(prices);
+    private TickConsumer metricsConsumer;
+    private volatile FeedConnection connection;
+    private ScheduledExecutorService discovery;
+    private volatile TickFanout fanout;
+    private TickConsumer fanoutConsumer;
+    private volatile TickSubscriber subscriber;
 
     @Value("${kraken.ws.url:wss://ws.kraken.com/v2}")
     private String krakenWsUrl;
 
-    public KrakenPriceService(WebSocketClient client) {
+    @Value("${kraken.rest.url:https://api.kraken.com}")
+    private String krakenRestUrl = "https://api.kraken.com";
+
+    @Value("${coingecko.url:https://api.coingecko.com/api/v3}")
+    private String coingeckoUrl = "https://api.coingecko.com/api/v3";
+
+    // Size of the universe: the top N coins by market cap that have a USD pair on Kraken
+    @Value("${prices.top-n:20}")
+    private int topN = 20;
+
+    // Last discovered universe, so a restart can subscribe before discovery answers; empty to disable
+    @Value("${prices.universe.cache-file:data/universe.txt}")
+    private String universeCacheFile = "";
+
+    // How often the universe is rediscovered; 0 = only at startup
+    @Value("${prices.universe.refresh-ms:3600000}")
+    private long universeRefreshMillis;
+
+    @Value("${prices.discovery.timeout-ms:5000}")
+    private int discoveryTimeoutMillis = 5000;
+
+    @Value("${kraken.ws.reconnect.initial-ms:500}")
+    private long reconnectInitialMillis = 500;
+
+    @Value("${kraken.ws.reconnect.max-ms:30000}")
+    private long reconnectMaxMillis = 30000;
+
+    @Value("${kraken.ws.idle-timeout-ms:10000}")
+    private long idleTimeoutMillis = 10000;
+
+    @Value("${kraken.ws.warm-standby:false}")
+    private boolean warmStandby;
+
+    // Trades are rejected on prices older than this
+    @Value("${prices.max-age-ms:30000}")
+    private long maxPriceAgeMillis = 30000;
+
+    @Value("${prices.journal.dir:}")
+    private String journalDir;
+
+    @Value("${prices.journal.segment-size:67108864}")
+    private long journalSegmentSize;
+
+    @Value("${prices.replay.dir:}")
+    private String replayDir;
+
+    @Value("${prices.replay.speed:1}")
+    private double replaySpeed;
+
+    // FEED republishes the Kraken feed to trade nodes; TRADE takes prices from a feed node instead of Kraken
+    @Value("${node.role:STANDALONE}")
+    private NodeRole role = NodeRole.STANDALONE;
+
+    // FEED: where trade nodes connect
+    @Value("${node.feed.bind-address:127.0.0.1}")
+    private String feedBindAddress = "127.0.0.1";
+
+    @Value("${node.feed.port:7070}")
+    private int feedPort = 7070;
+
+    // TRADE: host:port of the feed node
+    @Value("${node.feed.address:127.0.0.1:7070}")
+    private String feedAddress = "127.0.0.1:7070";
+
+    // Sent by the feed node when idle; a trade node redials after three missed heartbeats
+    @Value("${node.feed.heartbeat-ms:1000}")
+    private long feedHeartbeatMillis = 1000;
+
+    @Autowired
+    public KrakenPriceService(WebSocketClient client,
+                              @Value("${prices.pipeline.buffer-size:65536}") int bufferSize,
+                              @Value("${prices.pipeline.wait-strategy:SLEEPING}") String waitStrategy) {
         this.client = client;
+        this.ticks = new TickRingBuffer(bufferSize, WaitStrategy.named(waitStrategy));
+    }
+
+    public KrakenPriceService(WebSocketClient client) {
+        this(client, DEFAULT_BUFFER_SIZE, "SLEEPING");
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        metrics = new PriceMetrics(registry, prices);
     }
 
     @PostConstruct
     public void init() {
+        if (replayDir != null && !replayDir.isBlank()) {
+            if (role == NodeRole.FEED) startFanout();
+            startReplay(Path.of(replayDir), replaySpeed); // offline: the journal stands in for Kraken
+            return;
+        }
+        // Replayed ticks carry recorded timestamps, so their age is only measured for the live feed
+        metricsConsumer = addTickListener("tick-metrics",
+                (id, price, timestamp) -> metrics.tickAge(System.currentTimeMillis() - timestamp));
         try {
-            pairs = fetchTop20Pairs();
-            if (pairs.length == 0) {
-                System.err.println("[ERROR] No valid pairs found. KrakenPriceService will not connect.");
-                return;
-            }
+            if (journalDir != null && !journalDir.isBlank()) startJournal(Path.of(journalDir), journalSegmentSize);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to open tick journal: " + e.getMessage());
+        }
+        if (role == NodeRole.TRADE) {
+            startSubscriber();
+            return;
+        }
+        if (role == NodeRole.FEED) startFanout();
 
-            client.doHandshake(new AbstractWebSocketHandler() {
-                @Override
-                public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-                    try {
-                        subscribe(session);
-                        System.out.println("[INFO] Subscribed to Kraken ticker for: " + Arrays.toString(pairs));
-                    } catch (Exception e) {
-                        System.err.println("[ERROR] Failed to subscribe to Kraken ticker: " + e.getMessage());
-                    }
-                }
+        // Subscribe from the cached universe right away; discovery runs off the startup path
+        String[] cached = readUniverseCache();
+        if (cached.length > 0) {
+            System.out.println("[INFO] Subscribing to " + cached.length + " cached pairs while discovery runs.");
+            updateUniverse(cached);
+        }
+        discovery = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pair-discovery");
+            t.setDaemon(true);
+            return t;
+        });
+        discovery.execute(this::refreshUniverse);
+        if (universeRefreshMillis > 0) {
+            discovery.scheduleWithFixedDelay(this::refreshUniverse, universeRefreshMillis, universeRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 
-                @Override
-                protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-                    parseMessage(message.getPayload());
-                }
+    // Discovery failures keep the current universe; an empty one is never swapped in
+    private void refreshUniverse() {
+        String[] discovered = fetchTop20Pairs();
+        if (discovered.length == 0) {
+            if (pairs.length == 0) System.err.println("[ERROR] No valid pairs found. KrakenPriceService will not connect.");
+            return;
+        }
+        updateUniverse(discovered);
+        writeUniverseCache(discovered);
+    }
 
-                @Override
-                public void handleTransportError(WebSocketSession session, Throwable exception) {
-                    System.err.println("[ERROR] WebSocket transport error: " + exception.getMessage());
-                }
-            }, String.valueOf(URI.create(krakenWsUrl)));
+    /**
+     * Switches the subscription to {@code next}, subscribing only added pairs and unsubscribing only removed
+     * ones. Removed pairs keep their last price, which then goes stale, so trading on them stops.
+     */
+    private synchronized void updateUniverse(String[] next) {
+        Set<String> before = new LinkedHashSet<>(Arrays.asList(pairs));
+        Set<String> after = new LinkedHashSet<>(Arrays.asList(next));
+        if (before.equals(after)) return;
+
+        String[] added = after.stream().filter(p -> !before.contains(p)).toArray(String[]::new);
+        String[] removed = before.stream().filter(p -> !after.contains(p)).toArray(String[]::new);
+        prices.registerAll(added); // intern ids up front so the tick path never allocates for them
+        pairs = next;
 
+        FeedConnection c = connection;
+        if (c == null) {
+            connection = new FeedConnection(client, krakenWsUrl, () -> pairs, this::parseMessage, () -> metrics.reconnected(),
+                    new FeedConnection.Settings(reconnectInitialMillis, reconnectMaxMillis, idleTimeoutMillis, warmStandby));
+            connection.start();
+            return;
+        }
+        System.out.println("[INFO] Universe changed: +" + Arrays.toString(added) + " -" + Arrays.toString(removed));
+        try {
+            c.changeSubscription(added, removed);
         } catch (Exception e) {
-            System.err.println("[ERROR] Kraken WebSocket init failed: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("[ERROR] Failed to update Kraken subscription: " + e.getMessage());
+        }
+    }
+
+    private String[] readUniverseCache() {
+        if (universeCacheFile == null || universeCacheFile.isBlank()) return new String[0];
+        Path file = Path.of(universeCacheFile);
+        if (!Files.exists(file)) return new String[0];
+        try {
+            return Files.readAllLines(file).stream().map(String::trim).filter(l -> !l.isEmpty()).toArray(String[]::new);
+        } catch (IOException e) {
+            System.err.println("[WARN] Ignoring unreadable universe cache " + file + ": " + e.getMessage());
+            return new String[0];
+        }
+    }
+
+    // Written to a temp file and moved into place, so a crash never leaves a half-written universe
+    private void writeUniverseCache(String[] universe) {
+        if (universeCacheFile == null || universeCacheFile.isBlank()) return;
+        Path file = Path.of(universeCacheFile).toAbsolutePath();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, Arrays.asList(universe));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to cache universe in " + file + ": " + e.getMessage());
         }
     }
 
-    /** Send a _subscribe_ request to the ticker channel for all 20 pairs. */
-    private void subscribe(WebSocketSession session) throws Exception {
-        Map<String, Object> params = new HashMap<>();
-        params.put("channel", "ticker");
-        params.put("symbol", pairs);
+    private void startFanout() {
+        try {
+            fanout = new TickFanout(prices, new InetSocketAddress(feedBindAddress, feedPort), feedHeartbeatMillis);
+            fanoutConsumer = addTickListener("tick-fanout", fanout::onTick);
+            System.out.println("[INFO] Publishing ticks to trade nodes on " + feedBindAddress + ":" + fanout.port());
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to open tick fan-out on port " + feedPort + ": " + e.getMessage());
+        }
+    }
 
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("method", "subscribe");
-        payload.put("params", params);
+    private void startSubscriber() {
+        int colon = feedAddress.lastIndexOf(':');
+        InetSocketAddress address = new InetSocketAddress(feedAddress.substring(0, colon),
+                Integer.parseInt(feedAddress.substring(colon + 1)));
+        subscriber = new TickSubscriber(address, prices, this::onFeedQuote,
+                new TickSubscriber.Settings(reconnectInitialMillis, reconnectMaxMillis, feedHeartbeatMillis * 3));
+        subscriber.start();
+    }
 
-        session.sendMessage(new TextMessage(mapper.writeValueAsString(payload)));
+    @PreDestroy
+    public void shutdown() {
+        if (discovery != null) discovery.shutdownNow();
+        FeedConnection c = connection;
+        if (c != null) c.stop();
+        TickSubscriber s = subscriber;
+        if (s != null) s.stop();
+        if (fanoutConsumer != null) removeTickListener(fanoutConsumer);
+        TickFanout f = fanout;
+        if (f != null) f.close();
+        if (metricsConsumer != null) removeTickListener(metricsConsumer);
+        stopJournal();
     }
 
     public String[] fetchTop20Pairs() {
         try {
-            RestTemplate rest = new RestTemplate();
+            SimpleClientHttpRequestFactory timeouts = new SimpleClientHttpRequestFactory();
+            timeouts.setConnectTimeout(discoveryTimeoutMillis);
+            timeouts.setReadTimeout(discoveryTimeoutMillis);
+            RestTemplate rest = new RestTemplate(timeouts);
 
-            String cgUrl = "https://api.coingecko.com/api/v3/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=20&page=1";
+            String cgUrl = coingeckoUrl + "/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=" + topN + "&page=1";
             JsonNode cgRoot = mapper.readTree(rest.getForObject(cgUrl, String.class));
 
             Set<String> topSymbols = new HashSet<>();
@@ -96,7 +298,7 @@ public class KrakenPriceService {
                 topSymbols.add(symbol);
             }
 
-            String krakenUrl = "https://api.kraken.com/0/public/AssetPairs";
+            String krakenUrl = krakenRestUrl + "/0/public/AssetPairs";
             JsonNode root = mapper.readTree(rest.getForObject(krakenUrl, String.class));
 
             List<String> result = new ArrayList<>();
@@ -119,45 +321,200 @@ public class KrakenPriceService {
             }
 
             if (result.isEmpty()) {
-                System.err.println("[WARN] No matching Kraken pairs found for top 20 coins.");
+                System.err.println("[WARN] No matching Kraken pairs found for top " + topN + " coins.");
             }
 
             return result.toArray(new String[0]);
 
         } catch (Exception e) {
-            System.err.println("[ERROR] Failed to fetch top 20 pairs: " + e.getMessage());
+            System.err.println("[ERROR] Failed to fetch top pairs: " + e.getMessage());
             e.printStackTrace();
             return new String[0];
         }
     }
 
+    /** Applies every ticker entry in a Kraken frame; non-ticker frames are ignored. */
     public void parseMessage(String json) {
+        long start = System.nanoTime();
         try {
-            JsonNode root = mapper.readTree(json);
-            if (!root.has("channel") || !"ticker".equals(root.get("channel").asText())) return;
+            tickerParser.parse(json, onTicker);
+            metrics.parsed(System.nanoTime() - start);
+        } catch (IllegalStateException e) {
+            metrics.dropped(); // price table full
+            System.err.println("[ERROR] Dropped Kraken ticker message: " + e.getMessage());
+        } catch (Exception e) {
+            metrics.malformed();
+            System.err.println("[ERROR] Failed to parse Kraken ticker message: " + e.getMessage());
+        }
+    }
+
+    // Runs on the WebSocket thread. The price table write is a few stores, so it stays inline and reads
+    // never lag the feed; everything else consumes the tick ring on its own thread. The journal and the
+    // ring carry the last price only.
+    private void onTick(int symbolId, Quote quote) {
+        apply(symbolId, quote, System.currentTimeMillis());
+    }
+
+    // Runs on the subscriber thread of a trade node. Quotes keep the feed node's receive time, so prices
+    // go stale here as they would on the feed node, including when the feed node itself is gone.
+    private void onFeedQuote(int symbolId, Quote quote, long timestamp) {
+        apply(symbolId, quote, timestamp);
+    }
+
+    private void apply(int symbolId, Quote quote, long timestamp) {
+        long last = quote.last;
+        prices.put(symbolId, quote, timestamp);
+        metrics.tick(symbolId);
+        TickJournal j = journal;
+        if (j != null) j.append(symbolId, last, timestamp);
+        ticks.publish(symbolId, last, timestamp);
+    }
 
-            JsonNode dataArr = root.path("data");
-            if (!dataArr.isArray() || dataArr.isEmpty()) return;
+    /** Records every tick received from now on to a tick journal in {@code dir}. */
+    public void startJournal(Path dir, long segmentBytes) throws IOException {
+        journal = new TickJournal(dir, segmentBytes, prices);
+        System.out.println("[INFO] Recording ticks to " + dir.toAbsolutePath());
+    }
 
-            JsonNode ticker = dataArr.get(0);
-            String symbol = ticker.get("symbol").asText();
-            JsonNode lastNode = ticker.get("last");
+    public void stopJournal() {
+        TickJournal j = journal;
+        journal = null;
+        if (j != null) j.close();
+    }
+
+    /**
+     * Feeds a recorded tick journal through the same path as live ticks (price table, then tick ring)
+     * on the calling thread, keeping the recorded timestamps. Replayed ticks are not journaled again.
+     *
+     * @param speed 1 for recorded pace, 100 for a hundred times faster, 0 for as fast as possible
+     * @return number of ticks replayed
+     */
+    public long replay(Path dir, double speed) throws IOException, InterruptedException {
+        TickReplayer replayer = new TickReplayer(dir);
+        int[] ids = replayer.symbols().stream().mapToInt(prices::register).toArray();
+        return replayer.replay((id, price, timestamp) -> {
+            prices.put(ids[id], price); // stamped on arrival, so replayed prices are as fresh as live ones
+            ticks.publish(ids[id], price, timestamp);
+        }, speed);
+    }
 
-            if (lastNode != null && lastNode.isNumber()) {
-                prices.put(symbol, lastNode.decimalValue());
+    private void startReplay(Path dir, double speed) {
+        Thread replay = new Thread(() -> {
+            try {
+                System.out.println("[INFO] Replaying ticks from " + dir.toAbsolutePath() + " at speed " + speed);
+                long n = replay(dir, speed);
+                System.out.println("[INFO] Replay finished after " + n + " ticks");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("[ERROR] Tick replay failed: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.err.println("[ERROR] Failed to parse Kraken ticker message: " + e.getMessage());
-        }
+        }, "tick-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    /**
+     * Starts a consumer of the tick stream. The listener runs on its own thread, sees every tick
+     * published after this call in order, and cannot stall the feed unless it falls a whole ring behind.
+     */
+    public TickConsumer addTickListener(String name, TickListener listener) {
+        return ticks.addConsumer(name, listener);
+    }
+
+    public void removeTickListener(TickConsumer consumer) {
+        ticks.removeConsumer(consumer);
+    }
+
+    /** Producer position and per-consumer lag of the tick ring. */
+    public TickRingBuffer.Stats getPipelineStats() {
+        return ticks.stats();
+    }
+
+    /**
+     * Changes whenever {@link #getCurrentPrices()} can have changed: every price write is followed by a
+     * tick ring publish, so the ring's sequence serves as the version of the whole table.
+     */
+    public long getPriceVersion() {
+        return ticks.cursor();
     }
 
     /** Latest price for all subscribed pairs. */
     public Map<String, BigDecimal> getCurrentPrices() {
-        return new HashMap<>(prices);
+        int n = prices.size();
+        Map<String, BigDecimal> result = new HashMap<>(n * 2);
+        for (int id = 0; id < n; id++) {
+            long price = prices.get(id);
+            if (price != PriceTable.NO_PRICE) result.put(prices.symbol(id), PriceTable.toBigDecimal(price));
+        }
+        return result;
     }
 
     /** Returns null until first snapshot/update has been received for the pair. */
     public BigDecimal getPrice(String symbol) {
-        return prices.get(symbol);
+        long price = getPriceFixed(symbol);
+        return price == PriceTable.NO_PRICE ? null : PriceTable.toBigDecimal(price);
+    }
+
+    /** Copy of the pair's last price and top of book, or null until the first update. */
+    public Quote getQuote(String symbol) {
+        int id = prices.idOf(symbol);
+        Quote quote = new Quote();
+        return id >= 0 && prices.quote(id, quote) ? quote : null;
+    }
+
+    /** Top of book for all pairs that have a price, read once each; for orders that share one snapshot. */
+    public Map<String, Quote> getCurrentQuotes() {
+        int n = prices.size();
+        Map<String, Quote> result = new HashMap<>(n * 2);
+        for (int id = 0; id < n; id++) {
+            Quote quote = new Quote();
+            if (prices.quote(id, quote)) result.put(prices.symbol(id), quote);
+        }
+        return result;
+    }
+
+    /** Milliseconds since the pair's price was last updated, or -1 if it has none. */
+    public long getPriceAge(String symbol) {
+        int id = prices.idOf(symbol);
+        long updated = id < 0 ? 0 : prices.updatedAt(id);
+        return updated == 0 ? -1 : Math.max(0, System.currentTimeMillis() - updated);
+    }
+
+    /** True if the pair has a price that is older than {@code prices.max-age-ms}; trades on it are refused. */
+    public boolean isStale(String symbol) {
+        return getPriceAge(symbol) > maxPriceAgeMillis;
+    }
+
+    /**
+     * True while the live feed is subscribed - Kraken, or the feed node on a trade node; false during
+     * reconnects and in replay mode.
+     */
+    public boolean isFeedConnected() {
+        TickSubscriber s = subscriber;
+        if (s != null) return s.isConnected();
+        FeedConnection c = connection;
+        return c != null && c.isConnected();
+    }
+
+    /** Lock- and allocation-free price lookup; {@link PriceTable#NO_PRICE} until the first update. */
+    public long getPriceFixed(String symbol) {
+        int id = prices.idOf(symbol);
+        return id < 0 ? PriceTable.NO_PRICE : prices.get(id);
+    }
+
+    public NodeRole getRole() {
+        return role;
+    }
+
+    /** Trade nodes connected to this feed node, or 0 if it is not one. */
+    public int getFeedSubscribers() {
+        TickFanout f = fanout;
+        return f == null ? 0 : f.subscribers();
+    }
+
+    /** Underlying table, for readers that work with symbol ids and {@link PriceTable#snapshot(long[])}. */
+    public PriceTable getPriceTable() {
+        return prices;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package org.example.crypto.price;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed meters for {@link KrakenPriceService}.
+ * <p>
+ * Everything the feed thread touches per tick is resolved up front: per-symbol tick counters live in
+ * an array indexed by {@link PriceTable} id and are registered the first time a symbol ticks, so the
+ * steady state is an array load and a {@code LongAdder}-style increment. Timers publish a percentile
+ * histogram for Prometheus and client-side p50/p99/p99.9. Staleness gauges read the timestamps the
+ * price table already keeps, so they cost the tick path nothing.
+ */
+public class PriceMetrics {
+
+    private final MeterRegistry registry;
+    private final PriceTable prices;
+    private final Counter[] ticks;
+    private final Counter malformed;
+    private final Counter dropped;
+    private final Counter reconnects;
+    private final Timer parseTime;
+    private final Timer tickAge;
+
+    public PriceMetrics(MeterRegistry registry, PriceTable prices) {
+        this.registry = registry;
+        this.prices = prices;
+        this.ticks = new Counter[prices.capacity()];
+        this.malformed = Counter.builder("prices.frames.malformed")
+                .description("Feed frames that could not be parsed")
+                .register(registry);
+        this.dropped = Counter.builder("prices.frames.dropped")
+                .description("Feed frames discarded because the price table is full")
+                .register(registry);
+        this.reconnects = Counter.builder("prices.feed.reconnects")
+                .description("Times the active feed connection was lost and replaced")
+                .register(registry);
+        this.parseTime = latency("prices.parse.time", "Time to parse a feed frame and publish its ticks");
+        this.tickAge = latency("prices.tick.age", "Age of a tick when tick consumers receive it (millisecond resolution)");
+    }
+
+    /** Meters that record nowhere, for services built outside Spring. */
+    public static PriceMetrics detached(PriceTable prices) {
+        return new PriceMetrics(new SimpleMeterRegistry(), prices);
+    }
+
+    private Timer latency(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /** Counts a tick; feed thread only. */
+    public void tick(int symbolId) {
+        Counter counter = ticks[symbolId];
+        if (counter == null) counter = register(symbolId);
+        counter.increment();
+    }
+
+    private Counter register(int symbolId) {
+        String symbol = prices.symbol(symbolId);
+        Gauge.builder("prices.staleness", prices, t -> staleness(t, symbolId))
+                .description("Seconds since the last price update")
+                .tag("symbol", symbol)
+                .baseUnit("seconds")
+                .register(registry);
+        return ticks[symbolId] = Counter.builder("prices.ticks")
+                .description("Ticker updates received")
+                .tag("symbol", symbol)
+                .register(registry);
+    }
+
+    private static double staleness(PriceTable table, int symbolId) {
+        long updated = table.updatedAt(symbolId);
+        return updated == 0 ? Double.NaN : (System.currentTimeMillis() - updated) / 1000.0;
+    }
+
+    public void parsed(long nanos) {
+        parseTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void malformed() {
+        malformed.increment();
+    }
+
+    public void dropped() {
+        dropped.increment();
+    }
+
+    public void reconnected() {
+        reconnects.increment();
+    }
+
+    public void tickAge(long millis) {
+        tickAge.record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.crypto.price;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes price changes to browser clients over {@code /ws/prices}.
+ * <p>
+ * Every round the pusher snapshots the {@link PriceTable} once and sends each due subscriber only the
+ * symbols whose slot version moved since that subscriber's last successful send (the first message is
+ * therefore a full snapshot). Subscribers are paced to at most {@code prices.stream.max-rate} messages
+ * per second (clients may ask for less with {@code ?rate=}). A subscriber whose previous send has not
+ * completed is skipped, so a slow client receives one conflated delta later instead of a growing queue;
+ * one stuck for longer than {@code prices.stream.stall-timeout-ms} is disconnected.
+ */
+@Component
+public class PriceStreamHandler extends TextWebSocketHandler {
+
+    private final PriceTable table;
+    private final int maxRate;
+    private final long stallTimeoutNanos;
+    private final Executor sender;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    // Round buffers, only touched by the pusher thread
+    private long[] versions = new long[0];
+    private long[] prices = new long[0];
+
+    private ScheduledExecutorService pusher;
+
+    @Autowired
+    public PriceStreamHandler(KrakenPriceService priceService,
+                              @Value("${prices.stream.max-rate:4}") int maxRate,
+                              @Value("${prices.stream.stall-timeout-ms:10000}") long stallTimeoutMs) {
+        this(priceService.getPriceTable(), maxRate, stallTimeoutMs,
+                Executors.newCachedThreadPool(daemon("price-stream-send")));
+    }
+
+    public PriceStreamHandler(PriceTable table, int maxRate, long stallTimeoutMs, Executor sender) {
+        if (maxRate <= 0) throw new IllegalArgumentException("prices.stream.max-rate must be positive.");
+        this.table = table;
+        this.maxRate = maxRate;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+        this.sender = sender;
+    }
+
+    @PostConstruct
+    public void start() {
+        pusher = Executors.newSingleThreadScheduledExecutor(daemon("price-stream-push"));
+        long periodMicros = 1_000_000L / maxRate;
+        pusher.scheduleAtFixedRate(this::pushSafely, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pusher != null) pusher.shutdownNow();
+        if (sender instanceof ExecutorService service) service.shutdownNow();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        int rate = requestedRate(session);
+        subscribers.put(session.getId(), new Subscriber(session, 1_000_000_000L / rate));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        subscribers.remove(session.getId());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        subscribers.remove(session.getId());
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Runs one push round: snapshot the table once, then send each due subscriber its delta. */
+    public void push() {
+        if (subscribers.isEmpty()) return;
+
+        int n = table.size();
+        if (versions.length < n) {
+            versions = new long[table.size() * 2];
+            prices = new long[versions.length];
+        }
+        for (int id = 0; id < n; id++) {
+            versions[id] = table.version(id);
+            prices[id] = table.get(id);
+        }
+
+        long now = System.nanoTime();
+        for (Subscriber sub : subscribers.values()) {
+            if (sub.inFlight.get()) {
+                if (now - sub.sendStarted > stallTimeoutNanos) disconnect(sub, CloseStatus.SESSION_NOT_RELIABLE);
+                continue; // conflate: whatever changed meanwhile goes out with the next delta
+            }
+            if (now < sub.nextDue) continue;
+
+            String delta = sub.delta(n, versions, prices);
+            if (delta == null) continue;
+
+            sub.nextDue = now + sub.intervalNanos;
+            sub.sendStarted = now;
+            sub.inFlight.set(true);
+            sender.execute(() -> send(sub, delta));
+        }
+    }
+
+    private void pushSafely() {
+        try {
+            push();
+        } catch (Exception e) {
+            System.err.println("[ERROR] Price stream push failed: " + e.getMessage());
+        }
+    }
+
+    private void send(Subscriber sub, String delta) {
+        try {
+            sub.session.sendMessage(new TextMessage(delta));
+        } catch (Exception e) {
+            disconnect(sub, CloseStatus.SERVER_ERROR);
+        } finally {
+            sub.inFlight.set(false);
+        }
+    }
+
+    private void disconnect(Subscriber sub, CloseStatus status) {
+        subscribers.remove(sub.session.getId());
+        try {
+            sub.session.close(status);
+        } catch (Exception ignored) {
+            // already gone
+        }
+    }
+
+    private int requestedRate(WebSocketSession session) {
+        if (session.getUri() == null) return maxRate;
+        String rate = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("rate");
+        try {
+            return rate == null ? maxRate : Math.max(1, Math.min(maxRate, Integer.parseInt(rate)));
+        } catch (NumberFormatException e) {
+            return maxRate;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private final class Subscriber {
+        final WebSocketSession session;
+        final long intervalNanos;
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        long[] sent = new long[0];  // slot versions last delivered to this client
+        long nextDue;
+        long sendStarted;
+        boolean snapshotSent;
+
+        Subscriber(WebSocketSession session, long intervalNanos) {
+            this.session = session;
+            this.intervalNanos = intervalNanos;
+        }
+
+        /** JSON for the changed symbols, or null when nothing changed. Marks them as sent. */
+        String delta(int n, long[] versions, long[] prices) {
+            if (sent.length < n) sent = Arrays.copyOf(sent, versions.length);
+
+            StringBuilder json = null;
+            for (int id = 0; id < n; id++) {
+                if (versions[id] == sent[id] || prices[id] == PriceTable.NO_PRICE) continue;
+                sent[id] = versions[id];
+                if (json == null) {
+                    json = new StringBuilder(64 + n * 32)
+                            .append("{\"type\":\"").append(snapshotSent ? "delta" : "snapshot")
+                            .append("\",\"prices\":{");
+                } else {
+                    json.append(',');
+                }
+                json.append('"').append(table.symbol(id)).append("\":")
+                        .append(PriceTable.toBigDecimal(prices[id]).toPlainString());
+            }
+            if (json == null) return null;
+            snapshotSent = true;
+            return json.append("}}").toString();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.example.crypto.price;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense, primitive price table.
+ * <p>
+ * Symbols are interned into ids {@code 0..size()-1} and prices are stored as fixed-point longs
+ * ({@link #SCALE} decimal places) in one {@code long[]}, two cache lines per symbol holding the last
+ * trade and the top of book (see {@link Quote}). Each slot carries
+ * a sequence number used as a seqlock: the single writer (the feed thread) makes it odd while writing
+ * and even when done, so readers retry instead of observing a half-written slot. Reads take no lock
+ * and allocate nothing.
+ */
+public class PriceTable {
+
+    /** Number of decimal places kept for every price. */
+    public static final int SCALE = 10;
+    /** Returned by the primitive getters when a symbol has no price yet (or a value cannot be parsed). */
+    public static final long NO_PRICE = Long.MIN_VALUE;
+    /** A size or volume too large for fixed point (about 9.2e8); only a lower bound, not a real amount. */
+    public static final long SATURATED = Long.MAX_VALUE;
+
+    private static final int STRIDE = 16; // longs per slot (128 bytes, also clear of adjacent-line prefetch)
+    private static final int SEQ = 0;
+    private static final int LAST = 1;
+    private static final int UPDATED = 2;
+    private static final int BID = 3;
+    private static final int ASK = 4;
+    private static final int BID_QTY = 5;
+    private static final int ASK_QTY = 6;
+    private static final int VOLUME = 7;
+    private static final int VWAP = 8;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int capacity;
+    private final long[] slots;
+    private final String[] symbols;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Open-addressing index (id + 1, 0 = empty) for allocation-free lookups from parser buffers
+    private final int[] index;
+    private final int mask;
+
+    private volatile int size;
+
+    public PriceTable(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        this.capacity = capacity;
+        this.slots = new long[capacity * STRIDE];
+        this.symbols = new String[capacity];
+        int buckets = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.index = new int[buckets];
+        this.mask = buckets - 1;
+    }
+
+    // ---------------------------------------------------------------- symbols
+
+    /** Interns a symbol, returning its existing id or assigning the next free one. */
+    public int register(String symbol) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) return existing;
+        synchronized (this) {
+            existing = ids.get(symbol);
+            if (existing != null) return existing;
+
+            int id = size;
+            if (id == capacity) {
+                throw new IllegalStateException("Price table is full (" + capacity + " symbols).");
+            }
+            symbols[id] = symbol;
+            int bucket = hash(symbol) & mask;
+            while ((int) INTS.getAcquire(index, bucket) != 0) bucket = (bucket + 1) & mask;
+            INTS.setRelease(index, bucket, id + 1);
+            ids.put(symbol, id);
+            size = id + 1;
+            return id;
+        }
+    }
+
+    public void registerAll(String[] symbols) {
+        for (String symbol : symbols) register(symbol);
+    }
+
+    /** Returns the id of a symbol, or -1 if it was never registered. */
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /** Allocation-free variant of {@link #idOf(String)} for characters held in a parser buffer. */
+    public int idOf(char[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) h = 31 * h + buf[i];
+        int bucket = spread(h) & mask;
+        int entry;
+        while ((entry = (int) INTS.getAcquire(index, bucket)) != 0) {
+            String candidate = symbols[entry - 1];
+            if (matches(candidate, buf, off, len)) return entry - 1;
+            bucket = (bucket + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    /** Maximum number of symbols; every id is below this. */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Number of registered symbols; valid ids are {@code 0..size()-1}. */
+    public int size() {
+        return size;
+    }
+
+    // ---------------------------------------------------------------- prices
+
+    /** Stores a fixed-point price. Must only be called from the single feed writer thread. */
+    public void put(int id, long price) {
+        put(id, price, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a last-only price received at {@code timestamp} (epoch millis), clearing the book fields.
+     * Single writer only.
+     */
+    public void put(int id, long price, long timestamp) {
+        int base = begin(id);
+        LONGS.setOpaque(slots, base + LAST, price);
+        LONGS.setOpaque(slots, base + UPDATED, timestamp);
+        for (int f = BID; f <= VWAP; f++) LONGS.setOpaque(slots, base + f, NO_PRICE);
+        end(base);
+    }
+
+    /** Stores a full quote received at {@code timestamp} (epoch millis). Single writer only. */
+    public void put(int id, Quote quote, long timestamp) {
+        int base = begin(id);
+        LONGS.setOpaque(slots, base + LAST, quote.last);
+        LONGS.setOpaque(slots, base + UPDATED, timestamp);
+        LONGS.setOpaque(slots, base + BID, quote.bid);
+        LONGS.setOpaque(slots, base + ASK, quote.ask);
+        LONGS.setOpaque(slots, base + BID_QTY, quote.bidQty);
+        LONGS.setOpaque(slots, base + ASK_QTY, quote.askQty);
+        LONGS.setOpaque(slots, base + VOLUME, quote.volume);
+        LONGS.setOpaque(slots, base + VWAP, quote.vwap);
+        end(base);
+    }
+
+    private int begin(int id) {
+        int base = id * STRIDE;
+        long seq = (long) LONGS.getOpaque(slots, base + SEQ);
+        LONGS.setOpaque(slots, base + SEQ, seq + 1);
+        VarHandle.storeStoreFence();
+        return base;
+    }
+
+    private void end(int base) {
+        LONGS.setRelease(slots, base + SEQ, (long) LONGS.getOpaque(slots, base + SEQ) + 1);
+    }
+
+    /** Latest fixed-point price for an id, or {@link #NO_PRICE}. */
+    public long get(int id) {
+        return read(id, LAST, NO_PRICE);
+    }
+
+    /** Best bid for an id, or {@link #NO_PRICE} if the feed has not sent one. */
+    public long bid(int id) {
+        return read(id, BID, NO_PRICE);
+    }
+
+    /** Best ask for an id, or {@link #NO_PRICE} if the feed has not sent one. */
+    public long ask(int id) {
+        return read(id, ASK, NO_PRICE);
+    }
+
+    /** Epoch millis of the latest price for an id, or 0 if it has none yet. */
+    public long updatedAt(int id) {
+        return read(id, UPDATED, 0);
+    }
+
+    private long read(int id, int field, long unset) {
+        int base = id * STRIDE;
+        while (true) {
+            long seq = (long) LONGS.getAcquire(slots, base + SEQ);
+            if (seq == 0) return unset;
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long value = (long) LONGS.getOpaque(slots, base + field);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getOpaque(slots, base + SEQ) == seq) return value;
+        }
+    }
+
+    /**
+     * Copies a consistent view of the whole slot into {@code out}.
+     *
+     * @return false, leaving {@code out} cleared, if the id has no price yet
+     */
+    public boolean quote(int id, Quote out) {
+        int base = id * STRIDE;
+        while (true) {
+            long seq = (long) LONGS.getAcquire(slots, base + SEQ);
+            if (seq == 0) {
+                out.clear();
+                return false;
+            }
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            out.last = (long) LONGS.getOpaque(slots, base + LAST);
+            out.bid = (long) LONGS.getOpaque(slots, base + BID);
+            out.ask = (long) LONGS.getOpaque(slots, base + ASK);
+            out.bidQty = (long) LONGS.getOpaque(slots, base + BID_QTY);
+            out.askQty = (long) LONGS.getOpaque(slots, base + ASK_QTY);
+            out.volume = (long) LONGS.getOpaque(slots, base + VOLUME);
+            out.vwap = (long) LONGS.getOpaque(slots, base + VWAP);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getOpaque(slots, base + SEQ) == seq) return true;
+        }
+    }
+
+    /** Slot version; changes every time the price for this id is written (0 = never written). */
+    public long version(int id) {
+        return (long) LONGS.getAcquire(slots, id * STRIDE + SEQ);
+    }
+
+    /**
+     * Copies the latest price of every symbol into {@code out[id]} ({@link #NO_PRICE} if unset).
+     *
+     * @return number of entries written, i.e. {@code min(size(), out.length)}
+     */
+    public int snapshot(long[] out) {
+        int n = Math.min(size, out.length);
+        for (int id = 0; id < n; id++) out[id] = get(id);
+        return n;
+    }
+
+    // ---------------------------------------------------------------- fixed-point conversion
+
+    public static long toFixed(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** {@link #toFixed(BigDecimal)}, or {@link #NO_PRICE} if the value does not fit (about 9.2e8). */
+    public static long toFixedOrNone(BigDecimal value) {
+        BigInteger unscaled = value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue();
+        return unscaled.bitLength() < 64 && unscaled.longValue() != NO_PRICE ? unscaled.longValue() : NO_PRICE;
+    }
+
+    /**
+     * {@link #toFixed(BigDecimal)}, clamped to +-{@link #SATURATED} if the value does not fit; for sizes
+     * and volumes, where "more than 9.2e8" is still more useful than nothing.
+     */
+    public static long toFixedSaturated(BigDecimal value) {
+        BigInteger unscaled = value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue();
+        if (unscaled.bitLength() < 64 && unscaled.longValue() != NO_PRICE) return unscaled.longValue();
+        return unscaled.signum() < 0 ? -SATURATED : SATURATED;
+    }
+
+    public static BigDecimal toBigDecimal(long fixed) {
+        BigDecimal value = BigDecimal.valueOf(fixed, SCALE).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    /**
+     * Parses a plain decimal number ({@code -?digits[.digits]}) straight into fixed-point, rounding half up
+     * past {@link #SCALE} places. Returns {@link #NO_PRICE} for anything else (exponents, overflow), in which
+     * case callers should fall back to {@link #toFixed(BigDecimal)}.
+     */
+    public static long parseFixed(char[] buf, int off, int len) {
+        int i = off;
+        int end = off + len;
+        boolean negative = false;
+        if (i < end && buf[i] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i == end) return NO_PRICE;
+
+        long value = 0;
+        int fraction = -1;    // digits seen after '.', -1 before it
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c == '.') {
+                if (fraction >= 0) return NO_PRICE;
+                fraction = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') return NO_PRICE;
+            if (fraction >= SCALE) {
+                if (fraction++ == SCALE) roundUp = c >= '5';
+                continue;
+            }
+            if (fraction >= 0) fraction++;
+            if (value > (Long.MAX_VALUE - 9) / 10) return NO_PRICE;
+            value = value * 10 + (c - '0');
+        }
+
+        for (int f = Math.max(fraction, 0); f < SCALE; f++) {
+            if (value > Long.MAX_VALUE / 10) return NO_PRICE;
+            value *= 10;
+        }
+        if (roundUp) value++;
+        return negative ? -value : value;
+    }
+
+    private static boolean matches(String s, char[] buf, int off, int len) {
+        if (s.length() != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (s.charAt(i) != buf[off + i]) return false;
+        }
+        return true;
+    }
+
+    private static int hash(String s) {
+        return spread(s.hashCode());
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.crypto.price;
+
+/**
+ * Top of book for one pair, as fixed-point longs ({@link PriceTable#SCALE} places).
+ * <p>
+ * Mutable on purpose: the ticker parser fills one instance per frame entry and {@link PriceTable}
+ * copies it into the symbol's slot, so a tick allocates nothing. Readers copy a slot back out with
+ * {@link PriceTable#quote(int, Quote)}. Fields the feed did not send are {@link PriceTable#NO_PRICE}.
+ * Sizes and volume beyond what fixed point holds (about 9.2e8) are clamped to {@link PriceTable#SATURATED}.
+ */
+public final class Quote {
+
+    public long last = PriceTable.NO_PRICE;
+    public long bid = PriceTable.NO_PRICE;
+    public long ask = PriceTable.NO_PRICE;
+    public long bidQty = PriceTable.NO_PRICE;
+    public long askQty = PriceTable.NO_PRICE;
+    public long volume = PriceTable.NO_PRICE;
+    public long vwap = PriceTable.NO_PRICE;
+
+    /** A quote with only a last price, e.g. a replayed tick. */
+    public static Quote ofLast(long last) {
+        Quote q = new Quote();
+        q.last = last;
+        return q;
+    }
+
+    public void clear() {
+        last = bid = ask = bidQty = askQty = volume = vwap = PriceTable.NO_PRICE;
+    }
+
+    /** Price a buy of any size touches first: the ask, or the last trade when there is no book. */
+    public long buyPrice() {
+        return ask != PriceTable.NO_PRICE ? ask : last;
+    }
+
+    /** Price a sell of any size touches first: the bid, or the last trade when there is no book. */
+    public long sellPrice() {
+        return bid != PriceTable.NO_PRICE ? bid : last;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.crypto.price;
+
+/** A trade was refused because the pair's last price is older than {@code prices.max-age-ms}. */
+public class StalePriceException extends IllegalArgumentException {
+    public StalePriceException(String symbol, long ageMillis) {
+        super("Price for " + symbol + " is stale (" + ageMillis + "ms old); trading is suspended until the feed recovers.");
+    }
+}
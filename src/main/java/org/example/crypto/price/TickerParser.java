@@ -0,0 +1,174 @@
+package org.example.crypto.price;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Streaming parser for Kraken v2 WebSocket frames.
+ * <p>
+ * Only {@code channel}, {@code data[*].symbol} and the top-of-book fields of each entry ({@code last},
+ * {@code bid}, {@code ask}, {@code bid_qty}, {@code ask_qty}, {@code volume}, {@code vwap}) are read;
+ * every other value is skipped without being materialised. Frames whose channel is not {@code ticker}
+ * (heartbeats, status, subscribe acks) are dropped as soon as the channel value is seen.
+ * Symbols are resolved to {@link PriceTable} ids and prices to fixed-point straight from the
+ * parser's character buffer, so a known symbol costs no {@code String} or {@code BigDecimal}. Entries
+ * are delivered in one reused {@link Quote}, so a parser instance serves one thread at a time (the
+ * feed thread).
+ */
+public class TickerParser {
+
+    /** Receives one call per ticker entry found in a frame. */
+    @FunctionalInterface
+    public interface TickHandler {
+        /** {@code quote} is reused for the next entry; copy what must outlive the call. */
+        void onTicker(int symbolId, Quote quote);
+    }
+
+    private static final String TICKER_CHANNEL = "ticker";
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+    private final PriceTable table;
+    private final Quote quote = new Quote();
+
+    public TickerParser(ObjectMapper mapper, PriceTable table) {
+        this.mapper = mapper;
+        this.factory = mapper.getFactory();
+        this.table = table;
+    }
+
+    /**
+     * Parses a single frame and reports every ticker entry in its {@code data} array.
+     *
+     * @return number of ticker entries passed to the handler
+     */
+    public int parse(String json, TickHandler handler) throws IOException {
+        try (JsonParser p = factory.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return 0;
+
+            Boolean ticker = null;      // unknown until the "channel" field is read
+            JsonNode deferredData = null; // "data" seen before "channel" (rare, field order is not guaranteed)
+            int count = 0;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+
+                if ("channel".equals(field)) {
+                    if (value != JsonToken.VALUE_STRING || !TICKER_CHANNEL.equals(p.getText())) {
+                        return 0; // heartbeat, status, etc.
+                    }
+                    ticker = Boolean.TRUE;
+                    if (deferredData != null) {
+                        return readDataTree(deferredData, handler);
+                    }
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (ticker == null) {
+                        deferredData = mapper.readTree(p);
+                    } else {
+                        count += readDataArray(p, handler);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return count;
+        }
+    }
+
+    // Parser is positioned on START_ARRAY of "data"
+    private int readDataArray(JsonParser p, TickHandler handler) throws IOException {
+        int count = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY && t != null) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+
+            int symbolId = -1;
+            Quote q = quote;
+            q.clear();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("symbol".equals(field) && value == JsonToken.VALUE_STRING) {
+                    symbolId = symbolId(p);
+                } else if (value.isNumeric()) {
+                    switch (field) {
+                        case "last" -> q.last = fixedValue(p);
+                        case "bid" -> q.bid = fixedValue(p);
+                        case "ask" -> q.ask = fixedValue(p);
+                        case "bid_qty" -> q.bidQty = fixedQuantity(p);
+                        case "ask_qty" -> q.askQty = fixedQuantity(p);
+                        case "volume" -> q.volume = fixedQuantity(p);
+                        case "vwap" -> q.vwap = fixedValue(p);
+                        default -> { } // change, high, low, ...
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+
+            if (symbolId >= 0 && q.last != PriceTable.NO_PRICE) {
+                handler.onTicker(symbolId, q);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Fallback for frames where "data" precedes "channel"
+    private int readDataTree(JsonNode dataArr, TickHandler handler) {
+        int count = 0;
+        for (JsonNode ticker : dataArr) {
+            JsonNode symbol = ticker.get("symbol");
+            Quote q = quote;
+            q.last = fixedValue(ticker, "last");
+            if (symbol != null && symbol.isTextual() && q.last != PriceTable.NO_PRICE) {
+                q.bid = fixedValue(ticker, "bid");
+                q.ask = fixedValue(ticker, "ask");
+                q.bidQty = fixedQuantity(ticker, "bid_qty");
+                q.askQty = fixedQuantity(ticker, "ask_qty");
+                q.volume = fixedQuantity(ticker, "volume");
+                q.vwap = fixedValue(ticker, "vwap");
+                handler.onTicker(table.register(symbol.asText()), q);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long fixedValue(JsonNode ticker, String field) {
+        JsonNode value = ticker.get(field);
+        return value != null && value.isNumber() ? PriceTable.toFixedOrNone(value.decimalValue()) : PriceTable.NO_PRICE;
+    }
+
+    private static long fixedQuantity(JsonNode ticker, String field) {
+        JsonNode value = ticker.get(field);
+        return value != null && value.isNumber() ? PriceTable.toFixedSaturated(value.decimalValue()) : PriceTable.NO_PRICE;
+    }
+
+    // Known symbols are matched in place; an unseen one is interned once
+    private int symbolId(JsonParser p) throws IOException {
+        int id = table.idOf(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        return id >= 0 ? id : table.register(p.getText());
+    }
+
+    // A value too large for fixed point never fails the frame, which carries other pairs' prices too:
+    // a price becomes absent, a size or volume is clamped
+    private static long fixedValue(JsonParser p) throws IOException {
+        long value = PriceTable.parseFixed(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        return value != PriceTable.NO_PRICE ? value : PriceTable.toFixedOrNone(p.getDecimalValue());
+    }
+
+    private static long fixedQuantity(JsonParser p) throws IOException {
+        long value = PriceTable.parseFixed(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        return value != PriceTable.NO_PRICE ? value : PriceTable.toFixedSaturated(p.getDecimalValue());
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.crypto.price.fanout;
+
+/**
+ * Wire format between a feed node and its trade nodes: a big-endian binary stream over TCP, written
+ * with {@code DataOutputStream}.
+ * <pre>
+ *   hello      int MAGIC, int VERSION                        once, feed to subscriber
+ *   symbol     byte 'S', int id, UTF symbol                   before the first quote of that id
+ *   quote      byte 'Q', int id, long updatedAt,
+ *              long last, bid, ask, bidQty, askQty, volume, vwap   fixed-point, see PriceTable.SCALE
+ *   heartbeat  byte 'H'                                       when nothing else was sent for a while
+ * </pre>
+ * Ids are the feed's price table ids and only mean something within one connection. A quote is the
+ * symbol's whole slot, not a delta, so a subscriber that falls behind can be sent just the latest one.
+ */
+final class FanoutProtocol {
+
+    static final int MAGIC = 0x5449434B; // "TICK"
+    static final int VERSION = 1;
+
+    static final byte SYMBOL = 'S';
+    static final byte QUOTE = 'Q';
+    static final byte HEARTBEAT = 'H';
+
+    private FanoutProtocol() {
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.crypto.price.fanout;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Republishes a feed node's prices to trade nodes over TCP.
+ * <p>
+ * {@link #onTick} runs on a tick ring consumer and only sets the symbol's bit in every subscriber's
+ * dirty set, so no subscriber can hold up the ring. Each subscriber has its own sender thread that
+ * writes the current price table slot of every dirty symbol, then flushes. A subscriber that keeps up
+ * gets every tick; a slow one gets the latest quote per symbol instead of a growing backlog. A new
+ * subscriber starts with every symbol dirty, which is its snapshot.
+ */
+public class TickFanout implements AutoCloseable {
+
+    private final PriceTable prices;
+    private final ServerSocket server;
+    private final long heartbeatNanos;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    public TickFanout(PriceTable prices, InetSocketAddress bindAddress, long heartbeatMillis) throws IOException {
+        this.prices = prices;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(bindAddress);
+        acceptor = new Thread(this::accept, "tick-fanout-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /** Port the fan-out listens on; useful when bound to port 0. */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** Connected trade nodes. */
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    /** Tick ring listener: marks the symbol for sending to every subscriber. */
+    public void onTick(int symbolId, long price, long timestamp) {
+        for (Subscriber s : subscribers) s.mark(symbolId);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        for (Subscriber s : subscribers) s.close();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Subscriber s = new Subscriber(socket);
+                subscribers.add(s);
+                s.start();
+                System.out.println("[INFO] Trade node subscribed from " + socket.getRemoteSocketAddress());
+            } catch (SocketException e) {
+                if (running) System.err.println("[ERROR] Tick fan-out stopped accepting: " + e.getMessage());
+                return;
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to accept trade node: " + e.getMessage());
+            }
+        }
+    }
+
+    private class Subscriber {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final AtomicLongArray dirty = new AtomicLongArray((prices.capacity() + 63) >>> 6);
+        private final Quote quote = new Quote();
+        private final Thread sender;
+        private volatile boolean signalled;
+        private int announced; // ids below this have had their symbol sent; sender thread only
+
+        Subscriber(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            this.sender = new Thread(this::send, "tick-fanout-" + socket.getPort());
+            sender.setDaemon(true);
+        }
+
+        void start() {
+            for (int id = 0, n = prices.size(); id < n; id++) mark(id);
+            sender.start();
+        }
+
+        // Set the bit before reading the flag: the sender clears the flag before draining, so a bit it
+        // misses is always followed by an unpark
+        void mark(int id) {
+            int word = id >>> 6;
+            long bit = 1L << id;
+            long w;
+            do {
+                w = dirty.get(word);
+                if ((w & bit) != 0) return; // still pending; the sender will read the newest quote
+            } while (!dirty.compareAndSet(word, w, w | bit));
+            if (!signalled) {
+                signalled = true;
+                LockSupport.unpark(sender);
+            }
+        }
+
+        private void send() {
+            try {
+                out.writeInt(FanoutProtocol.MAGIC);
+                out.writeInt(FanoutProtocol.VERSION);
+                out.flush();
+                long lastWrite = System.nanoTime();
+                while (running) {
+                    signalled = false;
+                    if (drain()) {
+                        out.flush();
+                        lastWrite = System.nanoTime();
+                    } else if (System.nanoTime() - lastWrite >= heartbeatNanos) {
+                        out.writeByte(FanoutProtocol.HEARTBEAT);
+                        out.flush();
+                        lastWrite = System.nanoTime();
+                    }
+                    if (!signalled) LockSupport.parkNanos(heartbeatNanos);
+                }
+            } catch (IOException e) {
+                if (running) System.err.println("[WARN] Trade node " + socket.getRemoteSocketAddress() + " dropped: " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private boolean drain() throws IOException {
+            boolean sent = false;
+            for (int word = 0; word < dirty.length(); word++) {
+                if (dirty.get(word) == 0) continue;
+                long bits = dirty.getAndSet(word, 0);
+                while (bits != 0) {
+                    int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    sent |= write(id);
+                }
+            }
+            return sent;
+        }
+
+        private boolean write(int id) throws IOException {
+            if (!prices.quote(id, quote)) return false;
+            while (announced <= id) {
+                out.writeByte(FanoutProtocol.SYMBOL);
+                out.writeInt(announced);
+                out.writeUTF(prices.symbol(announced));
+                announced++;
+            }
+            out.writeByte(FanoutProtocol.QUOTE);
+            out.writeInt(id);
+            out.writeLong(prices.updatedAt(id));
+            out.writeLong(quote.last);
+            out.writeLong(quote.bid);
+            out.writeLong(quote.ask);
+            out.writeLong(quote.bidQty);
+            out.writeLong(quote.askQty);
+            out.writeLong(quote.volume);
+            out.writeLong(quote.vwap);
+            return true;
+        }
+
+        void close() {
+            subscribers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+            LockSupport.unpark(sender);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.crypto.price.fanout;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A trade node's connection to a feed node's {@link TickFanout}.
+ * <p>
+ * One thread reads the stream, interns each announced symbol in the local {@link PriceTable} and hands
+ * every quote to the handler, which makes it the table's single writer. A connection that fails or
+ * stays silent past the idle timeout (the feed sends heartbeats) is dropped and redialled after a
+ * jittered exponential backoff; the feed resends every symbol on connect, so nothing is lost for good.
+ */
+public class TickSubscriber {
+
+    /** Receives quotes on the subscriber thread, with the symbol's local id and the feed's receive time. */
+    @FunctionalInterface
+    public interface QuoteHandler {
+        void onQuote(int symbolId, Quote quote, long timestamp);
+    }
+
+    public record Settings(long initialBackoffMillis, long maxBackoffMillis, long idleTimeoutMillis) {}
+
+    private final InetSocketAddress address;
+    private final PriceTable prices;
+    private final QuoteHandler handler;
+    private final Settings settings;
+    private final Quote quote = new Quote();
+    private final Thread reader;
+    private int[] localIds = new int[64]; // feed id -> local id; reader thread only
+    private volatile Socket socket;
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile long reconnects;
+
+    public TickSubscriber(InetSocketAddress address, PriceTable prices, QuoteHandler handler, Settings settings) {
+        this.address = address;
+        this.prices = prices;
+        this.handler = handler;
+        this.settings = settings;
+        this.reader = new Thread(this::run, "tick-subscriber");
+        reader.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        reader.start();
+    }
+
+    public void stop() {
+        running = false;
+        close();
+        reader.interrupt();
+    }
+
+    /** True while a connection to the feed is open and has said hello. */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /** Connections that replaced a lost one. */
+    public long reconnects() {
+        return reconnects;
+    }
+
+    private void run() {
+        int attempt = 0;
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(address, (int) settings.idleTimeoutMillis());
+                s.setSoTimeout((int) settings.idleTimeoutMillis());
+                s.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1 << 16));
+                if (in.readInt() != FanoutProtocol.MAGIC || in.readInt() != FanoutProtocol.VERSION) {
+                    throw new IOException("not a tick fan-out of version " + FanoutProtocol.VERSION);
+                }
+                Arrays.fill(localIds, -1);
+                connected = true;
+                attempt = 0;
+                System.out.println("[INFO] Subscribed to price feed at " + address);
+                read(in);
+            } catch (EOFException e) {
+                if (running) System.err.println("[WARN] Price feed at " + address + " closed the connection.");
+            } catch (IOException e) {
+                // Only the first of a run of failed dials is logged
+                if (running && (connected || attempt == 0)) {
+                    System.err.println("[WARN] Price feed at " + address + " unavailable: " + e.getMessage());
+                }
+            } finally {
+                if (connected) reconnects++;
+                connected = false;
+            }
+            if (!running) return;
+            try {
+                Thread.sleep(backoff(attempt++));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case FanoutProtocol.HEARTBEAT -> { }
+                case FanoutProtocol.SYMBOL -> {
+                    int remote = in.readInt();
+                    String symbol = in.readUTF();
+                    if (remote >= localIds.length) {
+                        int old = localIds.length;
+                        localIds = Arrays.copyOf(localIds, Math.max(old * 2, remote + 1));
+                        Arrays.fill(localIds, old, localIds.length, -1);
+                    }
+                    localIds[remote] = prices.register(symbol);
+                }
+                case FanoutProtocol.QUOTE -> {
+                    int remote = in.readInt();
+                    long timestamp = in.readLong();
+                    quote.last = in.readLong();
+                    quote.bid = in.readLong();
+                    quote.ask = in.readLong();
+                    quote.bidQty = in.readLong();
+                    quote.askQty = in.readLong();
+                    quote.volume = in.readLong();
+                    quote.vwap = in.readLong();
+                    int id = remote < localIds.length ? localIds[remote] : -1;
+                    if (id < 0) throw new IOException("quote for unannounced symbol id " + remote);
+                    handler.onQuote(id, quote, timestamp);
+                }
+                default -> throw new IOException("unknown frame type " + type);
+            }
+        }
+    }
+
+    /** Full jitter over an exponentially growing window, as for the Kraken connection. */
+    long backoff(int attempt) {
+        long window = Math.min(settings.maxBackoffMillis(), settings.initialBackoffMillis() << Math.min(attempt, 20));
+        return window / 2 + ThreadLocalRandom.current().nextLong(window / 2 + 1);
+    }
+
+    private void close() {
+        Socket s = socket;
+        if (s == null) return;
+        try {
+            s.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+}
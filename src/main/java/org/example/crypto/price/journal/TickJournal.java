@@ -0,0 +1,136 @@
+package org.example.crypto.price.journal;
+
+import org.example.crypto.price.PriceTable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, memory-mapped journal of every tick the feed receives.
+ * <p>
+ * Ticks are written as fixed-width {@link #RECORD_BYTES}-byte records (timestamp, fixed-point price,
+ * journal symbol id) into preallocated segment files {@code ticks-0000000001.dat}, ... that are mapped
+ * into memory, so appending a tick is three stores into the page cache and never a system call; the
+ * only syscalls happen when a segment fills up and the next one is mapped. A zeroed record marks the
+ * end of the data in a segment. Each writer session starts a new segment.
+ * <p>
+ * Price table ids are only valid within one process, so records carry ids from the journal's own
+ * dictionary, {@code symbols.txt} (line {@code n} names symbol {@code n}), which only grows.
+ * Single writer: {@link #append} is called from the feed thread only.
+ */
+public class TickJournal implements AutoCloseable {
+
+    public static final int RECORD_BYTES = 24;
+    static final String SYMBOLS_FILE = "symbols.txt";
+    static final String SEGMENT_PREFIX = "ticks-";
+    static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final PriceTable table;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final int[] journalIds; // by price table id, -1 until the symbol is in the dictionary
+
+    private MappedByteBuffer segment;
+    private int segmentNo;
+    private boolean failed;
+
+    public TickJournal(Path dir, long segmentBytes, PriceTable table) throws IOException {
+        if (segmentBytes < RECORD_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + RECORD_BYTES + " bytes and 2 GB.");
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_BYTES;
+        this.table = table;
+        this.journalIds = new int[table.capacity()];
+        Arrays.fill(journalIds, -1);
+
+        Files.createDirectories(dir);
+        List<String> names = readSymbols(dir);
+        for (int i = 0; i < names.size(); i++) dictionary.put(names.get(i), i);
+        List<Path> segments = segments(dir);
+        segmentNo = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1));
+        roll();
+    }
+
+    /** Records one tick. After an I/O failure the journal stops recording rather than disturb the feed. */
+    public void append(int symbolId, long price, long timestamp) {
+        if (failed) return;
+        try {
+            int journalId = journalIds[symbolId];
+            if (journalId < 0) journalId = define(symbolId);
+            if (segment.remaining() < RECORD_BYTES) roll();
+            int at = segment.position();
+            segment.putLong(at + 8, price).putInt(at + 16, journalId);
+            segment.putLong(at, timestamp); // last, so a non-zero timestamp means a complete record
+            segment.position(at + RECORD_BYTES);
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("[ERROR] Tick journal stopped: " + e.getMessage());
+        }
+    }
+
+    /** Flushes the mapped segment to disk. */
+    @Override
+    public void close() {
+        if (segment != null) segment.force();
+    }
+
+    // First tick of a symbol: reuse its id from an earlier session or add it to the dictionary
+    private int define(int symbolId) throws IOException {
+        String symbol = table.symbol(symbolId);
+        Integer existing = dictionary.get(symbol);
+        if (existing == null) {
+            existing = dictionary.size();
+            Files.writeString(dir.resolve(SYMBOLS_FILE), symbol + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            dictionary.put(symbol, existing);
+        }
+        journalIds[symbolId] = existing;
+        return existing;
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) segment.force();
+        Path file = dir.resolve(segmentName(++segmentNo));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes); // stays valid after close
+        }
+    }
+
+    // ---------------------------------------------------------------- layout, shared with TickReplayer
+
+    static List<String> readSymbols(Path dir) throws IOException {
+        Path file = dir.resolve(SYMBOLS_FILE);
+        return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+    }
+
+    /** Segment files of a journal in write order. */
+    static List<Path> segments(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    static String segmentName(int n) {
+        return String.format("%s%010d%s", SEGMENT_PREFIX, n, SEGMENT_SUFFIX);
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
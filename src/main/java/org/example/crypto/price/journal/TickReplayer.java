@@ -0,0 +1,68 @@
+package org.example.crypto.price.journal;
+
+import org.example.crypto.price.ring.TickListener;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads a {@link TickJournal} back in recorded order.
+ * <p>
+ * Symbol ids passed to the listener are journal ids, indexes into {@link #symbols()}. With a speed of
+ * 1 ticks are delivered with their recorded spacing, with 100 a hundred times faster, and with 0 as
+ * fast as the listener takes them.
+ */
+public class TickReplayer {
+
+    private final Path dir;
+
+    public TickReplayer(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Journal symbol dictionary, indexed by journal symbol id. */
+    public List<String> symbols() throws IOException {
+        return TickJournal.readSymbols(dir);
+    }
+
+    /** @return number of ticks replayed */
+    public long replay(TickListener listener, double speed) throws IOException, InterruptedException {
+        if (speed < 0 || Double.isNaN(speed)) throw new IllegalArgumentException("Speed must be 0 (unpaced) or positive.");
+        long ticks = 0;
+        long firstTimestamp = 0;
+        long startNanos = System.nanoTime();
+        for (Path file : TickJournal.segments(dir)) {
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            while (segment.remaining() >= TickJournal.RECORD_BYTES) {
+                long timestamp = segment.getLong();
+                long price = segment.getLong();
+                int symbolId = segment.getInt();
+                segment.getInt();
+                if (timestamp == 0) break; // end of a segment that was not filled
+
+                if (ticks == 0) firstTimestamp = timestamp;
+                if (speed > 0) pace(startNanos, (long) ((timestamp - firstTimestamp) * 1_000_000 / speed));
+                listener.onTick(symbolId, price, timestamp);
+                ticks++;
+            }
+        }
+        return ticks;
+    }
+
+    // Waits until the replay clock reaches the tick's offset from the first tick
+    private static void pace(long startNanos, long offsetNanos) throws InterruptedException {
+        long wait;
+        while ((wait = startNanos + offsetNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+}
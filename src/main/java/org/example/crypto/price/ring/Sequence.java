@@ -0,0 +1,37 @@
+package org.example.crypto.price.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A sequence number read by other threads, padded so that the producer cursor and each consumer's
+ * position sit on their own cache lines.
+ */
+public class Sequence {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    @SuppressWarnings("unused") private long q1, q2, q3, q4, q5, q6, q7;
+
+    public Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    public void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+}
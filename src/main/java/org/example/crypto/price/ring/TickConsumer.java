@@ -0,0 +1,82 @@
+package org.example.crypto.price.ring;
+
+/** One reader of a {@link TickRingBuffer}, with its own thread and sequence. */
+public class TickConsumer {
+
+    private final String name;
+    private final TickListener handler;
+    private final TickRingBuffer ring;
+    private final Sequence sequence;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    // Written by the consumer thread only
+    private volatile long processed;
+    private volatile long maxLag;
+
+    TickConsumer(String name, TickListener handler, TickRingBuffer ring, long start) {
+        this.name = name;
+        this.handler = handler;
+        this.ring = ring;
+        this.sequence = new Sequence(start);
+        this.thread = new Thread(this::run, "tick-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Last sequence this consumer has finished with. */
+    public long sequence() {
+        return sequence.get();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    private void run() {
+        long next = sequence.get() + 1;
+        while (!stopped) {
+            long available;
+            try {
+                available = ring.waitFor(next, this);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (available < next) continue;
+
+            long lag = available - next + 1;
+            if (lag > maxLag) maxLag = lag;
+            for (; next <= available; next++) {
+                try {
+                    handler.onTick(ring.symbolIdAt(next), ring.priceAt(next), ring.timestampAt(next));
+                } catch (RuntimeException e) {
+                    System.err.println("[ERROR] Tick consumer " + name + " failed: " + e.getMessage());
+                }
+            }
+            processed += lag;
+            sequence.set(available); // releases the slots back to the producer
+        }
+    }
+
+    Stats stats(long published) {
+        long seq = sequence.get();
+        return new Stats(name, seq, Math.max(0, published - seq), maxLag, processed);
+    }
+
+    /**
+     * @param lag    ticks published but not yet handled by this consumer
+     * @param maxLag largest backlog this consumer has woken up to
+     */
+    public record Stats(String name, long sequence, long lag, long maxLag, long processed) { }
+}
@@ -0,0 +1,8 @@
+package org.example.crypto.price.ring;
+
+/** Preallocated ring slot, overwritten in place for every published tick. */
+final class TickEvent {
+    int symbolId;
+    long price;             // fixed-point, see PriceTable.SCALE
+    long timestamp;         // epoch millis when the feed received it
+}
@@ -0,0 +1,11 @@
+package org.example.crypto.price.ring;
+
+/** Handles ticks read from a {@link TickRingBuffer}, on the consumer's own thread. */
+@FunctionalInterface
+public interface TickListener {
+    /**
+     * @param price     fixed-point price, see {@link org.example.crypto.price.PriceTable#SCALE}
+     * @param timestamp epoch millis at which the feed received the tick
+     */
+    void onTick(int symbolId, long price, long timestamp);
+}
@@ -0,0 +1,128 @@
+package org.example.crypto.price.ring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer, multi-consumer ring of preallocated tick events, after the LMAX Disruptor.
+ * <p>
+ * The feed thread {@linkplain #publish publishes} into the next slot and advances the cursor. Each
+ * {@link TickConsumer} runs on its own thread and reads at its own sequence, in batches of whatever has
+ * been published since it last looked. A slow consumer therefore only delays itself, until it falls a
+ * whole ring behind; the producer then waits for it rather than overwrite ticks it has not read.
+ */
+public class TickRingBuffer {
+
+    private final TickEvent[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(-1);
+
+    private volatile TickConsumer[] consumers = new TickConsumer[0];
+
+    // Producer-only state
+    private long nextSequence;
+    private long cachedGate = -1;
+    private volatile long producerWaits;
+
+    public TickRingBuffer(int size, WaitStrategy waitStrategy) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a positive power of two.");
+        }
+        this.entries = new TickEvent[size];
+        for (int i = 0; i < size; i++) entries[i] = new TickEvent();
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /** Publishes a tick. Must only be called from the single feed thread. */
+    public void publish(int symbolId, long price, long timestamp) {
+        long seq = nextSequence++;
+        long wrapPoint = seq - entries.length;
+        if (wrapPoint > cachedGate) {
+            long gate;
+            boolean waited = false;
+            while (wrapPoint > (gate = minimumSequence(seq - 1))) {
+                if (!waited) {
+                    producerWaits++;
+                    waited = true;
+                }
+                LockSupport.parkNanos(1);
+            }
+            cachedGate = gate;
+        }
+
+        TickEvent event = entries[(int) seq & mask];
+        event.symbolId = symbolId;
+        event.price = price;
+        event.timestamp = timestamp;
+        cursor.set(seq);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    /**
+     * Starts a consumer thread that calls {@code handler} for every tick published from now on.
+     * Handlers run on that thread only and may take their time; they hold back nobody but themselves.
+     */
+    public synchronized TickConsumer addConsumer(String name, TickListener handler) {
+        TickConsumer consumer = new TickConsumer(name, handler, this, cursor.get());
+        TickConsumer[] next = Arrays.copyOf(consumers, consumers.length + 1);
+        next[consumers.length] = consumer;
+        consumers = next;
+        consumer.start();
+        return consumer;
+    }
+
+    public synchronized void removeConsumer(TickConsumer consumer) {
+        consumer.stop();
+        consumers = Arrays.stream(consumers).filter(c -> c != consumer).toArray(TickConsumer[]::new);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /** Highest published sequence (-1 before the first tick). */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    public Stats stats() {
+        long published = cursor.get();
+        List<TickConsumer.Stats> result = new ArrayList<>();
+        for (TickConsumer c : consumers) result.add(c.stats(published));
+        return new Stats(published + 1, producerWaits, result);
+    }
+
+    /**
+     * @param published     ticks published so far
+     * @param producerWaits times the producer found the ring full and had to wait for a consumer
+     */
+    public record Stats(long published, long producerWaits, List<TickConsumer.Stats> consumers) { }
+
+    // ---------------------------------------------------------------- consumer access
+
+    long waitFor(long sequence, TickConsumer consumer) throws InterruptedException {
+        return waitStrategy.waitFor(sequence, cursor, consumer::isStopped);
+    }
+
+    int symbolIdAt(long sequence) {
+        return entries[(int) sequence & mask].symbolId;
+    }
+
+    long priceAt(long sequence) {
+        return entries[(int) sequence & mask].price;
+    }
+
+    long timestampAt(long sequence) {
+        return entries[(int) sequence & mask].timestamp;
+    }
+
+    private long minimumSequence(long fallback) {
+        long min = fallback;
+        for (TickConsumer c : consumers) min = Math.min(min, c.sequence());
+        return min;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.crypto.price.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a consumer waits for the producer to publish past its position. Trades latency for CPU:
+ * BUSY_SPIN burns a core, YIELDING gives it up between checks, SLEEPING parks briefly and BLOCKING
+ * sleeps on a condition the producer signals.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until {@code cursor} reaches {@code sequence} or {@code stopped} turns true.
+     *
+     * @return the highest published sequence, which may be below {@code sequence} if stopped
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier stopped) throws InterruptedException;
+
+    /** Called by the producer after each publish; only blocking strategies need to act on it. */
+    default void signalAllWhenBlocking() { }
+
+    static WaitStrategy named(String name) {
+        return switch (name) {
+            case "BUSY_SPIN" -> new BusySpin();
+            case "YIELDING" -> new Yielding();
+            case "SLEEPING" -> new Sleeping();
+            case "BLOCKING" -> new Blocking();
+            default -> throw new IllegalArgumentException("Unknown wait strategy " + name
+                    + " (expected BUSY_SPIN, YIELDING, SLEEPING or BLOCKING).");
+        };
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopped) {
+            long available;
+            while ((available = cursor.get()) < sequence && !stopped.getAsBoolean()) Thread.onSpinWait();
+            return available;
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPINS = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopped) {
+            long available;
+            int spins = SPINS;
+            while ((available = cursor.get()) < sequence && !stopped.getAsBoolean()) {
+                if (spins > 0) {
+                    spins--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+    }
+
+    final class Sleeping implements WaitStrategy {
+        private static final int SPINS = 100;
+        private static final int YIELDS = 100;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopped) {
+            long available;
+            int tries = SPINS + YIELDS;
+            while ((available = cursor.get()) < sequence && !stopped.getAsBoolean()) {
+                if (tries > YIELDS) {
+                    tries--;
+                    Thread.onSpinWait();
+                } else if (tries > 0) {
+                    tries--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+            return available;
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // re-checks 'stopped'
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier stopped) throws InterruptedException {
+            long available = cursor.get();
+            if (available >= sequence) return available;
+            lock.lock();
+            try {
+                while ((available = cursor.get()) < sequence && !stopped.getAsBoolean()) {
+                    published.awaitNanos(MAX_WAIT_NANOS);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package org.example.crypto.sim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.journal.TickReplayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One simulated Kraken v2 WebSocket connection. The connection thread reads client frames and answers
+ * subscriptions; after the first {@code ticker} subscription a {@code sim-feed} thread streams ticker
+ * updates for the subscribed pairs according to the simulator's {@link FeedSimulator.Traffic}.
+ * Frames are written to a buffered stream and flushed once per batch, not per message.
+ */
+class FeedSession {
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private static final int PRICE_SCALE = 4; // simulated prices carry 4 decimals
+    private static final long SLICE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_BATCH = 1024;
+
+    private final FeedSimulator sim;
+    private final List<String> bases;
+    private final InputStream in;
+    private final OutputStream out;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final boolean[] subscribed;
+    private volatile int[] active = new int[0]; // subscribed ids, in subscription order
+
+    private final long[] prices;
+    private final SplittableRandom random;
+    private final StringBuilder json = new StringBuilder(256);
+    private byte[] frame = new byte[512];
+    private volatile boolean open = true;
+    private Thread sender;
+
+    FeedSession(FeedSimulator sim, List<String> bases, InputStream in, OutputStream out) {
+        this.sim = sim;
+        this.bases = bases;
+        this.in = in;
+        this.out = out;
+        this.subscribed = new boolean[bases.size()];
+        this.prices = new long[bases.size()];
+        this.random = new SplittableRandom(sim.options().seed());
+        for (int i = 0; i < bases.size(); i++) {
+            ids.put(bases.get(i) + "/USD", i);
+            prices[i] = switch (bases.get(i)) {
+                case "XBT" -> 60_000_0000L;
+                case "ETH" -> 3_000_0000L;
+                default -> 1_0000L + random.nextLong(1_000_0000L);
+            };
+        }
+    }
+
+    // Reads client frames until the connection closes
+    void run() throws IOException {
+        try {
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (open && sim.isRunning()) {
+                int b0 = in.read();
+                if (b0 < 0) return;
+                int b1 = read();
+                int opcode = b0 & 0x0F;
+                long length = b1 & 0x7F;
+                if (length == 126) length = ((long) read() << 8) | read();
+                else if (length == 127) {
+                    length = 0;
+                    for (int i = 0; i < 8; i++) length = (length << 8) | read();
+                }
+                byte[] mask = (b1 & 0x80) != 0 ? in.readNBytes(4) : null;
+                byte[] payload = in.readNBytes((int) length);
+                if (payload.length < length) return;
+                if (mask != null) for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+
+                if (opcode == OP_CLOSE) {
+                    send(OP_CLOSE, payload, payload.length, true);
+                    return;
+                } else if (opcode == OP_PING) {
+                    send(OP_PONG, payload, payload.length, true);
+                } else if (opcode == OP_TEXT || opcode == OP_CONTINUATION) {
+                    message.write(payload);
+                    if ((b0 & 0x80) != 0) {
+                        onMessage(message.toString(StandardCharsets.UTF_8));
+                        message.reset();
+                    }
+                }
+            }
+        } finally {
+            open = false;
+            if (sender != null) sender.interrupt();
+        }
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Connection closed mid-frame");
+        return b;
+    }
+
+    // Kraken v2 requests: subscribe/unsubscribe to ticker, and application-level ping
+    private void onMessage(String text) throws IOException {
+        JsonNode msg = mapper.readTree(text);
+        String method = msg.path("method").asText();
+        if ("ping".equals(method)) {
+            sendText("{\"method\":\"pong\",\"req_id\":" + msg.path("req_id").asLong() + "}");
+            return;
+        }
+        boolean subscribe = "subscribe".equals(method);
+        if (!subscribe && !"unsubscribe".equals(method)) return;
+        if (!"ticker".equals(msg.path("params").path("channel").asText())) {
+            sendText("{\"method\":\"" + method + "\",\"success\":false,\"error\":\"Only the ticker channel is simulated\"}");
+            return;
+        }
+
+        List<Integer> added = new ArrayList<>();
+        synchronized (subscribed) {
+            for (JsonNode s : msg.path("params").path("symbol")) {
+                Integer id = ids.get(s.asText());
+                if (id == null) {
+                    sendText("{\"method\":\"" + method + "\",\"success\":false,\"symbol\":\"" + s.asText()
+                            + "\",\"error\":\"Currency pair not supported\"}");
+                    continue;
+                }
+                subscribed[id] = subscribe;
+                sendText("{\"method\":\"" + method + "\",\"result\":{\"channel\":\"ticker\",\"symbol\":\"" + s.asText()
+                        + "\"},\"success\":true}");
+                if (subscribe) added.add(id);
+            }
+            int[] next = new int[subscribed.length];
+            int n = 0;
+            for (int id = 0; id < subscribed.length; id++) if (subscribed[id]) next[n++] = id;
+            active = Arrays.copyOf(next, n);
+        }
+        if (subscribe) {
+            // One snapshot per pair, as Kraken does, so 2,000 pairs never make a frame larger than the client buffer
+            for (int id : added) {
+                StringBuilder snapshot = new StringBuilder("{\"channel\":\"ticker\",\"type\":\"snapshot\",\"data\":[");
+                appendTicker(snapshot, id, prices[id]);
+                sendText(snapshot.append("]}").toString());
+            }
+            startSender();
+        }
+    }
+
+    private void startSender() {
+        if (sender != null) return;
+        sender = new Thread(() -> {
+            try {
+                if (sim.options().traffic() == FeedSimulator.Traffic.REPLAY) replay();
+                else stream();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                open = false; // client went away
+            } catch (Exception e) {
+                System.err.println("[ERROR] Simulated feed failed: " + e.getMessage());
+            }
+        }, "sim-feed-" + Thread.currentThread().getName());
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    // STEADY and BURSTY: a random walk over the subscribed pairs, paced in 100us slices
+    private void stream() throws IOException {
+        int rate = sim.options().ticksPerSecond();
+        boolean bursty = sim.options().traffic() == FeedSimulator.Traffic.BURSTY;
+        long start = System.nanoTime();
+        long sent = 0;
+        long nextHeartbeat = start + SECOND;
+        int cursor = 0;
+        while (open && sim.isRunning()) {
+            long now = System.nanoTime();
+            long elapsed = now - start;
+            long due = (bursty ? burstTarget(elapsed, rate) : (long) ((double) elapsed * rate / SECOND)) - sent;
+            int[] ids = active;
+            if (now >= nextHeartbeat) {
+                sendText("{\"channel\":\"heartbeat\"}");
+                nextHeartbeat += SECOND;
+            }
+            if (due <= 0 || ids.length == 0) {
+                LockSupport.parkNanos(SLICE_NANOS);
+                continue;
+            }
+            int batch = (int) Math.min(due, MAX_BATCH);
+            synchronized (out) {
+                for (int i = 0; i < batch; i++) {
+                    int id = ids[cursor++ % ids.length];
+                    long move = Math.round(prices[id] * 0.0005 * random.nextGaussian());
+                    prices[id] = Math.max(1, prices[id] + move);
+                    writeTicker(id, prices[id]);
+                }
+                out.flush();
+            }
+            sent += batch;
+            sim.countSent(batch);
+        }
+    }
+
+    // Every second's ticks go out in its first 200ms
+    private static long burstTarget(long elapsed, long rate) {
+        long seconds = elapsed / SECOND;
+        long within = Math.min(elapsed % SECOND, BURST_NANOS);
+        return seconds * rate + within * rate / BURST_NANOS;
+    }
+
+    private void replay() throws IOException, InterruptedException {
+        long scaleDown = 1;
+        for (int i = PRICE_SCALE; i < PriceTable.SCALE; i++) scaleDown *= 10;
+        long divisor = scaleDown;
+        try {
+            new TickReplayer(sim.options().replayDir()).replay((id, price, timestamp) -> {
+                if (!open || !subscribed[id]) return;
+                try {
+                    synchronized (out) {
+                        writeTicker(id, price / divisor);
+                        out.flush();
+                    }
+                    sim.countSent(1);
+                } catch (IOException e) {
+                    open = false;
+                    throw new IllegalStateException(e);
+                }
+            }, sim.options().replaySpeed());
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    // ---------------------------------------------------------------- framing
+
+    private void appendTicker(StringBuilder sb, int id, long last) {
+        long spread = Math.max(1, last / 10_000);
+        sb.append("{\"symbol\":\"").append(bases.get(id)).append("/USD\",\"bid\":");
+        appendPrice(sb, last - spread);
+        sb.append(",\"bid_qty\":1.5,\"ask\":");
+        appendPrice(sb, last + spread);
+        sb.append(",\"ask_qty\":2.0,\"last\":");
+        appendPrice(sb, last);
+        sb.append(",\"volume\":1234.5,\"vwap\":");
+        appendPrice(sb, last);
+        sb.append(",\"low\":");
+        appendPrice(sb, last - 50 * spread);
+        sb.append(",\"high\":");
+        appendPrice(sb, last + 50 * spread);
+        sb.append(",\"change\":0.0,\"change_pct\":0.0}");
+    }
+
+    private static void appendPrice(StringBuilder sb, long fixed) {
+        sb.append(fixed / 10_000).append('.');
+        long frac = fixed % 10_000;
+        for (long d = 1_000; d > frac && d > 1; d /= 10) sb.append('0');
+        sb.append(frac);
+    }
+
+    private void writeTicker(int id, long last) throws IOException {
+        json.setLength(0);
+        json.append("{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[");
+        appendTicker(json, id, last);
+        json.append("]}");
+        int n = json.length();
+        if (frame.length < n) frame = new byte[n * 2];
+        for (int i = 0; i < n; i++) frame[i] = (byte) json.charAt(i); // ASCII only
+        send(OP_TEXT, frame, n, false);
+    }
+
+    private void sendText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        send(OP_TEXT, bytes, bytes.length, true);
+    }
+
+    // Server frames are never masked
+    private void send(int opcode, byte[] payload, int length, boolean flush) throws IOException {
+        synchronized (out) {
+            out.write(0x80 | opcode);
+            if (length < 126) {
+                out.write(length);
+            } else if (length < 65_536) {
+                out.write(126);
+                out.write(length >>> 8);
+                out.write(length & 0xFF);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) out.write((int) ((long) length >>> shift) & 0xFF);
+            }
+            out.write(payload, 0, length);
+            if (flush) out.flush();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.example.crypto.sim;
+
+import org.example.crypto.price.journal.TickReplayer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for everything {@code KrakenPriceService} talks to, so the service can start and be
+ * load-tested without internet access. One loopback port serves:
+ * <ul>
+ *   <li>{@code GET /api/v3/coins/markets} - CoinGecko's market-cap ranking of the simulated coins</li>
+ *   <li>{@code GET /0/public/AssetPairs} - Kraken's pair list, a USD pair per coin</li>
+ *   <li>{@code /v2} - a Kraken v2 WebSocket that acknowledges {@code ticker} subscriptions and then
+ *       streams ticker updates for the subscribed pairs, steadily, in bursts, or replayed from a
+ *       tick journal</li>
+ * </ul>
+ * Point {@code coingecko.url}, {@code kraken.rest.url} and {@code kraken.ws.url} at
+ * {@link #coingeckoUrl()}, {@link #restUrl()} and {@link #wsUrl()}. Runs standalone through {@link #main}.
+ */
+public class FeedSimulator implements AutoCloseable {
+
+    public enum Traffic {
+        /** Ticks evenly spread over each second. */
+        STEADY,
+        /** Each second's ticks sent in its first 200ms, at five times the average rate. */
+        BURSTY,
+        /** Ticks of a recorded tick journal, at {@code replaySpeed} times their recorded pace. */
+        REPLAY
+    }
+
+    /**
+     * @param symbols        pairs offered (ignored for REPLAY, which offers the journal's pairs)
+     * @param ticksPerSecond average ticker updates per second per connection (STEADY and BURSTY)
+     */
+    public record Options(int symbols, int ticksPerSecond, Traffic traffic, Path replayDir, double replaySpeed, long seed) {
+        public Options {
+            if (traffic == null) throw new IllegalArgumentException("Traffic is required.");
+            if (traffic == Traffic.REPLAY) {
+                if (replayDir == null) throw new IllegalArgumentException("REPLAY traffic needs a journal directory.");
+                if (replaySpeed < 0) throw new IllegalArgumentException("Replay speed cannot be negative.");
+            } else {
+                if (symbols < 1 || symbols > 10_000) throw new IllegalArgumentException("Symbols must be between 1 and 10000.");
+                if (ticksPerSecond < 0 || ticksPerSecond > 1_000_000) {
+                    throw new IllegalArgumentException("Ticks per second must be between 0 and 1000000.");
+                }
+            }
+        }
+
+        public static Options steady(int symbols, int ticksPerSecond) {
+            return new Options(symbols, ticksPerSecond, Traffic.STEADY, null, 1, 42);
+        }
+    }
+
+    // Real pairs first, so small universes look like the live one
+    private static final String[] MAJORS = {"XBT", "ETH", "SOL", "XRP", "ADA", "DOGE", "TRX", "DOT", "LINK", "AVAX",
+            "LTC", "BCH", "XLM", "UNI", "ATOM", "ETC", "FIL", "AAVE", "ALGO", "NEAR"};
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final Options options;
+    private final List<String> bases;       // Kraken base asset of each simulated pair
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /** Starts listening on the loopback interface; port 0 picks a free one. */
+    public FeedSimulator(int port, Options options) throws IOException {
+        this.options = options;
+        this.bases = options.traffic() == Traffic.REPLAY ? journalBases(options.replayDir()) : syntheticBases(options.symbols());
+        this.server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "sim-accept");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public String restUrl() {
+        return "http://127.0.0.1:" + port();
+    }
+
+    public String coingeckoUrl() {
+        return restUrl() + "/api/v3";
+    }
+
+    public String wsUrl() {
+        return "ws://127.0.0.1:" + port() + "/v2";
+    }
+
+    /** Pair names offered, e.g. {@code XBT/USD}. */
+    public List<String> symbols() {
+        return bases.stream().map(base -> base + "/USD").toList();
+    }
+
+    /** Ticker updates sent so far over all connections. */
+    public long sent() {
+        return sent.get();
+    }
+
+    Options options() {
+        return options;
+    }
+
+    void countSent(long n) {
+        sent.addAndGet(n);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /** Cuts every open connection, as a network failure would, while continuing to accept new ones. */
+    public void dropConnections() {
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+        dropConnections();
+    }
+
+    // ---------------------------------------------------------------- HTTP
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                Thread t = new Thread(() -> serve(socket), "sim-conn-" + connections.incrementAndGet());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (running) System.err.println("[ERROR] Simulator accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            Map<String, String> headers = new HashMap<>();
+            String[] request = readRequest(in, headers);
+            if (request == null) return;
+
+            int q = request[1].indexOf('?');
+            String path = q < 0 ? request[1] : request[1].substring(0, q);
+            Map<String, String> query = q < 0 ? Map.of() : parseQuery(request[1].substring(q + 1));
+
+            if ("websocket".equalsIgnoreCase(headers.get("upgrade")) && path.equals("/v2")) {
+                handshake(out, headers.get("sec-websocket-key"));
+                new FeedSession(this, bases, in, out).run();
+            } else if (path.equals("/api/v3/coins/markets")) {
+                respond(out, 200, markets(query));
+            } else if (path.equals("/0/public/AssetPairs")) {
+                respond(out, 200, assetPairs());
+            } else {
+                respond(out, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("[ERROR] Simulator connection failed: " + e.getMessage());
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    // CoinGecko ranks the coins in universe order; BTC is XBT on Kraken
+    private String markets(Map<String, String> query) {
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "100"));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        StringBuilder json = new StringBuilder("[");
+        int from = Math.max(0, (page - 1) * perPage);
+        for (int i = from; i < Math.min(bases.size(), from + perPage); i++) {
+            String symbol = bases.get(i).equals("XBT") ? "btc" : bases.get(i).toLowerCase(Locale.ROOT);
+            if (json.length() > 1) json.append(',');
+            json.append("{\"id\":\"").append(symbol).append("\",\"symbol\":\"").append(symbol)
+                    .append("\",\"market_cap_rank\":").append(i + 1).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private String assetPairs() {
+        StringBuilder json = new StringBuilder("{\"error\":[],\"result\":{");
+        for (int i = 0; i < bases.size(); i++) {
+            String base = bases.get(i);
+            if (i > 0) json.append(',');
+            json.append('"').append(base).append("USD\":{\"altname\":\"").append(base).append("USD\",\"wsname\":\"")
+                    .append(base).append("/USD\",\"base\":\"").append(base).append("\",\"quote\":\"ZUSD\"}");
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void respond(OutputStream out, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + (status == 200 ? " OK" : " Not Found") + "\r\n"
+                + "Content-Type: application/json\r\nContent-Length: " + bytes.length + "\r\nConnection: close\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static void handshake(OutputStream out, String key) throws IOException {
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WS_GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String head = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    // Returns {method, target} and fills lower-cased headers, or null if the peer went away
+    private static String[] readRequest(InputStream in, Map<String, String> headers) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null || requestLine.isEmpty()) return null;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        String[] parts = requestLine.split(" ");
+        return parts.length < 2 ? null : new String[]{parts[0], parts[1]};
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') line.write(b);
+        }
+        return b < 0 && line.size() == 0 ? null : line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // ---------------------------------------------------------------- universe
+
+    private static List<String> syntheticBases(int n) {
+        List<String> bases = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) bases.add(i < MAJORS.length ? MAJORS[i] : String.format("S%04d", i));
+        return bases;
+    }
+
+    private static List<String> journalBases(Path dir) throws IOException {
+        List<String> bases = new ArrayList<>();
+        for (String symbol : new TickReplayer(dir).symbols()) {
+            if (!symbol.endsWith("/USD")) throw new IllegalArgumentException("Only USD pairs can be replayed: " + symbol);
+            bases.add(symbol.substring(0, symbol.length() - 4));
+        }
+        return bases;
+    }
+
+    /**
+     * {@code --port=9000 --symbols=200 --rate=50000 --traffic=STEADY|BURSTY|REPLAY --replay=<journal dir>
+     * --speed=1 --seed=42}
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Unexpected argument " + arg);
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String replay = opts.get("replay");
+        Options options = new Options(
+                Integer.parseInt(opts.getOrDefault("symbols", "20")),
+                Integer.parseInt(opts.getOrDefault("rate", "1000")),
+                Traffic.valueOf(opts.getOrDefault("traffic", replay == null ? "STEADY" : "REPLAY")),
+                replay == null ? null : Path.of(replay),
+                Double.parseDouble(opts.getOrDefault("speed", "1")),
+                Long.parseLong(opts.getOrDefault("seed", "42")));
+        FeedSimulator sim = new FeedSimulator(Integer.parseInt(opts.getOrDefault("port", "9000")), options);
+        System.out.println("[INFO] Feed simulator serving " + sim.symbols().size() + " pairs. Start the app with:");
+        System.out.println("  --coingecko.url=" + sim.coingeckoUrl() + " --kraken.rest.url=" + sim.restUrl()
+                + " --kraken.ws.url=" + sim.wsUrl() + " --prices.top-n=" + sim.symbols().size());
+        sim.acceptor.join();
+    }
+}
@@ -1 +1 @@
-MERGE INTO account (id, balance) KEY(id) VALUES (1, 10000.00);
\ No newline at end of file
+INSERT INTO account (id, balance) SELECT 1, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM account WHERE id = 1);
@@ -1,19 +1,60 @@
+-- Portable between H2 and PostgreSQL: no AUTO_INCREMENT, no vendor upserts, no reserved column names
+
 CREATE TABLE IF NOT EXISTS account (
     id      INT PRIMARY KEY,
     balance NUMERIC(18,2) NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS holdings (
-    symbol     VARCHAR(10) PRIMARY KEY,
-    quantity   NUMERIC(18,8) NOT NULL
+    account_id INT NOT NULL,
+    symbol     VARCHAR(10) NOT NULL,
+    quantity   NUMERIC(18,8) NOT NULL,
+    cost_basis NUMERIC(24,8),         -- total cost of the quantity held; NULL until migrated
+    PRIMARY KEY (account_id, symbol)
+);
+ALTER TABLE holdings ADD COLUMN IF NOT EXISTS cost_basis NUMERIC(24,8);
+
+-- Open purchase lots per account/symbol (FIFO/LIFO cost basis), oldest id first
+CREATE TABLE IF NOT EXISTS holding_lots (
+    id         BIGINT PRIMARY KEY,
+    account_id INT NOT NULL,
+    symbol     VARCHAR(10) NOT NULL,
+    quantity   NUMERIC(18,8) NOT NULL,
+    price      NUMERIC(24,10) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ledger_settings (
+    name       VARCHAR(64) PRIMARY KEY,
+    setting    VARCHAR(64) NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS transactions (
-    id         INT AUTO_INCREMENT PRIMARY KEY,
+    id         BIGINT PRIMARY KEY,    -- assigned by the ledger, see LedgerIds
+    account_id INT NOT NULL,
     symbol     VARCHAR(10) NOT NULL,
     quantity   NUMERIC(18,8) NOT NULL,
     price      NUMERIC(18,2) NOT NULL,
     type       VARCHAR(4) NOT NULL,   -- 'BUY' or 'SELL'
     pl         NUMERIC(18,2),         -- NULL for BUY, actual P/L for SELL
-    timestamp  TIMESTAMP NOT NULL
+    traded_at  TIMESTAMP NOT NULL
+);
+
+-- History is read newest first per account, optionally per symbol; id breaks traded_at ties
+CREATE INDEX IF NOT EXISTS idx_tx_account_time ON transactions(account_id, traded_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_tx_account_symbol_time ON transactions(account_id, symbol, traded_at DESC, id DESC);
+
+-- Resting limit / stop-loss / take-profit orders; OPEN ones are reloaded into the trigger books on start
+CREATE TABLE IF NOT EXISTS orders (
+    id            BIGINT PRIMARY KEY,
+    account_id    INT NOT NULL,
+    type          VARCHAR(12) NOT NULL,  -- 'LIMIT', 'STOP_LOSS' or 'TAKE_PROFIT'
+    side          VARCHAR(4) NOT NULL,   -- 'BUY' or 'SELL'
+    symbol        VARCHAR(10) NOT NULL,
+    quantity      NUMERIC(18,8) NOT NULL,
+    trigger_price NUMERIC(24,10) NOT NULL,
+    status        VARCHAR(10) NOT NULL,  -- 'OPEN', 'FILLED', 'REJECTED' or 'CANCELLED'
+    fill_price    NUMERIC(24,10),
+    message       VARCHAR(255),
+    created_at    TIMESTAMP NOT NULL
 );
+CREATE INDEX IF NOT EXISTS idx_orders_account ON orders(account_id, id);
@@ -0,0 +1,107 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trades per second from eight threads spread round robin over 1 or 8 accounts. The SYNC journal is
+ * made to take 1ms per write, as a database round trip would, so with one account the threads queue on
+ * its lock and with eight they should approach eight times the single-account rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountScalingBenchmark {
+
+    private static final BuySellRequest ORDER = new BuySellRequest("ETH/USD", new BigDecimal("0.01"));
+
+    @Param({"1", "8"})
+    public int accounts;
+
+    private EmbeddedDatabase db;
+    private AccountService service;
+    private long[] ids;
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Trader {
+        long accountId;
+
+        @Setup
+        public void pick(AccountScalingBenchmark bench) {
+            accountId = bench.ids[bench.nextThread.getAndIncrement() % bench.ids.length];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+
+        LedgerJournal journal = new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1, 1) {
+            @Override
+            public long append(LedgerEntry entry) {
+                long seq = super.append(entry);
+                LockSupport.parkNanos(1_000_000);
+                return seq;
+            }
+        };
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":100}]}");
+        service = new AccountService(jdbc, prices, journal, new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        service.init();
+
+        ids = new long[accounts];
+        for (int i = 0; i < accounts; i++) ids[i] = service.createAccount(new BigDecimal("1000000")).id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public AccountDTO buyThenSell(Trader trader) {
+        service.buy(trader.accountId, ORDER);
+        return service.sell(trader.accountId, ORDER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AccountScalingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
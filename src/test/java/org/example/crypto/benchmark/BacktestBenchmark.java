@@ -0,0 +1,79 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.backtest.Backtest;
+import org.example.crypto.backtest.BacktestResult;
+import org.example.crypto.backtest.BacktestService;
+import org.example.crypto.backtest.RandomWalkPriceSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated trades per second: {@link #RUNS} independent backtests of {@link #TICKS} random-walk ticks
+ * each, with a strategy that alternately buys and sells on every tick, run one after another vs in
+ * parallel on {@link BacktestService}'s pool (one thread per core).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BacktestBenchmark {
+
+    static final int RUNS = 16;
+    static final int TICKS = 50_000;
+    private static final BigDecimal QUANTITY = new BigDecimal("0.01");
+
+    private BacktestService service;
+    private List<Backtest> runs;
+
+    @Setup
+    public void setUp() {
+        service = new BacktestService(0, "data");
+        runs = new ArrayList<>();
+        for (long seed = 1; seed <= RUNS; seed++) {
+            runs.add(new Backtest("seed-" + seed, new RandomWalkPriceSource(List.of("XBT/USD", "ETH/USD"), seed, TICKS),
+                    () -> (ctx, id, price) -> {
+                        if (ctx.holding(id).signum() == 0) ctx.buy(id, QUANTITY);
+                        else ctx.sell(id, QUANTITY);
+                    }, new BigDecimal("1000000.00"), CostBasisMethod.FIFO));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUNS * TICKS)
+    public long sequential() {
+        long trades = 0;
+        for (Backtest run : runs) trades += run.run().trades();
+        return trades;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUNS * TICKS)
+    public long parallel() {
+        long trades = 0;
+        for (BacktestResult result : service.runAll(runs)) trades += result.trades();
+        return trades;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BacktestBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.crypto.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.HoldingDTO;
+import org.example.crypto.account.dto.TransactionDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON bytes for {@code GET /api/account} and {@code GET /api/transactions} bodies, with the mapper
+ * configured the way Spring Boot configures the one its message converters use.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    public int size;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private AccountDTO account;
+    private List<TransactionDTO> transactions;
+
+    @Setup
+    public void setUp() {
+        List<HoldingDTO> holdings = new ArrayList<>();
+        for (int i = 0; i < Math.min(size, PriceReadBenchmark.PAIRS.length); i++) {
+            holdings.add(new HoldingDTO(PriceReadBenchmark.PAIRS[i], new BigDecimal("1.23456789"), new BigDecimal("2912.41")));
+        }
+        account = new AccountDTO(new BigDecimal("8765.43"), holdings);
+
+        transactions = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 14, 9, 0);
+        for (int i = 0; i < size; i++) {
+            boolean buy = i % 2 == 0;
+            transactions.add(new TransactionDTO(i + 1, PriceReadBenchmark.PAIRS[i % PriceReadBenchmark.PAIRS.length],
+                    new BigDecimal("0.01"), new BigDecimal("2912.41"), buy ? "BUY" : "SELL", start.plusSeconds(i),
+                    buy ? null : new BigDecimal("1.25")));
+        }
+    }
+
+    @Benchmark
+    public byte[] account() throws Exception {
+        return mapper.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public byte[] transactions() throws Exception {
+        return mapper.writeValueAsBytes(transactions);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DtoSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
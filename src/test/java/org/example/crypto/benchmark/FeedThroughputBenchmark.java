@@ -0,0 +1,92 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.TradingSimApplication;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.ring.TickConsumer;
+import org.example.crypto.sim.FeedSimulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ticks per second delivered end to end through the real wiring - {@code WebSocketConfig}'s client,
+ * {@code KrakenPriceService}'s parser, price table and tick ring - to a tick listener, fed by a local
+ * {@link FeedSimulator} at up to 100k msg/s. Each invocation waits for the next {@link #BATCH} ticks;
+ * SampleTime mode reports the percentiles of that wait, i.e. how evenly ticks arrive under bursts.
+ * REPLAY needs {@code -Dbench.replay=<journal dir>}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedThroughputBenchmark {
+
+    static final int BATCH = 1_000;
+
+    @Param({"20", "2000"})
+    public int symbols;
+
+    @Param({"10000", "100000"})
+    public int rate;
+
+    @Param({"STEADY", "BURSTY"})
+    public FeedSimulator.Traffic traffic;
+
+    private FeedSimulator sim;
+    private ConfigurableApplicationContext app;
+    private TickConsumer consumer;
+    private final AtomicLong received = new AtomicLong();
+    private long waitedFor;
+
+    @Setup
+    public void start() throws Exception {
+        String replay = System.getProperty("bench.replay");
+        sim = new FeedSimulator(0, new FeedSimulator.Options(symbols, rate, traffic,
+                replay == null ? null : Path.of(replay), 1, 42));
+        app = new SpringApplication(TradingSimApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--coingecko.url=" + sim.coingeckoUrl(),
+                "--kraken.rest.url=" + sim.restUrl(),
+                "--kraken.ws.url=" + sim.wsUrl(),
+                "--prices.top-n=" + sim.symbols().size(),
+                "--prices.universe.cache-file=");
+        consumer = app.getBean(KrakenPriceService.class)
+                .addTickListener("benchmark", (id, price, timestamp) -> received.lazySet(received.get() + 1));
+        waitedFor = received.get();
+    }
+
+    @TearDown
+    public void stop() {
+        app.getBean(KrakenPriceService.class).removeTickListener(consumer);
+        app.close();
+        sim.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long ticks() {
+        waitedFor += BATCH;
+        while (received.get() < waitedFor) LockSupport.parkNanos(10_000);
+        return waitedFor;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FeedThroughputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.TradingSimApplication;
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second through {@code POST /api/buy}/{@code /api/sell} one at a time vs the same orders
+ * sent as one {@code POST /api/orders/batch}, end to end over HTTP against the in-memory H2 app.
+ * Each invocation submits {@link #ORDERS} alternating buy/sell orders, so the balance stays level.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderBatchBenchmark {
+
+    static final int ORDERS = 500;
+    private static final String BUY = "{\"symbol\":\"ETH/USD\",\"quantity\":0.01}";
+
+    private ConfigurableApplicationContext app;
+    private HttpClient http;
+    private String base;
+    private String batch;
+
+    @Setup
+    public void startApp() {
+        app = new SpringApplication(TradingSimApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--ledger.durability=GROUP_COMMIT",
+                "--trading.rate-limit.enabled=false");
+        app.getBean(KrakenPriceService.class)
+                .parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        base = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort() + "/api";
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        StringBuilder orders = new StringBuilder("{\"orders\":[");
+        for (int i = 0; i < ORDERS; i++) {
+            if (i > 0) orders.append(',');
+            orders.append("{\"side\":\"").append(i % 2 == 0 ? "BUY" : "SELL").append("\",\"symbol\":\"ETH/USD\",\"quantity\":0.01}");
+        }
+        batch = orders.append("]}").toString();
+    }
+
+    @TearDown
+    public void stopApp() {
+        app.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int singleTrades() throws IOException, InterruptedException {
+        int status = 0;
+        for (int i = 0; i < ORDERS; i++) status += post(i % 2 == 0 ? "/buy" : "/sell", BUY);
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int batch() throws IOException, InterruptedException {
+        return post("/orders/batch", batch);
+    }
+
+    private int post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) throw new IllegalStateException(path + " -> " + response.body());
+        return response.statusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderBatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.crypto.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.TransactionQuery;
+import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.dto.TransactionPageDTO;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trades and a history page read per persistence backend, each behind a Hikari pool configured as in
+ * the matching Spring profile: in-memory H2 (the default), file-backed H2 ({@code h2file}) and an
+ * embedded PostgreSQL server ({@code postgres}). Journal writes are synchronous so every trade pays
+ * the backend's full write cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    private static final BuySellRequest ORDER = new BuySellRequest("ETH/USD", new BigDecimal("0.01"));
+    private static final TransactionQuery PAGE = new TransactionQuery(null, null, null, null, null, 50);
+
+    @Param({"h2mem", "h2file", "postgres"})
+    public String backend;
+
+    private Path dir;
+    private EmbeddedPostgres postgres;
+    private HikariDataSource db;
+    private LedgerJournal journal;
+    private AccountService accounts;
+
+    @Setup
+    public void setUp() throws IOException {
+        db = new HikariDataSource();
+        db.setMaximumPoolSize(4);
+        switch (backend) {
+            case "h2mem" -> db.setJdbcUrl("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+            case "h2file" -> {
+                dir = Files.createTempDirectory("persistence-bench");
+                db.setJdbcUrl("jdbc:h2:file:" + dir.resolve("bench") + ";QUERY_CACHE_SIZE=64");
+            }
+            case "postgres" -> {
+                postgres = EmbeddedPostgres.start();
+                db.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+                db.addDataSourceProperty("prepareThreshold", 1);
+                db.addDataSourceProperty("preparedStatementCacheQueries", 256);
+                db.addDataSourceProperty("reWriteBatchedInserts", true);
+            }
+            default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql")).execute(db);
+
+        JdbcTemplate jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        journal = new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1000, 100_000);
+        journal.start();
+        accounts = new AccountService(jdbc, prices, journal, new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        accounts.init();
+        for (int i = 0; i < 100; i++) buyThenSell(); // history for the page reads
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.stop();
+        db.close();
+        if (postgres != null) postgres.close();
+        if (dir != null) FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public AccountDTO buyThenSell() {
+        accounts.buy(ORDER);
+        return accounts.sell(ORDER);
+    }
+
+    @Benchmark
+    public TransactionPageDTO historyPage() {
+        return accounts.getTransactions(1L, PAGE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PersistenceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
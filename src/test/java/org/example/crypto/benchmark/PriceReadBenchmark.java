@@ -0,0 +1,90 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KrakenPriceService#getPrice} and {@link KrakenPriceService#getCurrentPrices} with three
+ * concurrent readers while one thread applies ticker frames through {@code parseMessage}, so reads
+ * race real seqlock writes. 20 pairs, as subscribed live.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class PriceReadBenchmark {
+
+    static final String[] PAIRS = {"XBT/USD", "ETH/USD", "SOL/USD", "XRP/USD", "ADA/USD", "DOGE/USD", "TRX/USD",
+            "DOT/USD", "LINK/USD", "AVAX/USD", "LTC/USD", "BCH/USD", "XLM/USD", "UNI/USD", "ATOM/USD", "ETC/USD",
+            "FIL/USD", "AAVE/USD", "ALGO/USD", "NEAR/USD"};
+
+    private KrakenPriceService service;
+    private String[] frames;
+
+    @Setup
+    public void setUp() {
+        service = new KrakenPriceService(null);
+        frames = new String[PAIRS.length];
+        for (int i = 0; i < PAIRS.length; i++) {
+            frames[i] = "{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + PAIRS[i]
+                    + "\",\"bid\":99.9,\"ask\":100.1,\"last\":" + (100 + i) + ".25}]}";
+            service.parseMessage(frames[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            int i = next;
+            next = (i + 1) % PAIRS.length;
+            return i;
+        }
+    }
+
+    @Benchmark
+    @Group("getPrice")
+    @GroupThreads(3)
+    public BigDecimal getPrice(Cursor cursor) {
+        return service.getPrice(PAIRS[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Group("getPrice")
+    @GroupThreads(1)
+    public void getPriceWriter(Cursor cursor) {
+        service.parseMessage(frames[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Group("getCurrentPrices")
+    @GroupThreads(3)
+    public Map<String, BigDecimal> getCurrentPrices() {
+        return service.getCurrentPrices();
+    }
+
+    @Benchmark
+    @Group("getCurrentPrices")
+    @GroupThreads(1)
+    public void getCurrentPricesWriter(Cursor cursor) {
+        service.parseMessage(frames[cursor.advance()]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PriceReadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
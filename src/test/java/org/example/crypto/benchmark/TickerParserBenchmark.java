@@ -0,0 +1,99 @@
+package org.example.crypto.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.TickerParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming {@link TickerParser} vs the previous tree-based parsing, over recorded Kraken v2 frames
+ * (ticker snapshots/updates, batched updates, heartbeats, status and subscribe acks).
+ * Run with {@code -prof gc} to compare allocation per frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TickerParserBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TickerParser streaming = new TickerParser(mapper, new PriceTable(64));
+    private final KrakenPriceService service = new KrakenPriceService(null);
+
+    private String[] frames;
+    private int next;
+
+    @Setup
+    public void loadFrames() throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                TickerParserBenchmark.class.getResourceAsStream("/benchmark/kraken-ticker-frames.jsonl"),
+                StandardCharsets.UTF_8))) {
+            List<String> lines = in.lines().filter(l -> !l.isBlank()).toList();
+            frames = lines.toArray(new String[0]);
+        }
+    }
+
+    private String nextFrame() {
+        String frame = frames[next];
+        next = (next + 1) % frames.length;
+        return frame;
+    }
+
+    @Benchmark
+    public int streamingParser(Blackhole bh) throws IOException {
+        return streaming.parse(nextFrame(), (symbolId, quote) -> {
+            bh.consume(symbolId);
+            bh.consume(quote.last);
+            bh.consume(quote.bid);
+            bh.consume(quote.ask);
+        });
+    }
+
+    // Full service path: parser, price table and tick ring publish
+    @Benchmark
+    public void parseMessage() {
+        service.parseMessage(nextFrame());
+    }
+
+    @Benchmark
+    public int treeParser(Blackhole bh) throws IOException {
+        // Equivalent of the original KrakenPriceService.parseMessage (first data element only)
+        JsonNode root = mapper.readTree(nextFrame());
+        if (!root.has("channel") || !"ticker".equals(root.get("channel").asText())) return 0;
+
+        JsonNode dataArr = root.path("data");
+        if (!dataArr.isArray() || dataArr.isEmpty()) return 0;
+
+        JsonNode ticker = dataArr.get(0);
+        JsonNode lastNode = ticker.get("last");
+        if (lastNode != null && lastNode.isNumber()) {
+            bh.consume(ticker.get("symbol").asText());
+            bh.consume(lastNode.decimalValue());
+            return 1;
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TickerParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
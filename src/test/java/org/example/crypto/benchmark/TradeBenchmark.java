@@ -0,0 +1,84 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#buy} and {@link AccountService#sell} end to end on an embedded H2 database:
+ * validation, account lock, ledger update and the journal write for each durability mode. Buys and
+ * sells alternate so the account never runs out of cash or coin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradeBenchmark {
+
+    private static final BuySellRequest ORDER = new BuySellRequest("ETH/USD", new BigDecimal("0.01"));
+
+    @Param({"SYNC", "GROUP_COMMIT", "ASYNC"})
+    public DurabilityMode durability;
+
+    private EmbeddedDatabase db;
+    private LedgerJournal journal;
+    private AccountService accounts;
+
+    @Setup
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        journal = new LedgerJournal(jdbc, txManager, durability, 1000, 100_000);
+        journal.start();
+        accounts = new AccountService(jdbc, prices, journal, new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        accounts.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.stop();
+        db.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public AccountDTO buyThenSell() {
+        accounts.buy(ORDER);
+        return accounts.sell(ORDER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TradeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
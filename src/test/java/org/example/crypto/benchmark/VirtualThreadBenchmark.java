@@ -0,0 +1,109 @@
+package org.example.crypto.benchmark;
+
+import org.example.crypto.TradingSimApplication;
+import org.example.crypto.price.KrakenPriceService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursty client load against the platform-thread vs the virtual-thread request mode: {@code @Threads}
+ * concurrent clients, more than Tomcat's 200 platform workers, each posting buy/sell over HTTP with
+ * group-commit durability, so every request blocks until its batch reaches H2. SampleTime reports
+ * latency percentiles (compare p0.99); Throughput reports completed trades per second.
+ * <p>
+ * Clients use their own connections, so Tomcat - not the client - decides how many run at once.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(512)
+@Fork(value = 1, jvmArgs = {"-Djdk.httpclient.connectionPoolSize=1024"})
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    private static final String ORDER = "{\"symbol\":\"ETH/USD\",\"quantity\":0.001}";
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext app;
+    private HttpClient http;
+    private URI buy;
+    private URI sell;
+
+    @Setup
+    public void startApp() {
+        app = new SpringApplication(TradingSimApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--ledger.durability=GROUP_COMMIT",
+                "--trading.rate-limit.enabled=false",
+                "--server.tomcat.max-connections=4096",
+                "--server.tomcat.accept-count=4096",
+                "--prices.universe.cache-file=",
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+        app.getBean(KrakenPriceService.class)
+                .parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        String base = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort() + "/api";
+        buy = URI.create(base + "/buy");
+        sell = URI.create(base + "/sell");
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @TearDown
+    public void stopApp() {
+        app.close();
+    }
+
+    // Every client buys before it sells, and 512 open buys of $2 fit the $10,000 starting balance
+    @State(Scope.Thread)
+    public static class Side {
+        boolean buying;
+    }
+
+    @Benchmark
+    public int trade(Side side) {
+        side.buying = !side.buying;
+        return post(side.buying ? buy : sell);
+    }
+
+    private int post(URI uri) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                    .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) throw new IllegalStateException(uri + " -> " + response.body());
+            return response.statusCode();
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(VirtualThreadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.crypto.integration;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Trades on different accounts must not serialize on each other, while trades on one account must.
+ * The journal can be made to stall on one account's write, which it does while holding that account's
+ * lock, to show which other trades still get through. Throughput scaling is measured by
+ * {@code AccountScalingBenchmark}, not here, since wall-clock rates depend on the machine.
+ */
+class AccountConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRADES_PER_THREAD = 100;
+    private static final BigDecimal QTY = new BigDecimal("0.01");
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private AccountService service;
+    private ExecutorService pool;
+    private volatile long stalledAccount = -1;
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+
+        LedgerJournal journal = new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1, 1) {
+            @Override
+            public long append(LedgerEntry entry) {
+                if (entry.accountId() == stalledAccount) {
+                    stalled.countDown();
+                    await(release);
+                }
+                return super.append(entry);
+            }
+        };
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":100}]}");
+
+        service = new AccountService(jdbc, prices, journal, new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        service.init();
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+        db.shutdown();
+    }
+
+    @Test
+    void testOtherAccountsTradeWhileOneAccountIsHeld() throws Exception {
+        long held = service.createAccount(new BigDecimal("10000")).id();
+        List<Long> others = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) others.add(service.createAccount(new BigDecimal("10000")).id());
+
+        stalledAccount = held;
+        Future<?> first = pool.submit(() -> service.buy(held, new BuySellRequest("ETH/USD", QTY)));
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+        // The held account's lock is taken: a second trade on it waits, trades on other accounts finish
+        Future<?> second = pool.submit(() -> service.buy(held, new BuySellRequest("ETH/USD", QTY)));
+        List<Future<?>> parallel = new ArrayList<>();
+        for (long id : others) parallel.add(pool.submit(() -> service.buy(id, new BuySellRequest("ETH/USD", QTY))));
+        for (Future<?> f : parallel) f.get(5, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+
+        stalledAccount = -1;
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id=?", Integer.class, held));
+    }
+
+    @Test
+    void testConcurrentTradesOnOneAccountStayConsistent() throws Exception {
+        long id = service.createAccount(new BigDecimal("10000")).id();
+
+        run(List.of(id));
+
+        int trades = THREADS * TRADES_PER_THREAD;
+        BigDecimal spent = new BigDecimal("100").multiply(QTY).multiply(BigDecimal.valueOf(trades));
+        assertEquals(0, new BigDecimal("10000").subtract(spent).compareTo(service.getAccount(id).balance()));
+        assertEquals(trades, jdbc.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id=?", Integer.class, id));
+        assertEquals(0, service.getAccount(id).balance().compareTo(
+                jdbc.queryForObject("SELECT balance FROM account WHERE id=?", BigDecimal.class, id)));
+    }
+
+    private long run(List<Long> ids) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long id = ids.get(t % ids.size());
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRADES_PER_THREAD; i++) service.buy(id, new BuySellRequest("ETH/USD", QTY));
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        return System.nanoTime() - begin;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,27 +3,50 @@ package org.example.crypto.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.crypto.account.AccountController;
 import org.example.crypto.account.AccountService;
+import org.example.crypto.account.TransactionQuery;
+import org.example.crypto.account.UnknownAccountException;
+import org.example.crypto.account.dto.AccountCreatedDTO;
 import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BatchOrderRequest;
+import org.example.crypto.account.dto.BatchOrderResultDTO;
 import org.example.crypto.account.dto.BuySellRequest;
 import org.example.crypto.account.dto.HoldingDTO;
+import org.example.crypto.account.dto.OrderRequest;
+import org.example.crypto.account.dto.OrderResultDTO;
 import org.example.crypto.account.dto.TransactionDTO;
+import org.example.crypto.account.dto.TransactionPageDTO;
+import org.example.crypto.account.ledger.LedgerWriteException;
+import org.example.crypto.admission.IdempotencyCache;
+import org.example.crypto.common.ResponseCache;
 import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AccountController.class)
+@Import({ResponseCache.class, IdempotencyCache.class})
+@TestPropertySource(properties = "trading.rate-limit.key-by=ACCOUNT") // so one test exhausting a bucket cannot affect the rest
 class AccountControllerTest {
 
     @Autowired
@@ -38,6 +61,14 @@ class AccountControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.clear(); // every test stubs its own data at version 0
+    }
+
     @Test
     void testGetPrices() throws Exception {
         when(priceService.getCurrentPrices()).thenReturn(Map.of("ETH/USD", new BigDecimal("2300.00")));
@@ -50,13 +81,59 @@ class AccountControllerTest {
     @Test
     void testGetAccount() throws Exception {
         AccountDTO mockAccount = new AccountDTO(new BigDecimal("10000.00"), List.of());
-        when(accountService.getAccount()).thenReturn(mockAccount);
+        when(accountService.getAccount(1L)).thenReturn(mockAccount);
 
         mockMvc.perform(get("/api/account"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value("10000.0"));
     }
 
+    @Test
+    void testUnchangedPollReturns304() throws Exception {
+        when(priceService.getPriceVersion()).thenReturn(5L);
+        when(priceService.getCurrentPrices()).thenReturn(Map.of("ETH/USD", new BigDecimal("2300.00")));
+
+        String etag = mockMvc.perform(get("/api/prices"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/prices").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(priceService, times(1)).getCurrentPrices();
+    }
+
+    @Test
+    void testNewVersionRebuildsBody() throws Exception {
+        when(accountService.accountVersion(1L)).thenReturn(1L);
+        when(accountService.getAccount(1L)).thenReturn(new AccountDTO(new BigDecimal("10000.00"), List.of()));
+        String etag = mockMvc.perform(get("/api/account")).andReturn().getResponse().getHeader("ETag");
+
+        when(accountService.accountVersion(1L)).thenReturn(2L);
+        when(accountService.getAccount(1L)).thenReturn(new AccountDTO(new BigDecimal("9000.00"), List.of()));
+
+        mockMvc.perform(get("/api/account").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value("9000.0"));
+    }
+
+    @Test
+    void testLargeBodyIsServedGzipped() throws Exception {
+        TransactionDTO tx = new TransactionDTO(1L, "BTC/USD", BigDecimal.ONE, new BigDecimal("10000.00"),
+                "BUY", java.time.LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        when(accountService.getTransactions(eq(1L), any())).thenReturn(new TransactionPageDTO(java.util.Collections.nCopies(50, tx), "next"));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andReturn();
+
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())).readAllBytes();
+        assertEquals(50, objectMapper.readTree(new String(json, StandardCharsets.UTF_8)).size());
+    }
+
     @Test
     void testBuy() throws Exception {
         BuySellRequest request = new BuySellRequest("ETH/USD", new BigDecimal("1.5"));
@@ -104,10 +181,190 @@ class AccountControllerTest {
                 1L, "BTC/USD", new BigDecimal("1.0"), new BigDecimal("10000.00"),
                 "BUY", java.time.LocalDateTime.now(), null);
 
-        when(accountService.getTransactions()).thenReturn(List.of(tx));
+        when(accountService.getTransactions(eq(1L), any())).thenReturn(new TransactionPageDTO(List.of(tx), null));
 
         mockMvc.perform(get("/api/transactions"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].symbol").value("BTC/USD"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTransactionsPageReturnsNextCursor() throws Exception {
+        TransactionDTO tx = new TransactionDTO(
+                5L, "ETH/USD", new BigDecimal("1.0"), new BigDecimal("2000.00"),
+                "SELL", java.time.LocalDateTime.now(), BigDecimal.ONE);
+        when(accountService.getTransactions(eq(3L), any())).thenReturn(new TransactionPageDTO(List.of(tx), "abc"));
+
+        mockMvc.perform(get("/api/accounts/3/transactions")
+                        .param("type", "SELL")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "abc"))
+                .andExpect(jsonPath("$[0].id").value(5));
+
+        ArgumentCaptor<TransactionQuery> query = ArgumentCaptor.forClass(TransactionQuery.class);
+        verify(accountService).getTransactions(eq(3L), query.capture());
+        assertEquals("SELL", query.getValue().type());
+        assertEquals(java.time.LocalDateTime.of(2024, 1, 1, 0, 0), query.getValue().from());
+        assertEquals(1, query.getValue().pageSize());
+    }
+
+    @Test
+    void testInvalidTransactionFilterReturns400() throws Exception {
+        mockMvc.perform(get("/api/transactions").param("type", "HOLD"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Type must be BUY or SELL."));
+    }
+
+    @Test
+    void testExportStreamsNdjson() throws Exception {
+        TransactionDTO first = new TransactionDTO(2L, "ETH/USD", BigDecimal.ONE, new BigDecimal("2000.00"),
+                "SELL", java.time.LocalDateTime.of(2024, 1, 2, 0, 0), BigDecimal.TEN);
+        TransactionDTO second = new TransactionDTO(1L, "ETH/USD", BigDecimal.ONE, new BigDecimal("1990.00"),
+                "BUY", java.time.LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        doAnswer(inv -> {
+            Consumer<TransactionDTO> sink = inv.getArgument(2);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(accountService).exportTransactions(eq(1L), any(), any());
+
+        MvcResult started = mockMvc.perform(get("/api/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("BUY", objectMapper.readTree(lines[1]).get("type").asText());
+    }
+
+    @Test
+    void testRetriedBuyWithSameKeyIsReplayed() throws Exception {
+        String body = objectMapper.writeValueAsString(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        when(accountService.buy(eq(5L), any())).thenReturn(new AccountDTO(new BigDecimal("8000.00"), List.of()));
+
+        mockMvc.perform(post("/api/accounts/5/buy").header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(post("/api/accounts/5/buy").header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.balance").value("8000.0"));
+
+        verify(accountService, times(1)).buy(eq(5L), any());
+    }
+
+    @Test
+    void testAppliedButUnpersistedTradeReturns202AndIsNotRerunOnRetry() throws Exception {
+        String body = objectMapper.writeValueAsString(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        when(accountService.buy(eq(8L), any())).thenThrow(new LedgerWriteException("Trade was applied but could not be persisted: disk full"));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/accounts/8/buy").header("Idempotency-Key", "unpersisted")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.message").value("Trade was applied but could not be persisted: disk full"));
+        }
+        verify(accountService, times(1)).buy(eq(8L), any());
+    }
+
+    @Test
+    void testIdempotencyKeyReusedForAnotherTradeReturns422() throws Exception {
+        String body = objectMapper.writeValueAsString(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        when(accountService.buy(eq(6L), any())).thenReturn(new AccountDTO(new BigDecimal("8000.00"), List.of()));
+        mockMvc.perform(post("/api/accounts/6/buy").header("Idempotency-Key", "reused")
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+
+        mockMvc.perform(post("/api/accounts/6/sell").header("Idempotency-Key", "reused")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnprocessableEntity());
+        verify(accountService, never()).sell(eq(6L), any());
+    }
+
+    @Test
+    void testRateLimitedTradesGet429WithRetryAfter() throws Exception {
+        String body = objectMapper.writeValueAsString(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        when(accountService.buy(eq(42L), any())).thenReturn(new AccountDTO(new BigDecimal("8000.00"), List.of()));
+
+        MvcResult rejected = null;
+        for (int i = 0; i < 500 && rejected == null; i++) {
+            MvcResult result = mockMvc.perform(post("/api/accounts/42/buy")
+                    .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+            if (result.getResponse().getStatus() == 429) rejected = result;
+        }
+
+        assertNotNull(rejected);
+        assertNotNull(rejected.getResponse().getHeader("Retry-After"));
+        assertTrue(Long.parseLong(rejected.getResponse().getHeader("Retry-After")) >= 1);
+    }
+
+    @Test
+    void testCreateAccount() throws Exception {
+        when(accountService.createAccount(new BigDecimal("5000"))).thenReturn(new AccountCreatedDTO(2L, new BigDecimal("5000")));
+
+        mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"balance\":5000}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(2));
+    }
+
+    @Test
+    void testBuyOnAccount() throws Exception {
+        BuySellRequest request = new BuySellRequest("ETH/USD", new BigDecimal("1"));
+        when(accountService.buy(eq(7L), any())).thenReturn(new AccountDTO(new BigDecimal("8000.00"), List.of()));
+
+        mockMvc.perform(post("/api/accounts/7/buy")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value("8000.0"));
+    }
+
+    @Test
+    void testUnknownAccountReturns404() throws Exception {
+        when(accountService.getAccount(99L)).thenThrow(new UnknownAccountException(99L));
+
+        mockMvc.perform(get("/api/accounts/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Unknown account 99"));
+    }
+
+    @Test
+    void testBatchOrders() throws Exception {
+        BatchOrderRequest request = new BatchOrderRequest(List.of(
+                new OrderRequest("BUY", "ETH/USD", BigDecimal.ONE),
+                new OrderRequest("SELL", "ETH/USD", BigDecimal.TEN)));
+        BatchOrderResultDTO response = new BatchOrderResultDTO(1, 1, List.of(
+                new OrderResultDTO(0, "FILLED", 1L, new BigDecimal("2000"), null, null),
+                new OrderResultDTO(1, "REJECTED", null, null, null, "Not enough holdings to sell.")),
+                new AccountDTO(new BigDecimal("8000.00"), List.of()));
+        when(accountService.submitBatch(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filled").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void testEmptyBatchIsRejected() throws Exception {
+        when(accountService.submitBatch(List.of())).thenThrow(new IllegalArgumentException("Batch must contain at least one order."));
+
+        mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.crypto.integration;
+
+import org.example.crypto.TradingSimApplication;
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.sim.FeedSimulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedSimulatorIntegrationTest {
+
+    private FeedSimulator sim;
+    private ConfigurableApplicationContext app;
+
+    @AfterEach
+    void tearDown() {
+        if (app != null) app.close();
+        if (sim != null) sim.close();
+    }
+
+    @Test
+    void testServiceDiscoversAndStreamsSimulatedPairs() throws Exception {
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(50, 5_000));
+        app = start(sim);
+        KrakenPriceService service = app.getBean(KrakenPriceService.class);
+
+        AtomicLong received = new AtomicLong();
+        service.addTickListener("test", (id, price, timestamp) -> received.incrementAndGet());
+
+        await(() -> service.getCurrentPrices().size() == 50 && received.get() >= 1_000);
+        assertNotNull(service.getPrice("XBT/USD"));
+        assertNotNull(service.getPrice("S0049/USD"));
+    }
+
+    @Test
+    void testServiceReconnectsAndResubscribesAfterDrop() throws Exception {
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(20, 2_000));
+        app = start(sim, "--kraken.ws.reconnect.initial-ms=50", "--kraken.ws.reconnect.max-ms=200");
+        KrakenPriceService service = app.getBean(KrakenPriceService.class);
+        AtomicLong received = new AtomicLong();
+        service.addTickListener("test", (id, price, timestamp) -> received.incrementAndGet());
+        await(() -> service.isFeedConnected() && received.get() > 100);
+
+        sim.dropConnections();
+        long before = received.get();
+
+        await(() -> service.isFeedConnected() && received.get() > before + 100);
+    }
+
+    @Test
+    void testWarmStandbyRecoversAfterDrop() throws Exception {
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(20, 2_000));
+        app = start(sim, "--kraken.ws.warm-standby=true", "--kraken.ws.reconnect.initial-ms=50");
+        KrakenPriceService service = app.getBean(KrakenPriceService.class);
+        AtomicLong received = new AtomicLong();
+        service.addTickListener("test", (id, price, timestamp) -> received.incrementAndGet());
+        await(() -> received.get() > 100);
+
+        sim.dropConnections();
+        long before = received.get();
+
+        await(() -> service.isFeedConnected() && received.get() > before + 100);
+    }
+
+    @Test
+    void testDiscoveredUniverseIsCachedForRestart(@TempDir Path dir) throws Exception {
+        Path cache = dir.resolve("universe.txt");
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(30, 1_000));
+        app = start(sim, "--prices.universe.cache-file=" + cache);
+
+        await(() -> Files.exists(cache));
+        assertEquals(30, Files.readAllLines(cache).size());
+        app.close();
+
+        // Restart with discovery unreachable: the cached pairs are subscribed anyway
+        app = start(sim, "--prices.universe.cache-file=" + cache, "--coingecko.url=http://127.0.0.1:1/api/v3");
+        KrakenPriceService service = app.getBean(KrakenPriceService.class);
+        await(() -> service.getCurrentPrices().size() == 30);
+    }
+
+    @Test
+    void testFetchTopPairsHonoursTopN() throws Exception {
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(2_000, 0));
+        app = start(sim, "--prices.top-n=25");
+
+        String[] pairs = app.getBean(KrakenPriceService.class).fetchTop20Pairs();
+
+        assertEquals(25, pairs.length);
+    }
+
+    static ConfigurableApplicationContext start(FeedSimulator sim, String... overrides) {
+        // Keyed by property: Spring joins repeated command-line properties with commas instead of
+        // letting the last one win, so an override has to replace its default
+        Map<String, String> args = new LinkedHashMap<>();
+        put(args, "--server.port=0");
+        put(args, "--spring.main.banner-mode=off");
+        put(args, "--logging.level.root=WARN");
+        put(args, "--coingecko.url=" + sim.coingeckoUrl());
+        put(args, "--kraken.rest.url=" + sim.restUrl());
+        put(args, "--kraken.ws.url=" + sim.wsUrl());
+        put(args, "--prices.top-n=" + sim.symbols().size());
+        put(args, "--prices.universe.cache-file=");
+        for (String override : overrides) put(args, override);
+        return new SpringApplication(TradingSimApplication.class).run(args.values().toArray(new String[0]));
+    }
+
+    private static void put(Map<String, String> args, String arg) {
+        int eq = arg.indexOf('=');
+        args.put(eq < 0 ? arg : arg.substring(0, eq), arg);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out waiting for simulated ticks");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.crypto.integration;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.account.ledger.LedgerWriteException;
+import org.example.crypto.cluster.ShardMap;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalIntegrationTest {
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private LedgerJournal journal;
+    private LedgerLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        loader = new LedgerLoader(jdbc, new DataSourceTransactionManager(db), CostBasisMethod.FIFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) journal.stop();
+        db.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DurabilityMode.class)
+    void testTradesArePersistedAndLedgerRebuilds(DurabilityMode mode) {
+        journal = new LedgerJournal(jdbc, new DataSourceTransactionManager(db), mode, 16, 1024);
+        journal.start();
+        Ledger ledger = loader.load(1L);
+
+        for (int i = 0; i < 50; i++) {
+            trade(ledger.prepareBuy("ETH/USD", new BigDecimal("0.1"), new BigDecimal("2000"), LocalDateTime.now()), ledger);
+        }
+        trade(ledger.prepareSell("ETH/USD", new BigDecimal("2"), new BigDecimal("2500"), LocalDateTime.now()), ledger);
+        trade(ledger.prepareBuy("XBT/USD", new BigDecimal("0.01"), new BigDecimal("60000"), LocalDateTime.now()), ledger);
+        journal.flush();
+
+        Ledger rebuilt = loader.load(1L);
+        assertEquals(0, new BigDecimal("4400").compareTo(rebuilt.balance()));
+        assertEquals(0, new BigDecimal("3").compareTo(rebuilt.holdings().get("ETH/USD")));
+        assertEquals(0, new BigDecimal("0.01").compareTo(rebuilt.holdings().get("XBT/USD")));
+        assertEquals(52, jdbc.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+
+        BigDecimal pl = jdbc.queryForObject("SELECT pl FROM transactions WHERE type='SELL'", BigDecimal.class);
+        assertEquals(0, new BigDecimal("1000").compareTo(pl));
+        assertEquals(0, new BigDecimal("6000").compareTo(rebuilt.costBasis("ETH/USD")));
+        assertEquals(30, jdbc.queryForObject("SELECT COUNT(*) FROM holding_lots WHERE symbol='ETH/USD'", Integer.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(DurabilityMode.class)
+    void testResetClearsPersistedState(DurabilityMode mode) {
+        journal = new LedgerJournal(jdbc, new DataSourceTransactionManager(db), mode, 16, 1024);
+        journal.start();
+        Ledger ledger = loader.load(1L);
+
+        trade(ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("2000"), LocalDateTime.now()), ledger);
+        trade(ledger.prepareReset(new BigDecimal("10000")), ledger);
+        trade(ledger.prepareBuy("SOL/USD", BigDecimal.ONE, new BigDecimal("100"), LocalDateTime.now()), ledger);
+        journal.flush();
+
+        Ledger rebuilt = loader.load(1L);
+        assertEquals(0, new BigDecimal("9900").compareTo(rebuilt.balance()));
+        assertEquals(1, rebuilt.holdings().size());
+        assertTrue(rebuilt.holdings().containsKey("SOL/USD"));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    @Test
+    void testEntryThatNeverFitsIsQuarantinedAndItsCallerFails() {
+        journal = new LedgerJournal(jdbc, new DataSourceTransactionManager(db), DurabilityMode.GROUP_COMMIT, 16, 1024);
+        journal.setRetryPolicy(2, 10);
+        journal.start();
+        Ledger ledger = loader.load(1L);
+
+        // Bypasses the ledger's own bounds check, as a bug or a schema change could
+        LedgerEntry tooBig = new LedgerEntry(1_000_000, 1L, LedgerEntry.BUY, "SHIB/USD", new BigDecimal("1e12"),
+                new BigDecimal("0.00001"), null, LocalDateTime.now(), new BigDecimal("10000"),
+                new BigDecimal("1e12"), BigDecimal.ONE, List.of());
+        long bad = journal.append(tooBig);
+        LedgerEntry fine = ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("2000"), LocalDateTime.now());
+        long good = journal.append(fine);
+
+        assertThrows(LedgerWriteException.class, () -> journal.awaitCommit(bad));
+        journal.awaitCommit(good);
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(List.of(tooBig), journal.quarantined());
+    }
+
+    @Test
+    void testQuarantinedGroupCommitTradeStaysAppliedAndIsAnnounced() {
+        journal = new LedgerJournal(jdbc, new DataSourceTransactionManager(db), DurabilityMode.GROUP_COMMIT, 16, 1024);
+        journal.setRetryPolicy(2, 10);
+        journal.start();
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        AccountService accounts = new AccountService(jdbc, prices, journal, loader);
+        accounts.init();
+        List<Long> changed = new ArrayList<>();
+        accounts.addChangeListener(changed::add);
+        // A schema the entry no longer fits, so every write of it fails
+        jdbc.execute("ALTER TABLE transactions ALTER COLUMN symbol VARCHAR(3)");
+
+        assertThrows(LedgerWriteException.class, () -> accounts.buy(new BuySellRequest("ETH/USD", BigDecimal.ONE)));
+
+        assertEquals(0, new BigDecimal("8000").compareTo(accounts.getAccount().balance()));
+        assertEquals(List.of(1L), changed);
+        assertEquals(1, journal.quarantined().size());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    private void trade(LedgerEntry entry, Ledger ledger) {
+        long seq = journal.append(entry);
+        ledger.apply(entry);
+        journal.awaitCommit(seq);
+    }
+
+    @Test
+    void testMigrationRebuildsLotsFromTransactions() {
+        // Rows as written before cost basis was tracked
+        jdbc.update("UPDATE account SET balance=? WHERE id=1", new BigDecimal("7300"));
+        jdbc.update("INSERT INTO holdings(account_id, symbol, quantity) VALUES (1, 'ETH/USD', 2)");
+        insertTx(1, "BUY", "1", "1000");
+        insertTx(2, "BUY", "2", "1300");
+        insertTx(3, "SELL", "1", "1500");
+
+        Ledger fifo = loader.load(1L);
+        assertEquals(0, new BigDecimal("2600").compareTo(fifo.costBasis("ETH/USD")));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM holding_lots", Integer.class));
+
+        // Switching method rebuilds again
+        LedgerLoader lifoLoader = new LedgerLoader(jdbc, new DataSourceTransactionManager(db), CostBasisMethod.LIFO);
+        Ledger lifo = lifoLoader.load(1L);
+        assertEquals(0, new BigDecimal("2300").compareTo(lifo.costBasis("ETH/USD")));
+        assertFalse(lifoLoader.migrateCostBasis());
+
+        LedgerEntry next = lifo.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("1400"), LocalDateTime.now());
+        assertEquals(4, next.id());
+    }
+
+    @Test
+    void testShardMigratesOnlyItsOwnAccounts() {
+        jdbc.update("INSERT INTO account(id, balance) VALUES (2, 10000)");
+        jdbc.update("INSERT INTO holdings(account_id, symbol, quantity) VALUES (1, 'ETH/USD', 1)");
+        jdbc.update("INSERT INTO holdings(account_id, symbol, quantity) VALUES (2, 'ETH/USD', 2)");
+        insertTx(1, 1, "BUY", "1", "1000");
+        insertTx(2, 2, "BUY", "2", "1300");
+
+        assertTrue(loader.migrateCostBasis(new ShardMap(2, 0)));
+        assertNull(jdbc.queryForObject("SELECT cost_basis FROM holdings WHERE account_id=1", BigDecimal.class));
+        assertEquals(0, new BigDecimal("2600").compareTo(
+                jdbc.queryForObject("SELECT cost_basis FROM holdings WHERE account_id=2", BigDecimal.class)));
+        assertEquals(List.of(0L), jdbc.queryForList("SELECT MOD(id, 2) FROM holding_lots WHERE account_id=2", Long.class));
+
+        // The other shard fills in its own account and leaves the first shard's lots alone
+        assertTrue(loader.migrateCostBasis(new ShardMap(2, 1)));
+        assertEquals(0, new BigDecimal("1000").compareTo(
+                jdbc.queryForObject("SELECT cost_basis FROM holdings WHERE account_id=1", BigDecimal.class)));
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM holding_lots", Integer.class));
+        assertFalse(loader.migrateCostBasis(new ShardMap(2, 0)));
+        assertFalse(loader.migrateCostBasis(new ShardMap(2, 1)));
+    }
+
+    private void insertTx(long id, String type, String qty, String price) {
+        insertTx(id, 1, type, qty, price);
+    }
+
+    private void insertTx(long id, long accountId, String type, String qty, String price) {
+        jdbc.update("INSERT INTO transactions(id, account_id, symbol, quantity, price, type, traded_at) VALUES (?,?,?,?,?,?,?)",
+                id, accountId, "ETH/USD", new BigDecimal(qty), new BigDecimal(price), type, LocalDateTime.now());
+    }
+}
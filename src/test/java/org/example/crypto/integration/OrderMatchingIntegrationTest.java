@@ -0,0 +1,244 @@
+package org.example.crypto.integration;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.order.OrderService;
+import org.example.crypto.order.dto.OrderDTO;
+import org.example.crypto.order.dto.PlaceOrderRequest;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMatchingIntegrationTest {
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private KrakenPriceService prices;
+    private AccountService accounts;
+    private OrderService orders;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+
+        prices = new KrakenPriceService(null);
+        tick("ETH/USD", "2000");
+        tick("XBT/USD", "60000");
+        accounts = new AccountService(jdbc, prices, new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1, 1),
+                new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        accounts.init();
+        orders = new OrderService(jdbc, prices, accounts);
+        orders.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orders.stop();
+        db.shutdown();
+    }
+
+    @Test
+    void testLimitBuyFillsOnlyOnceCrossed() throws Exception {
+        OrderDTO low = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1800")));
+        OrderDTO lower = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+
+        tick("ETH/USD", "1900");
+        tick("XBT/USD", "1000"); // other symbols never touch this book
+        Thread.sleep(200);
+        assertEquals("OPEN", status(low.id()));
+
+        tick("ETH/USD", "1750");
+        await(() -> "FILLED".equals(status(low.id())));
+        assertEquals("OPEN", status(lower.id()));
+        assertEquals(0, new BigDecimal("1750").compareTo(order(low.id()).fillPrice()));
+        assertEquals(0, new BigDecimal("8250").compareTo(accounts.getAccount().balance()));
+    }
+
+    @Test
+    void testStopLossAndTakeProfitOnHolding() {
+        accounts.buy(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+        OrderDTO stop = orders.place(new PlaceOrderRequest("STOP_LOSS", "SELL", "ETH/USD", BigDecimal.ONE, new BigDecimal("1900")));
+        OrderDTO profit = orders.place(new PlaceOrderRequest("TAKE_PROFIT", "SELL", "ETH/USD", BigDecimal.ONE, new BigDecimal("2200")));
+
+        tick("ETH/USD", "2300");
+        await(() -> "FILLED".equals(status(profit.id())));
+        assertEquals("OPEN", status(stop.id()));
+
+        tick("ETH/USD", "1850");
+        await(() -> "FILLED".equals(status(stop.id())));
+        assertTrue(accounts.getAccount().holdings().isEmpty());
+    }
+
+    @Test
+    void testOrdersTriggerAndFillOnTheirSideOfTheBook() throws Exception {
+        accounts.buy(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        OrderDTO buy = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1800")));
+        OrderDTO stop = orders.place(new PlaceOrderRequest("STOP_LOSS", "SELL", "ETH/USD", BigDecimal.ONE, new BigDecimal("1700")));
+
+        // Last is through both triggers, but the ask is not low enough to buy nor the bid low enough to stop out
+        quote("ETH/USD", "1690", "1750", "1810");
+        Thread.sleep(200);
+        assertEquals("OPEN", status(buy.id()));
+        assertEquals("OPEN", status(stop.id()));
+
+        quote("ETH/USD", "1720", "1695", "1799");
+        await(() -> "FILLED".equals(status(buy.id())) && "FILLED".equals(status(stop.id())));
+        assertEquals(0, new BigDecimal("1799").compareTo(order(buy.id()).fillPrice()));
+        assertEquals(0, new BigDecimal("1695").compareTo(order(stop.id()).fillPrice()));
+    }
+
+    @Test
+    void testTriggeredOrderGoesThroughLedgerValidation() {
+        OrderDTO sell = orders.place(new PlaceOrderRequest("LIMIT", "SELL", "ETH/USD", BigDecimal.ONE, new BigDecimal("2100")));
+
+        tick("ETH/USD", "2150");
+
+        await(() -> "REJECTED".equals(status(sell.id())));
+        assertEquals("Not enough holdings to sell.", order(sell.id()).message());
+    }
+
+    @Test
+    void testMarketableOrderFillsWithoutWaitingForTick() {
+        OrderDTO buy = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("2500")));
+
+        await(() -> "FILLED".equals(status(buy.id())));
+        assertEquals(0, new BigDecimal("2000").compareTo(order(buy.id()).fillPrice()));
+    }
+
+    @Test
+    void testCancelledOrderNeverFills() throws Exception {
+        OrderDTO buy = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+
+        assertEquals("CANCELLED", orders.cancel(buy.id()).status());
+        tick("ETH/USD", "1400");
+        Thread.sleep(200);
+
+        assertEquals("CANCELLED", status(buy.id()));
+        assertThrows(IllegalArgumentException.class, () -> orders.cancel(buy.id()));
+        assertEquals(0, new BigDecimal("10000").compareTo(accounts.getAccount().balance()));
+    }
+
+    @Test
+    void testOpenOrdersSurviveRestart() {
+        OrderDTO buy = orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+        orders.stop();
+
+        orders = new OrderService(jdbc, prices, accounts);
+        orders.start();
+        tick("ETH/USD", "1450");
+
+        await(() -> "FILLED".equals(status(buy.id())));
+    }
+
+    @Test
+    void testShardsSharingOneDatabaseKeepToTheirOwnOrders() {
+        AccountService[] shardAccounts = new AccountService[2];
+        OrderService[] shardOrders = new OrderService[2];
+        long[] ids = new long[2];
+        for (int shard = 0; shard < 2; shard++) {
+            shardAccounts[shard] = shardAccounts(shard);
+            shardOrders[shard] = new OrderService(jdbc, prices, shardAccounts[shard]);
+            shardOrders[shard].start();
+            ids[shard] = shardAccounts[shard].createAccount(null).id();
+        }
+        try {
+            // Both nodes saw the same highest order id on start; their new ids must still differ
+            OrderDTO first = shardOrders[0].place(ids[0], new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+            OrderDTO second = shardOrders[0].place(ids[0], new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+            OrderDTO other = shardOrders[1].place(ids[1], new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1500")));
+            assertEquals(0, first.id() % 2);
+            assertEquals(0, second.id() % 2);
+            assertEquals(1, other.id() % 2);
+
+            // After a restart each node reloads only its own accounts' orders, so no fill hits the wrong shard
+            for (int shard = 0; shard < 2; shard++) {
+                shardOrders[shard].stop();
+                shardOrders[shard] = new OrderService(jdbc, prices, shardAccounts[shard]);
+                shardOrders[shard].start();
+            }
+            tick("ETH/USD", "1450");
+
+            for (OrderDTO order : List.of(first, second, other)) {
+                await(() -> !"OPEN".equals(storedStatus(order.id())));
+                assertEquals("FILLED", storedStatus(order.id()));
+            }
+        } finally {
+            for (OrderService service : shardOrders) service.stop();
+        }
+    }
+
+    @Test
+    void testInvalidOrdersAreRejectedUpFront() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orders.place(new PlaceOrderRequest("MARKET", "BUY", "ETH/USD", BigDecimal.ONE, BigDecimal.TEN)));
+        assertThrows(IllegalArgumentException.class,
+                () -> orders.place(new PlaceOrderRequest("LIMIT", "BUY", "DOGE/USD", BigDecimal.ONE, BigDecimal.TEN)));
+        assertThrows(IllegalArgumentException.class,
+                () -> orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, null)));
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                () -> orders.place(new PlaceOrderRequest("LIMIT", "BUY", "ETH/USD", BigDecimal.ONE, new BigDecimal("1e10"))));
+        assertEquals("Trigger price is too large.", tooLarge.getMessage());
+    }
+
+    private void tick(String symbol, String last) {
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"" + symbol + "\",\"last\":" + last + "}]}");
+    }
+
+    private void quote(String symbol, String last, String bid, String ask) {
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"" + symbol + "\",\"last\":" + last
+                + ",\"bid\":" + bid + ",\"ask\":" + ask + "}]}");
+    }
+
+    private AccountService shardAccounts(int index) {
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+        AccountService service = new AccountService(jdbc, prices, new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1, 1),
+                new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        ReflectionTestUtils.setField(service, "shardCount", 2);
+        ReflectionTestUtils.setField(service, "shardIndex", index);
+        service.init();
+        return service;
+    }
+
+    private String storedStatus(long id) {
+        return jdbc.queryForObject("SELECT status FROM orders WHERE id=?", String.class, id);
+    }
+
+    private OrderDTO order(long id) {
+        return orders.getOrders().stream().filter(o -> o.id() == id).findFirst().orElseThrow();
+    }
+
+    private String status(long id) {
+        return order(id).status();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("condition not met within 5s");
+            Thread.onSpinWait();
+        }
+    }
+}
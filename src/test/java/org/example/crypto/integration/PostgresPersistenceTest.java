@@ -0,0 +1,128 @@
+package org.example.crypto.integration;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.TransactionQuery;
+import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.dto.TransactionDTO;
+import org.example.crypto.account.dto.TransactionPageDTO;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The same schema, upserts and history queries as the H2 tests, run against a real PostgreSQL server.
+ */
+class PostgresPersistenceTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private DataSource db;
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager txManager;
+    private LedgerJournal journal;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        db = postgres.getPostgresDatabase();
+        jdbc = new JdbcTemplate(db);
+        txManager = new DataSourceTransactionManager(db);
+        jdbc.execute("DROP TABLE IF EXISTS account, holdings, holding_lots, ledger_settings, transactions, orders");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql")).execute(db);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) journal.stop();
+    }
+
+    @Test
+    void testDataScriptIsIdempotent() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql")).execute(db);
+
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM account", Integer.class));
+    }
+
+    @Test
+    void testTradesArePersistedAndLedgerRebuilds() {
+        AccountService service = service(DurabilityMode.GROUP_COMMIT, CostBasisMethod.AVERAGE_COST);
+
+        service.buy(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+        service.buy(new BuySellRequest("ETH/USD", new BigDecimal("1")));
+        AccountDTO account = service.sell(new BuySellRequest("ETH/USD", new BigDecimal("1.5")));
+
+        Ledger rebuilt = new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST).load(1L);
+        assertEquals(0, account.balance().compareTo(rebuilt.balance()));
+        assertEquals(0, new BigDecimal("1.5").compareTo(rebuilt.holdings().get("ETH/USD")));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM holdings", Integer.class));
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+    }
+
+    @Test
+    void testCursorWalksHistoryInOrder() {
+        AccountService service = service(DurabilityMode.SYNC, CostBasisMethod.AVERAGE_COST);
+        for (int i = 0; i < 25; i++) service.buy(new BuySellRequest("ETH/USD", new BigDecimal("0.01")));
+
+        List<TransactionDTO> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageDTO page = service.getTransactions(1L, new TransactionQuery(null, null, null, null, cursor, 10));
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(25, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).id() > seen.get(i).id(), "out of order at " + i);
+        }
+    }
+
+    @Test
+    void testCostBasisSettingIsUpserted() {
+        assertTrue(new LedgerLoader(jdbc, txManager, CostBasisMethod.FIFO).migrateCostBasis());
+        assertTrue(new LedgerLoader(jdbc, txManager, CostBasisMethod.LIFO).migrateCostBasis());
+
+        assertEquals("LIFO", jdbc.queryForObject("SELECT setting FROM ledger_settings", String.class));
+    }
+
+    private AccountService service(DurabilityMode mode, CostBasisMethod method) {
+        KrakenPriceService prices = new KrakenPriceService(null);
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000}]}");
+        journal = new LedgerJournal(jdbc, txManager, mode, 16, 1024);
+        journal.start();
+        AccountService service = new AccountService(jdbc, prices, journal, new LedgerLoader(jdbc, txManager, method));
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.crypto.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.TradingSimApplication;
+import org.example.crypto.sim.FeedSimulator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * One feed node and two trade nodes, each its own JVM on localhost. The feed node is the only one that
+ * talks to the (simulated) Kraken feed; the trade nodes get their prices over the TCP fan-out and split
+ * the accounts between them by id.
+ */
+class ScaleOutIntegrationTest {
+
+    private static final Duration STARTUP = Duration.ofSeconds(90);
+
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final List<Process> nodes = new ArrayList<>();
+    private static FeedSimulator sim;
+    private static Path logs;
+    private static int feedHttpPort;
+    private static int[] tradeHttpPorts;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        sim = new FeedSimulator(0, FeedSimulator.Options.steady(20, 500));
+        logs = Files.createTempDirectory("scale-out");
+        int fanoutPort = freePort();
+
+        feedHttpPort = freePort();
+        nodes.add(launch("feed", feedHttpPort,
+                "--node.role=FEED",
+                "--node.feed.port=" + fanoutPort,
+                "--coingecko.url=" + sim.coingeckoUrl(),
+                "--kraken.rest.url=" + sim.restUrl(),
+                "--kraken.ws.url=" + sim.wsUrl(),
+                "--prices.top-n=" + sim.symbols().size()));
+
+        tradeHttpPorts = new int[]{freePort(), freePort()};
+        for (int shard = 0; shard < tradeHttpPorts.length; shard++) {
+            nodes.add(launch("trade-" + shard, tradeHttpPorts[shard],
+                    "--node.role=TRADE",
+                    "--node.feed.address=127.0.0.1:" + fanoutPort,
+                    "--node.shard.count=" + tradeHttpPorts.length,
+                    "--node.shard.index=" + shard,
+                    // Kraken is unreachable from trade nodes, so any price they have came from the feed node
+                    "--kraken.ws.url=ws://127.0.0.1:1",
+                    "--coingecko.url=http://127.0.0.1:1/api/v3"));
+        }
+
+        for (int port : tradeHttpPorts) awaitPrices(port, 1);
+    }
+
+    @AfterAll
+    static void stopCluster() throws InterruptedException {
+        for (Process node : nodes) node.destroy();
+        for (Process node : nodes) {
+            if (!node.waitFor(10, TimeUnit.SECONDS)) node.destroyForcibly();
+        }
+        if (sim != null) sim.close();
+    }
+
+    @Test
+    void testTradeNodesReceivePricesFromFeedNode() throws Exception {
+        int pairs = sim.symbols().size();
+        awaitPrices(feedHttpPort, pairs);
+        for (int port : tradeHttpPorts) {
+            JsonNode prices = awaitPrices(port, pairs);
+            assertTrue(prices.has("XBT/USD"));
+        }
+    }
+
+    @Test
+    void testAccountsAreCreatedOnAndServedByTheirShard() throws Exception {
+        for (int shard = 0; shard < tradeHttpPorts.length; shard++) {
+            long id = post(tradeHttpPorts[shard], "/api/accounts", "{\"balance\":100000}").body().get("id").asLong();
+            assertEquals(shard, id % tradeHttpPorts.length);
+
+            Response bought = post(tradeHttpPorts[shard], "/api/accounts/" + id + "/buy",
+                    "{\"symbol\":\"XBT/USD\",\"quantity\":0.01}");
+            assertEquals(200, bought.status());
+
+            int other = tradeHttpPorts[(shard + 1) % tradeHttpPorts.length];
+            Response misdirected = post(other, "/api/accounts/" + id + "/buy", "{\"symbol\":\"XBT/USD\",\"quantity\":0.01}");
+            assertEquals(421, misdirected.status());
+            assertEquals(Integer.toString(shard), misdirected.shard());
+        }
+    }
+
+    @Test
+    void testDefaultAccountLivesOnOneShard() throws Exception {
+        assertEquals(421, get(tradeHttpPorts[0], "/api/accounts/1").status());
+        assertEquals(200, get(tradeHttpPorts[1], "/api/accounts/1").status());
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private record Response(int status, String shard, JsonNode body) { }
+
+    private static Process launch(String name, int httpPort, String... args) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-Xmx256m",
+                "-cp", System.getProperty("java.class.path"),
+                TradingSimApplication.class.getName(),
+                "--server.port=" + httpPort,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--prices.universe.cache-file="));
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logs.resolve(name + ".log").toFile())
+                .start();
+    }
+
+    private static JsonNode awaitPrices(int port, int pairs) throws Exception {
+        long deadline = System.nanoTime() + STARTUP.toNanos();
+        while (true) {
+            try {
+                Response prices = get(port, "/api/prices");
+                if (prices.status() == 200 && prices.body().size() >= pairs) return prices.body();
+            } catch (IOException notUpYet) {
+                // keep polling
+            }
+            for (Process node : nodes) {
+                if (!node.isAlive()) fail("A node exited early; see logs in " + logs);
+            }
+            if (System.nanoTime() > deadline) fail("Fewer than " + pairs + " prices on port " + port + "; see logs in " + logs);
+            Thread.sleep(200);
+        }
+    }
+
+    private static Response get(int port, String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(port, path)).GET().build());
+    }
+
+    private static Response post(int port, String path, String json) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(port, path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    private static Response send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        String body = response.body();
+        return new Response(response.statusCode(),
+                response.headers().firstValue("X-Account-Shard").orElse(null),
+                body.isEmpty() ? mapper.createObjectNode() : mapper.readTree(body));
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
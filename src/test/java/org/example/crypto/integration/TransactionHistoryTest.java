@@ -0,0 +1,137 @@
+package org.example.crypto.integration;
+
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.TransactionQuery;
+import org.example.crypto.account.dto.TransactionDTO;
+import org.example.crypto.account.dto.TransactionPageDTO;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.DurabilityMode;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionHistoryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ROWS = 250;
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private AccountService service;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(db);
+
+        // Every third row shares its timestamp with the previous one, so ordering relies on the id tie-break
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(new Object[]{i, 1, i % 2 == 0 ? "ETH/USD" : "XBT/USD", BigDecimal.ONE, new BigDecimal("100"),
+                    i % 5 == 0 ? "SELL" : "BUY", Timestamp.valueOf(T0.plusSeconds(i - i / 3))});
+        }
+        jdbc.batchUpdate("INSERT INTO transactions(id, account_id, symbol, quantity, price, type, traded_at) "
+                + "VALUES (?,?,?,?,?,?,?)", rows);
+        jdbc.update("INSERT INTO transactions(id, account_id, symbol, quantity, price, type, traded_at) "
+                + "VALUES (?,?,?,?,?,?,?)", ROWS + 1, 2, "ETH/USD", BigDecimal.ONE, BigDecimal.TEN, "BUY", Timestamp.valueOf(T0));
+        jdbc.update("INSERT INTO account(id, balance) VALUES (2, 0)");
+
+        LedgerJournal journal = new LedgerJournal(jdbc, txManager, DurabilityMode.SYNC, 1, 1);
+        service = new AccountService(jdbc, new KrakenPriceService(null), journal,
+                new LedgerLoader(jdbc, txManager, CostBasisMethod.AVERAGE_COST));
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    void testCursorWalksWholeHistoryInOrder() {
+        List<TransactionDTO> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPageDTO page = service.getTransactions(1L, new TransactionQuery(null, null, null, null, cursor, 40));
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(7, pages);
+        assertEquals(ROWS, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            TransactionDTO prev = seen.get(i - 1), cur = seen.get(i);
+            int byTime = prev.timestamp().compareTo(cur.timestamp());
+            assertTrue(byTime > 0 || (byTime == 0 && prev.id() > cur.id()), "out of order at " + i);
+        }
+    }
+
+    @Test
+    void testFiltersCombine() {
+        TransactionQuery query = new TransactionQuery("ETH/USD", "SELL", T0.plusSeconds(10), T0.plusSeconds(100), null, 1000);
+
+        List<TransactionDTO> items = service.getTransactions(1L, query).items();
+
+        assertFalse(items.isEmpty());
+        for (TransactionDTO tx : items) {
+            assertEquals("ETH/USD", tx.symbol());
+            assertEquals("SELL", tx.type());
+            assertFalse(tx.timestamp().isBefore(T0.plusSeconds(10)));
+            assertTrue(tx.timestamp().isBefore(T0.plusSeconds(100)));
+        }
+    }
+
+    @Test
+    void testHistoryIsScopedToAccount() {
+        List<TransactionDTO> items = service.getTransactions(2L);
+
+        assertEquals(1, items.size());
+        assertEquals(ROWS + 1, items.get(0).id());
+    }
+
+    @Test
+    void testExportStreamsAllMatchingRows() {
+        List<Long> ids = new ArrayList<>();
+        service.exportTransactions(1L, new TransactionQuery(null, "BUY", null, null, null, null), tx -> ids.add(tx.id()));
+
+        assertEquals(ROWS - ROWS / 5, ids.size());
+        assertEquals(ROWS - 1, ids.get(0));
+    }
+
+    @Test
+    void testHistoryQueryUsesIndex() {
+        String plan = jdbc.queryForObject("EXPLAIN SELECT * FROM transactions WHERE account_id=1 "
+                + "ORDER BY traded_at DESC, id DESC LIMIT 10", String.class);
+
+        assertTrue(plan.toUpperCase().contains("IDX_TX_ACCOUNT_TIME"), plan);
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionQuery(null, null, null, null, "not-a-cursor", null));
+    }
+}
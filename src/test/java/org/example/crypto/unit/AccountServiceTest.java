@@ -1,16 +1,33 @@
 package org.example.crypto.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.crypto.account.AccountService;
+import org.example.crypto.account.UnknownAccountException;
+import org.example.crypto.account.dto.AccountCreatedDTO;
 import org.example.crypto.account.dto.AccountDTO;
+import org.example.crypto.account.dto.BatchOrderResultDTO;
 import org.example.crypto.account.dto.BuySellRequest;
+import org.example.crypto.account.dto.OrderRequest;
+import org.example.crypto.account.dto.OrderResultDTO;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.account.ledger.LedgerIds;
+import org.example.crypto.account.ledger.LedgerJournal;
+import org.example.crypto.account.ledger.LedgerLoader;
 import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+import org.example.crypto.price.StalePriceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,81 +36,308 @@ class AccountServiceTest {
 
     private JdbcTemplate jdbc;
     private KrakenPriceService priceService;
+    private LedgerJournal journal;
+    private LedgerLoader loader;
     private AccountService accountService;
 
     @BeforeEach
     void setUp() {
         jdbc = mock(JdbcTemplate.class);
         priceService = mock(KrakenPriceService.class);
-        accountService = new AccountService(jdbc, priceService);
+        journal = mock(LedgerJournal.class);
+        loader = mock(LedgerLoader.class);
+        accountService = new AccountService(jdbc, priceService, journal, loader);
+    }
+
+    // Ledger is rebuilt by the loader on init
+    private void initWithBalance(String balance) {
+        when(loader.loadAll(any())).thenAnswer(inv -> {
+            inv.<LedgerIds>getArgument(0).restore(0, 0, 1); // account 1 already exists
+            return Map.of(1L, new Ledger(1L, new BigDecimal(balance), CostBasisMethod.AVERAGE_COST));
+        });
+        accountService.init();
+    }
+
+    private void price(String symbol, BigDecimal last) {
+        when(priceService.getPrice(symbol)).thenReturn(last);
+        when(priceService.getQuote(symbol)).thenReturn(Quote.ofLast(PriceTable.toFixed(last)));
+    }
+
+    private void book(String symbol, String bid, String bidQty, String ask, String askQty) {
+        Quote quote = Quote.ofLast(PriceTable.toFixed(new BigDecimal(bid).add(new BigDecimal(ask)).divide(BigDecimal.TWO)));
+        quote.bid = PriceTable.toFixed(new BigDecimal(bid));
+        quote.bidQty = PriceTable.toFixed(new BigDecimal(bidQty));
+        quote.ask = PriceTable.toFixed(new BigDecimal(ask));
+        quote.askQty = PriceTable.toFixed(new BigDecimal(askQty));
+        when(priceService.getQuote(symbol)).thenReturn(quote);
     }
 
     @Test
     void testBuySuccess() {
+        initWithBalance("10000");
         BuySellRequest request = new BuySellRequest("ETH/USD", new BigDecimal("1.5"));
         BigDecimal currentPrice = new BigDecimal("2000.00");
-        BigDecimal balance = new BigDecimal("10000");
-
-        when(priceService.getPrice("ETH/USD")).thenReturn(currentPrice);
-        when(jdbc.queryForObject(anyString(), eq(BigDecimal.class), anyLong())).thenReturn(balance);
-        when(jdbc.update(anyString(), any(), any())).thenReturn(1);
 
-        when(jdbc.query(anyString(), (ResultSetExtractor<Object>) any())).thenReturn(List.of());
+        price("ETH/USD", currentPrice);
         AccountDTO result = accountService.buy(request);
 
         assertNotNull(result);
-        verify(jdbc).update(
-                eq("INSERT INTO transactions(symbol, quantity, price, type, timestamp) VALUES (?,?,?,?,?)"),
-                eq("ETH/USD"),
-                eq(new BigDecimal("1.5")),
-                eq(currentPrice),
-                eq("BUY"),
-                any()
-        );
+        assertEquals(new BigDecimal("7000.00"), result.balance());
+        assertEquals(1, result.holdings().size());
+
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal).append(entry.capture());
+        assertEquals("BUY", entry.getValue().type());
+        assertEquals("ETH/USD", entry.getValue().symbol());
+        assertEquals(new BigDecimal("1.5"), entry.getValue().quantity());
+        assertEquals(0, currentPrice.compareTo(entry.getValue().price()));
+        assertEquals(1L, entry.getValue().id());
     }
 
     @Test
     void testBuyFailsWithInsufficientBalance() {
+        initWithBalance("500"); // not enough
         BuySellRequest request = new BuySellRequest("BTC/USD", new BigDecimal("10"));
         BigDecimal currentPrice = new BigDecimal("1000");
-        BigDecimal balance = new BigDecimal("500"); // not enough
 
-        when(priceService.getPrice("BTC/USD")).thenReturn(currentPrice);
-        when(jdbc.queryForObject(anyString(), eq(BigDecimal.class), anyLong())).thenReturn(balance);
+        price("BTC/USD", currentPrice);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
             accountService.buy(request);
         });
 
         assertEquals("Insufficient balance to complete purchase.", ex.getMessage());
+        verify(journal, never()).append(any());
     }
 
     @Test
     void testSellFailsWithNotEnoughHoldings() {
-        BuySellRequest request = new BuySellRequest("ETH/USD", new BigDecimal("3"));
-        BigDecimal currentPrice = new BigDecimal("1500");
-
-        when(priceService.getPrice("ETH/USD")).thenReturn(currentPrice);
-        when(jdbc.queryForObject(anyString(), eq(BigDecimal.class), eq("ETH/USD"))).thenReturn(new BigDecimal("1"));
+        initWithBalance("10000");
+        price("ETH/USD", new BigDecimal("1500"));
+        accountService.buy(new BuySellRequest("ETH/USD", new BigDecimal("1")));
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
-            accountService.sell(request);
+            accountService.sell(new BuySellRequest("ETH/USD", new BigDecimal("3")));
         });
 
         assertEquals("Not enough holdings to sell.", ex.getMessage());
     }
 
+    @Test
+    void testSellRecordsProfitAgainstAverageBuyPrice() {
+        initWithBalance("10000");
+        price("ETH/USD", new BigDecimal("1000"));
+        accountService.buy(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+        price("ETH/USD", new BigDecimal("1500"));
+
+        AccountDTO result = accountService.sell(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+
+        assertEquals(new BigDecimal("11000.00"), result.balance());
+        assertTrue(result.holdings().isEmpty());
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal, times(2)).append(entry.capture());
+        assertEquals(0, new BigDecimal("1000").compareTo(entry.getValue().pnl()));
+    }
+
+    @Test
+    void testBuysFillAtAskAndSellsAtBid() {
+        initWithBalance("10000");
+        book("ETH/USD", "1999", "10", "2001", "10");
+
+        accountService.buy(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+        AccountDTO result = accountService.sell(new BuySellRequest("ETH/USD", new BigDecimal("2")));
+
+        assertEquals(new BigDecimal("9996.00"), result.balance()); // paid the spread once per unit
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal, times(2)).append(entry.capture());
+        assertEquals(0, new BigDecimal("2001").compareTo(entry.getAllValues().get(0).price()));
+        assertEquals(0, new BigDecimal("1999").compareTo(entry.getAllValues().get(1).price()));
+    }
+
+    @Test
+    void testSlippageAppliesBeyondDisplayedSize() {
+        ReflectionTestUtils.setField(accountService, "slippageImpactBps", 100.0); // 1% per displayed size
+        initWithBalance("100000");
+        book("ETH/USD", "1999", "1", "2000", "1");
+
+        accountService.buy(new BuySellRequest("ETH/USD", new BigDecimal("1")));   // within the top of book
+        accountService.buy(new BuySellRequest("ETH/USD", new BigDecimal("3")));   // 2 past it
+
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal, times(2)).append(entry.capture());
+        assertEquals(0, new BigDecimal("2000").compareTo(entry.getAllValues().get(0).price()));
+        // 2000 * (1 + 0.01 * 2^2 / (2 * 1 * 3))
+        assertEquals(0, new BigDecimal("2013.3333333333").compareTo(entry.getAllValues().get(1).price()));
+    }
+
+    @Test
+    void testSaturatedSizeIsTreatedAsUnknown() {
+        ReflectionTestUtils.setField(accountService, "slippageImpactBps", 100.0);
+        initWithBalance("100000");
+        Quote quote = Quote.ofLast(PriceTable.toFixed(new BigDecimal("0.00001")));
+        quote.ask = quote.last;
+        quote.askQty = PriceTable.toFixedSaturated(new BigDecimal("5e12")); // more than fixed point holds
+        when(priceService.getQuote("SHIB/USD")).thenReturn(quote);
+
+        // Past the clamped size, so a made-up displayed size would add slippage
+        accountService.buy(new BuySellRequest("SHIB/USD", new BigDecimal("2000000000")));
+
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal).append(entry.capture());
+        assertEquals(PriceTable.SATURATED, quote.askQty);
+        assertEquals(0, new BigDecimal("0.00001").compareTo(entry.getValue().price()));
+    }
+
+    @Test
+    void testTradeOnStalePriceIsRejected() {
+        initWithBalance("10000");
+        price("ETH/USD", new BigDecimal("2000"));
+        when(priceService.isStale("ETH/USD")).thenReturn(true);
+        when(priceService.getPriceAge("ETH/USD")).thenReturn(45_000L);
+
+        StalePriceException ex = assertThrows(StalePriceException.class,
+                () -> accountService.buy(new BuySellRequest("ETH/USD", BigDecimal.ONE)));
+
+        assertTrue(ex.getMessage().contains("45000ms"));
+        verify(journal, never()).append(any());
+    }
+
+    @Test
+    void testJournalFailureLeavesLedgerUnchanged() {
+        initWithBalance("10000");
+        price("ETH/USD", new BigDecimal("2000"));
+        when(journal.append(any())).thenThrow(new IllegalStateException("db down"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> accountService.buy(new BuySellRequest("ETH/USD", BigDecimal.ONE)));
+
+        assertEquals("Failed to complete BUY operation: db down", ex.getMessage());
+        assertEquals(new BigDecimal("10000"), accountService.getAccount().balance());
+    }
+
     @Test
     void testReset() {
-        when(jdbc.update(anyString(), any(), any())).thenReturn(1);
-        when(jdbc.update("DELETE FROM holdings")).thenReturn(1);
-        when(jdbc.update("DELETE FROM transactions")).thenReturn(1);
-        when(jdbc.queryForObject(anyString(), eq(BigDecimal.class), anyLong())).thenReturn(new BigDecimal("10000"));
-        when(jdbc.query(anyString(), (ResultSetExtractor<Object>) any())).thenReturn(List.of());
+        initWithBalance("2500");
 
         AccountDTO result = accountService.reset();
 
         assertEquals(new BigDecimal("10000"), result.balance());
+        ArgumentCaptor<LedgerEntry> entry = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(journal).append(entry.capture());
+        assertTrue(entry.getValue().isReset());
+    }
+
+    @Test
+    void testAccountsAreIsolated() {
+        initWithBalance("10000");
+        when(loader.getMethod()).thenReturn(CostBasisMethod.AVERAGE_COST);
+        price("ETH/USD", new BigDecimal("1000"));
+
+        AccountCreatedDTO created = accountService.createAccount(new BigDecimal("5000"));
+        accountService.buy(created.id(), new BuySellRequest("ETH/USD", new BigDecimal("2")));
+
+        assertEquals(new BigDecimal("3000.00"), accountService.getAccount(created.id()).balance());
+        assertEquals(new BigDecimal("10000"), accountService.getAccount().balance());
+        verify(jdbc).update("INSERT INTO account(id, balance) VALUES (?,?)", created.id(), new BigDecimal("5000"));
+    }
+
+    @Test
+    void testHistoryVersionMovesWhenChangesAreAppliedNotWhenWritten() {
+        initWithBalance("10000");
+        when(loader.getMethod()).thenReturn(CostBasisMethod.AVERAGE_COST);
+        price("ETH/USD", new BigDecimal("1000"));
+        AccountCreatedDTO other = accountService.createAccount(new BigDecimal("5000"));
+        long before = accountService.historyVersion(1L);
+        long otherBefore = accountService.historyVersion(other.id());
+
+        // The mocked journal never writes anything, as an ASYNC journal that has not flushed yet
+        accountService.buy(new BuySellRequest("ETH/USD", BigDecimal.ONE));
+        long afterBuy = accountService.historyVersion(1L);
+        assertNotEquals(before, afterBuy);
+
+        accountService.reset();
+        assertNotEquals(afterBuy, accountService.historyVersion(1L));
+        assertEquals(otherBefore, accountService.historyVersion(other.id()));
+    }
+
+    @Test
+    void testOversizedOpeningBalanceIsRejected() {
+        initWithBalance("10000");
+
+        assertThrows(IllegalArgumentException.class, () -> accountService.createAccount(new BigDecimal("1e20")));
+        verify(jdbc, never()).update(eq("INSERT INTO account(id, balance) VALUES (?,?)"), any(), any());
+    }
+
+    @Test
+    void testUnknownAccountIsRejected() {
+        initWithBalance("10000");
+
+        UnknownAccountException ex = assertThrows(UnknownAccountException.class, () -> accountService.reset(42L));
+
+        assertEquals("Unknown account 42", ex.getMessage());
+        verify(journal, never()).append(any());
+    }
+
+    @Test
+    void testBatchAppliesOrdersInSequence() {
+        initWithBalance("10000");
+        when(priceService.getCurrentQuotes()).thenReturn(Map.of("ETH/USD", Quote.ofLast(PriceTable.toFixed(new BigDecimal("1000")))));
+
+        BatchOrderResultDTO result = accountService.submitBatch(List.of(
+                new OrderRequest("BUY", "ETH/USD", new BigDecimal("3")),
+                new OrderRequest("SELL", "ETH/USD", new BigDecimal("2")),   // only possible after the first order
+                new OrderRequest("SELL", "ETH/USD", new BigDecimal("5")),
+                new OrderRequest("BUY", "DOGE/USD", BigDecimal.ONE),
+                new OrderRequest("HOLD", "ETH/USD", BigDecimal.ONE)));
+
+        assertEquals(2, result.filled());
+        assertEquals(3, result.rejected());
+        assertEquals(OrderResultDTO.FILLED, result.results().get(1).status());
+        assertEquals("Not enough holdings to sell.", result.results().get(2).message());
+        assertEquals("Price unavailable for DOGE/USD", result.results().get(3).message());
+        assertEquals("Side must be BUY or SELL.", result.results().get(4).message());
+        assertEquals(new BigDecimal("9000.00"), result.account().balance());
+
+        verify(priceService, times(1)).getCurrentQuotes();
+        verify(journal, times(1)).appendAll(argThat(entries -> entries.size() == 2));
+        verify(journal, never()).append(any());
+    }
+
+    @Test
+    void testBatchAndTriggeredTradesAreMeteredBySource() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountService.setMeterRegistry(registry);
+        initWithBalance("10000");
+        when(priceService.getCurrentQuotes()).thenReturn(Map.of("ETH/USD", Quote.ofLast(PriceTable.toFixed(new BigDecimal("1000")))));
+
+        accountService.submitBatch(List.of(
+                new OrderRequest("BUY", "ETH/USD", new BigDecimal("3")),
+                new OrderRequest("SELL", "ETH/USD", new BigDecimal("5")),
+                new OrderRequest("HOLD", "ETH/USD", BigDecimal.ONE)));
+        accountService.sellAt(1L, new BuySellRequest("ETH/USD", BigDecimal.ONE), new BigDecimal("1100"));
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.buyAt(1L, new BuySellRequest("ETH/USD", new BigDecimal("100")), new BigDecimal("1000")));
+
+        assertEquals(1, registry.get("trades.execution").tags("side", "BUY", "source", "BATCH").timer().count());
+        assertEquals(1.0, registry.get("trades.failed").tags("side", "SELL", "source", "BATCH", "reason", "rejected").counter().count());
+        assertEquals(1.0, registry.get("trades.failed").tags("side", "UNKNOWN", "source", "BATCH").counter().count());
+        assertEquals(1, registry.get("trades.execution").tags("side", "SELL", "source", "TRIGGERED").timer().count());
+        assertEquals(1.0, registry.get("trades.failed").tags("side", "BUY", "source", "TRIGGERED", "reason", "rejected").counter().count());
+        assertEquals(0, registry.get("trades.execution").tags("side", "BUY", "source", "MARKET").timer().count());
+    }
+
+    @Test
+    void testBatchJournalFailureLeavesLedgerUnchanged() {
+        initWithBalance("10000");
+        when(priceService.getCurrentQuotes()).thenReturn(Map.of("ETH/USD", Quote.ofLast(PriceTable.toFixed(new BigDecimal("1000")))));
+        when(journal.appendAll(any())).thenThrow(new IllegalStateException("db down"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> accountService.submitBatch(
+                List.of(new OrderRequest("BUY", "ETH/USD", BigDecimal.ONE))));
+
+        assertEquals("Failed to complete BATCH operation: db down", ex.getMessage());
+        assertEquals(new BigDecimal("10000"), accountService.getAccount().balance());
+        assertTrue(accountService.getAccount().holdings().isEmpty());
     }
 
     @Test
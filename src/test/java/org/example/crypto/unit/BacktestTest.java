@@ -0,0 +1,135 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.backtest.Backtest;
+import org.example.crypto.backtest.BacktestResult;
+import org.example.crypto.backtest.BacktestService;
+import org.example.crypto.backtest.CsvPriceSource;
+import org.example.crypto.backtest.JournalPriceSource;
+import org.example.crypto.backtest.MovingAverageCrossStrategy;
+import org.example.crypto.backtest.RandomStrategy;
+import org.example.crypto.backtest.RandomWalkPriceSource;
+import org.example.crypto.backtest.dto.BacktestRequest;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.journal.TickJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktestTest {
+
+    private static final BigDecimal START = new BigDecimal("10000.00");
+
+    @TempDir
+    Path dir;
+
+    private BacktestService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    @Test
+    void testSameSeedGivesSameResultSequentialOrParallel() {
+        service = new BacktestService(4, dir.toString());
+        List<Backtest> runs = new ArrayList<>();
+        for (long seed = 1; seed <= 8; seed++) runs.add(randomRun(seed));
+
+        List<BacktestResult> parallel = service.runAll(runs);
+        for (int i = 0; i < runs.size(); i++) {
+            BacktestResult sequential = runs.get(i).run();
+            assertEquals(withoutTiming(sequential), withoutTiming(parallel.get(i)));
+        }
+        assertTrue(parallel.get(0).trades() > 1000);
+        assertNotEquals(parallel.get(0).fingerprint(), parallel.get(1).fingerprint());
+    }
+
+    @Test
+    void testMovingAverageCrossTradesOnCrossings() throws Exception {
+        // Flat, rally, slump: one buy on the way up, one sell of the whole holding on the way down
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        long t = 1_000;
+        for (int i = 0; i < 10; i++) csv.append(t++).append(",ETH/USD,100\n");
+        for (int i = 0; i < 10; i++) csv.append(t++).append(",ETH/USD,").append(100 + 10 * i).append('\n');
+        for (int i = 0; i < 20; i++) csv.append(t++).append(",ETH/USD,").append(190 - 5 * i).append('\n');
+        Path file = Files.writeString(dir.resolve("eth.csv"), csv);
+
+        BacktestResult result = new Backtest("ma", new CsvPriceSource(file),
+                () -> new MovingAverageCrossStrategy(2, 5, BigDecimal.ONE), START, CostBasisMethod.FIFO).run();
+
+        assertEquals(40, result.ticks());
+        assertEquals(2, result.trades());
+        assertTrue(result.holdings().isEmpty());
+        assertEquals(0, result.equity().compareTo(result.finalBalance()));
+        assertEquals(0, result.finalBalance().subtract(START).compareTo(result.realizedPnl()));
+    }
+
+    @Test
+    void testJournalSourceReplaysRecordedTicks() throws Exception {
+        PriceTable table = new PriceTable(4);
+        int xbt = table.register("XBT/USD");
+        try (TickJournal journal = new TickJournal(dir.resolve("ticks"), 1 << 16, table)) {
+            journal.append(xbt, PriceTable.toFixed(new BigDecimal("60000")), 1_000);
+            journal.append(xbt, PriceTable.toFixed(new BigDecimal("61000")), 2_000);
+        }
+
+        BacktestResult result = new Backtest("journal", new JournalPriceSource(dir.resolve("ticks")), () -> (ctx, id, price) -> {
+            if (ctx.timestamp() == 1_000) ctx.buy(id, new BigDecimal("0.1"));
+        }, START, CostBasisMethod.AVERAGE_COST).run();
+
+        assertEquals(2, result.ticks());
+        assertEquals(1, result.trades());
+        assertEquals(0, new BigDecimal("4000.00").compareTo(result.finalBalance()));
+        assertEquals(0, new BigDecimal("10100.00").compareTo(result.equity()));
+    }
+
+    @Test
+    void testRejectedTradesAreCounted() {
+        BacktestResult result = new Backtest("broke", new RandomWalkPriceSource(List.of("ETH/USD"), 7, 10),
+                () -> (ctx, id, price) -> {
+                    ctx.sell(id, BigDecimal.ONE);           // nothing held
+                    ctx.buy(id, new BigDecimal("1000"));    // far beyond the balance
+                }, START, CostBasisMethod.AVERAGE_COST).run();
+
+        assertEquals(0, result.trades());
+        assertEquals(20, result.rejected());
+        assertEquals(0, START.compareTo(result.finalBalance()));
+    }
+
+    @Test
+    void testRequestRunsOneBacktestPerSeed() throws Exception {
+        service = new BacktestService(2, dir.toString());
+        List<BacktestResult> results = service.run(new BacktestRequest(null, null, List.of("ETH/USD"), 5_000,
+                List.of(3L, 4L, 3L), "RANDOM", null, null, 0.5, new BigDecimal("0.01"), null, "LIFO"));
+
+        assertEquals(List.of("seed-3", "seed-4", "seed-3"), results.stream().map(BacktestResult::name).toList());
+        assertEquals(withoutTiming(results.get(0)), withoutTiming(results.get(2)));
+
+        Files.writeString(dir.resolve("ticks.csv"), "1,ETH/USD,100\n2,ETH/USD,101\n");
+        assertEquals(2, service.run(new BacktestRequest("CSV", "ticks.csv", null, null, null, null, 1, 2, null,
+                null, null, null)).get(0).ticks());
+        assertThrows(IllegalArgumentException.class, () -> service.run(new BacktestRequest("CSV", "../outside.csv",
+                null, null, null, null, null, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.run(new BacktestRequest(null, null, null, null,
+                null, "MA_CROSS", 10, 5, null, null, null, null)));
+    }
+
+    private static Backtest randomRun(long seed) {
+        return new Backtest("seed-" + seed, new RandomWalkPriceSource(List.of("XBT/USD", "ETH/USD", "SOL/USD"), seed, 20_000),
+                () -> new RandomStrategy(seed, 0.5, new BigDecimal("0.5")), START, CostBasisMethod.FIFO);
+    }
+
+    private static BacktestResult withoutTiming(BacktestResult r) {
+        return new BacktestResult(r.name(), r.ticks(), r.trades(), r.rejected(), r.startBalance(), r.finalBalance(),
+                r.equity(), r.realizedPnl(), r.holdings(), r.fingerprint(), 0);
+    }
+}
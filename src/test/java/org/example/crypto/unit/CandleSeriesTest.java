@@ -0,0 +1,74 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.candle.Candle;
+import org.example.crypto.candle.CandleInterval;
+import org.example.crypto.candle.CandleSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleSeriesTest {
+
+    private static final long T0 = 1_700_000_040_000L; // on a minute boundary
+
+    @Test
+    void testTicksWithinIntervalUpdateOneCandle() {
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_MINUTE, 10);
+
+        assertFalse(series.update(T0 + 1_000, 100));
+        assertFalse(series.update(T0 + 2_000, 130));
+        assertFalse(series.update(T0 + 3_000, 90));
+        assertFalse(series.update(T0 + 59_999, 110));
+
+        assertEquals(1, series.size());
+        assertEquals(new Candle(T0, 100, 130, 90, 110, 4), series.latest(0));
+    }
+
+    @Test
+    void testFirstTickOfNextIntervalClosesCandle() {
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_MINUTE, 10);
+        series.update(T0, 100);
+        series.update(T0 + 30_000, 120);
+
+        assertTrue(series.update(T0 + 60_000, 125));
+        assertEquals(new Candle(T0, 100, 120, 100, 120, 2), series.latest(1));
+        assertEquals(new Candle(T0 + 60_000, 125, 125, 125, 125, 1), series.latest(0));
+
+        assertTrue(series.update(T0 + 600_000, 80)); // empty intervals leave no candles
+        assertEquals(3, series.size());
+        assertFalse(series.update(T0 + 599_000, 85), "a tick from before the current candle joins it");
+        assertEquals(new Candle(T0 + 600_000, 80, 85, 80, 85, 2), series.latest(0));
+    }
+
+    @Test
+    void testRingKeepsOnlyNewestCandles() {
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_SECOND, 4);
+        for (int i = 0; i < 10; i++) series.update(T0 + i * 1_000L, i);
+
+        assertEquals(4, series.size());
+        List<Candle> all = series.read(Long.MIN_VALUE, 100);
+        assertEquals(List.of(6L, 7L, 8L, 9L), all.stream().map(Candle::close).toList());
+        assertNull(series.latest(4));
+
+        List<Candle> recent = series.read(T0 + 8_000, 100);
+        assertEquals(List.of(T0 + 8_000, T0 + 9_000), recent.stream().map(Candle::openTime).toList());
+        assertEquals(List.of(T0 + 9_000), series.read(Long.MIN_VALUE, 1).stream().map(Candle::openTime).toList());
+    }
+
+    @Test
+    void testRestoreReplacesPartialCandleAndSkipsOlderOnes() {
+        CandleSeries series = new CandleSeries(CandleInterval.ONE_HOUR, 10);
+        series.restore(new Candle(0, 1, 2, 1, 2, 5));
+        series.restore(new Candle(3_600_000, 2, 3, 2, 3, 1));
+        series.restore(new Candle(3_600_000, 2, 4, 1, 3, 7));
+        series.restore(new Candle(0, 9, 9, 9, 9, 9));
+
+        assertEquals(2, series.size());
+        assertEquals(new Candle(3_600_000, 2, 4, 1, 3, 7), series.latest(0));
+
+        series.update(3_600_000 + 10, 5); // live ticks continue the restored candle
+        assertEquals(new Candle(3_600_000, 2, 5, 1, 5, 8), series.latest(0));
+    }
+}
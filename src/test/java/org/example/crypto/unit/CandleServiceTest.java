@@ -0,0 +1,104 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.candle.CandleService;
+import org.example.crypto.candle.dto.CandleDTO;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private CandleService candles;
+
+    @AfterEach
+    void tearDown() {
+        if (candles != null) candles.stop();
+    }
+
+    @Test
+    void testTicksBuildCandlesAtEveryInterval() {
+        KrakenPriceService prices = new KrakenPriceService(null);
+        candles = new CandleService(prices, 100, "");
+        candles.start();
+
+        tick(prices, "ETH/USD", "2000");
+        tick(prices, "ETH/USD", "2100");
+        tick(prices, "ETH/USD", "1900");
+
+        await(() -> ticks(candles.getCandles("ETH/USD", "1h", null, null)) == 3);
+        for (String interval : List.of("1s", "1m", "5m", "1h")) {
+            List<CandleDTO> list = candles.getCandles("ETH/USD", interval, null, null);
+            CandleDTO last = list.get(list.size() - 1);
+            assertEquals(0, new BigDecimal("1900").compareTo(last.close()), interval);
+            assertEquals(3, ticks(list), interval);
+        }
+        CandleDTO hour = candles.getCandles("ETH/USD", "1h", null, null).get(0);
+        assertEquals(0, new BigDecimal("2100").compareTo(hour.high()));
+        assertEquals(0, new BigDecimal("1900").compareTo(hour.low()));
+        assertFalse(hour.closed());
+    }
+
+    @Test
+    void testCandlesSurviveRestart() throws Exception {
+        KrakenPriceService prices = new KrakenPriceService(null);
+        candles = new CandleService(prices, 100, dir.toString());
+        candles.start();
+        tick(prices, "XBT/USD", "60000");
+        tick(prices, "XBT/USD", "61000");
+        await(() -> ticks(candles.getCandles("XBT/USD", "5m", null, null)) == 2);
+        candles.stop();
+        assertTrue(Files.size(dir.resolve("XBT_USD").resolve("5m.bin")) >= 48);
+
+        KrakenPriceService restarted = new KrakenPriceService(null);
+        candles = new CandleService(restarted, 100, dir.toString());
+        candles.start();
+        List<CandleDTO> restored = candles.getCandles("XBT/USD", "5m", null, null);
+        assertEquals(2, ticks(restored));
+        assertEquals(0, new BigDecimal("61000").compareTo(restored.get(restored.size() - 1).close()));
+
+        tick(restarted, "XBT/USD", "62000");
+        await(() -> ticks(candles.getCandles("XBT/USD", "1h", null, null)) == 3);
+    }
+
+    @Test
+    void testRejectsInvalidQueries() {
+        KrakenPriceService prices = new KrakenPriceService(null);
+        candles = new CandleService(prices, 100, "");
+        candles.start();
+        tick(prices, "ETH/USD", "2000");
+
+        assertThrows(IllegalArgumentException.class, () -> candles.getCandles("ETH/USD", "2m", null, null));
+        assertThrows(IllegalArgumentException.class, () -> candles.getCandles("ETH/USD", "1m", null, 101));
+        assertThrows(IllegalArgumentException.class, () -> candles.getCandles("DOGE/USD", "1m", null, null));
+        assertThrows(IllegalArgumentException.class, () -> candles.getCandles(null, "1m", null, null));
+        assertTrue(candles.getCandles("ETH/USD", "1m", System.currentTimeMillis() + 60_000, null).isEmpty());
+    }
+
+    private static void tick(KrakenPriceService prices, String symbol, String last) {
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"" + symbol + "\",\"last\":" + last + "}]}");
+    }
+
+    private static long ticks(List<CandleDTO> list) {
+        return list.stream().mapToLong(CandleDTO::ticks).sum();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("condition not met within 5s");
+            Thread.onSpinWait();
+        }
+    }
+}
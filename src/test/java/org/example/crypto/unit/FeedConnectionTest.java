@@ -0,0 +1,106 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.FeedConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FeedConnectionTest {
+
+    private final List<WebSocketHandler> links = Collections.synchronizedList(new ArrayList<>());
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private FeedConnection connection;
+
+    @AfterEach
+    void tearDown() {
+        if (connection != null) connection.stop();
+    }
+
+    @Test
+    void testPromotedStandbyWaitsForTheOldLinksFrame() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger mostInside = new AtomicInteger();
+        CountDownLatch slowEntered = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        connection = connect(payload -> {
+            mostInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+            if (payload.equals("slow")) {
+                slowEntered.countDown();
+                try {
+                    releaseSlow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            delivered.add(payload);
+            inside.decrementAndGet();
+        });
+        WebSocketHandler active = links.get(0);
+        WebSocketHandler standby = links.get(1);
+        active.afterConnectionEstablished(session);
+        standby.afterConnectionEstablished(session);
+
+        Thread oldReader = deliver(active, "slow");
+        assertTrue(slowEntered.await(5, TimeUnit.SECONDS));
+
+        // The active link is dropped while its reader is still inside onMessage
+        active.handleTransportError(session, new IOException("reset"));
+        assertEquals(1, connection.reconnects());
+        Thread newReader = deliver(standby, "fast");
+        newReader.join(200);
+        assertTrue(newReader.isAlive(), "the standby's frame must wait for the old link's");
+
+        releaseSlow.countDown();
+        oldReader.join(5_000);
+        newReader.join(5_000);
+        assertEquals(1, mostInside.get());
+        assertEquals(List.of("slow", "fast"), delivered);
+
+        // Frames still arriving on the dropped link are discarded
+        active.handleMessage(session, new TextMessage("stale"));
+        assertEquals(List.of("slow", "fast"), delivered);
+    }
+
+    private FeedConnection connect(Consumer<String> onMessage) {
+        WebSocketClient client = mock(WebSocketClient.class);
+        when(client.execute(any(WebSocketHandler.class), anyString())).thenAnswer(inv -> {
+            links.add(inv.getArgument(0));
+            return new CompletableFuture<WebSocketSession>(); // sessions are opened by hand
+        });
+        FeedConnection c = new FeedConnection(client, "ws://kraken.test", () -> new String[]{"XBT/USD"}, onMessage,
+                () -> { }, new FeedConnection.Settings(10, 100, 60_000, true));
+        c.start();
+        return c;
+    }
+
+    private Thread deliver(WebSocketHandler link, String payload) {
+        Thread t = new Thread(() -> {
+            try {
+                link.handleMessage(session, new TextMessage(payload));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        t.start();
+        return t;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.admission.IdempotencyCache;
+import org.example.crypto.admission.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void testSameKeyReplaysFirstResult() {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyCache.Outcome<Integer> first = cache.execute("k", "req", runs::incrementAndGet);
+        IdempotencyCache.Outcome<Integer> second = cache.execute("k", "req", runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertEquals(1, second.value());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 100);
+        cache.execute("k", "buy", () -> 1);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> cache.execute("k", "sell", () -> 2));
+    }
+
+    @Test
+    void testFailuresAreNotRemembered() {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 100);
+
+        assertThrows(IllegalStateException.class, () -> cache.execute("k", "req", () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertFalse(cache.execute("k", "req", () -> 1).replayed());
+    }
+
+    @Test
+    void testConcurrentDuplicateWaitsForFirst() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 100);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyCache.Outcome<String>> first = CompletableFuture.supplyAsync(() ->
+                cache.execute("k", "req", () -> {
+                    running.countDown();
+                    await(release);
+                    return "done";
+                }));
+        running.await();
+
+        CompletableFuture<IdempotencyCache.Outcome<String>> duplicate =
+                CompletableFuture.supplyAsync(() -> cache.execute("k", "req", () -> "again"));
+        release.countDown();
+
+        assertEquals("done", duplicate.get(5, TimeUnit.SECONDS).value());
+        assertTrue(duplicate.get().replayed());
+        assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+    }
+
+    @Test
+    void testExpiredAndExcessKeysAreEvicted() throws InterruptedException {
+        IdempotencyCache expiring = new IdempotencyCache(1, 100);
+        expiring.execute("k", "req", () -> 1);
+        Thread.sleep(5);
+        assertFalse(expiring.execute("k", "req", () -> 2).replayed());
+
+        IdempotencyCache bounded = new IdempotencyCache(60_000, 2);
+        for (int i = 0; i < 10; i++) bounded.execute("k" + i, "req", () -> 1);
+        assertTrue(bounded.size() <= 3);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.crypto.unit;
 
 import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -8,6 +10,9 @@ import org.springframework.web.socket.client.WebSocketClient;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -74,4 +79,93 @@ class KrakenPriceServiceTest {
         assertEquals(1, prices.size());
         assertTrue(prices.containsKey("XRP/USD"));
     }
+
+    @Test
+    void testParseBatchedFrameUpdatesEverySymbol() {
+        String json = """
+            {
+              "channel": "ticker",
+              "type": "snapshot",
+              "data": [
+                {"symbol": "BTC/USD", "bid": 64000.1, "last": 64000.5, "volume": 1200.5},
+                {"symbol": "SOL/USD", "last": 142.37, "change_pct": -1.2}
+              ]
+            }
+        """;
+
+        service.parseMessage(json);
+
+        assertEquals(new BigDecimal("64000.5"), service.getPrice("BTC/USD"));
+        assertEquals(new BigDecimal("142.37"), service.getPrice("SOL/USD"));
+
+        Quote btc = service.getQuote("BTC/USD");
+        assertEquals(new BigDecimal("64000.1"), PriceTable.toBigDecimal(btc.bid));
+        assertEquals(PriceTable.NO_PRICE, btc.ask);
+        assertEquals(new BigDecimal("1200.5"), PriceTable.toBigDecimal(btc.volume));
+        assertEquals(PriceTable.NO_PRICE, service.getQuote("SOL/USD").bid);
+    }
+
+    @Test
+    void testOversizedVolumeDoesNotDropTheFrame() {
+        String json = """
+            {
+              "channel": "ticker",
+              "data": [
+                {"symbol": "SHIB/USD", "last": 0.0000171, "bid_qty": 3000000000, "volume": 250000000000.5},
+                {"symbol": "XBT/USD", "last": 65000.5, "volume": 1200.5}
+              ]
+            }
+        """;
+
+        service.parseMessage(json);
+
+        assertEquals(new BigDecimal("0.0000171"), service.getPrice("SHIB/USD"));
+        assertEquals(new BigDecimal("65000.5"), service.getPrice("XBT/USD"));
+        Quote shib = service.getQuote("SHIB/USD");
+        assertEquals(PriceTable.SATURATED, shib.volume);
+        assertEquals(PriceTable.SATURATED, shib.bidQty);
+        assertEquals(new BigDecimal("1200.5"), PriceTable.toBigDecimal(service.getQuote("XBT/USD").volume));
+
+        // Same again through the path that buffers data arriving before the channel
+        service.parseMessage("""
+            {"data": [{"symbol": "SHIB/USD", "last": 0.0000172, "volume": 250000000000.5},
+                      {"symbol": "XBT/USD", "last": 65001.5, "bid": 1e12}], "channel": "ticker"}
+        """);
+
+        assertEquals(new BigDecimal("0.0000172"), service.getPrice("SHIB/USD"));
+        assertEquals(new BigDecimal("65001.5"), service.getPrice("XBT/USD"));
+        assertEquals(PriceTable.NO_PRICE, service.getQuote("XBT/USD").bid);
+    }
+
+    @Test
+    void testParseDataBeforeChannel() {
+        String json = """
+            {"type": "update", "data": [{"symbol": "ADA/USD", "last": 0.45}], "channel": "ticker"}
+        """;
+
+        service.parseMessage(json);
+        assertEquals(new BigDecimal("0.45"), service.getPrice("ADA/USD"));
+    }
+
+    @Test
+    void testParseHeartbeatAndStatusAreIgnored() {
+        service.parseMessage("{\"channel\":\"heartbeat\"}");
+        service.parseMessage("{\"channel\":\"status\",\"type\":\"update\",\"data\":[{\"system\":\"online\"}]}");
+        service.parseMessage("{\"method\":\"subscribe\",\"result\":{\"channel\":\"ticker\",\"symbol\":\"ETH/USD\"},\"success\":true}");
+
+        assertTrue(service.getCurrentPrices().isEmpty());
+    }
+
+    @Test
+    void testTickListenersConsumeOffTheFeedThread() throws Exception {
+        Thread feed = Thread.currentThread();
+        BlockingQueue<String> seen = new LinkedBlockingQueue<>();
+        service.addTickListener("test", (id, last, ts) ->
+                seen.add(service.getPriceTable().symbol(id) + "@" + last + (Thread.currentThread() == feed ? " on feed" : "")));
+
+        service.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2.5}]}");
+
+        assertEquals("ETH/USD@25000000000", seen.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getPipelineStats().published());
+    }
 }
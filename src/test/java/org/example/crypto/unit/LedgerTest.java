@@ -0,0 +1,113 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerTest {
+
+    // Buys 1 @ 100 then 1 @ 200, then sells 1 @ 300 and returns the sell entry
+    private static LedgerEntry buyTwiceSellOnce(Ledger ledger) {
+        apply(ledger, ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("100"), LocalDateTime.now()));
+        apply(ledger, ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("200"), LocalDateTime.now()));
+        return apply(ledger, ledger.prepareSell("ETH/USD", BigDecimal.ONE, new BigDecimal("300"), LocalDateTime.now()));
+    }
+
+    private static LedgerEntry apply(Ledger ledger, LedgerEntry entry) {
+        ledger.apply(entry);
+        return entry;
+    }
+
+    @Test
+    void testAverageCost() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.AVERAGE_COST);
+        LedgerEntry sell = buyTwiceSellOnce(ledger);
+
+        assertEquals(0, new BigDecimal("150").compareTo(sell.pnl()));
+        assertEquals(0, new BigDecimal("150").compareTo(ledger.costBasis("ETH/USD")));
+        assertTrue(sell.lotChanges().isEmpty());
+    }
+
+    @Test
+    void testFifo() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.FIFO);
+        LedgerEntry sell = buyTwiceSellOnce(ledger);
+
+        assertEquals(0, new BigDecimal("200").compareTo(sell.pnl()));
+        assertEquals(0, new BigDecimal("200").compareTo(ledger.costBasis("ETH/USD")));
+    }
+
+    @Test
+    void testLifo() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.LIFO);
+        LedgerEntry sell = buyTwiceSellOnce(ledger);
+
+        assertEquals(0, new BigDecimal("100").compareTo(sell.pnl()));
+        assertEquals(0, new BigDecimal("100").compareTo(ledger.costBasis("ETH/USD")));
+    }
+
+    @Test
+    void testPartialSellsReduceBasis() {
+        // The old history-wide average ignored earlier sells; basis must shrink with each one
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.FIFO);
+        apply(ledger, ledger.prepareBuy("ETH/USD", new BigDecimal("2"), new BigDecimal("100"), LocalDateTime.now()));
+        apply(ledger, ledger.prepareSell("ETH/USD", new BigDecimal("1.5"), new BigDecimal("120"), LocalDateTime.now()));
+        apply(ledger, ledger.prepareBuy("ETH/USD", new BigDecimal("1"), new BigDecimal("200"), LocalDateTime.now()));
+
+        LedgerEntry sell = apply(ledger, ledger.prepareSell("ETH/USD", new BigDecimal("1"), new BigDecimal("210"), LocalDateTime.now()));
+
+        // 0.5 @ 100 + 0.5 @ 200 sold for 210
+        assertEquals(0, new BigDecimal("60").compareTo(sell.pnl()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(ledger.holdings().get("ETH/USD")));
+        assertEquals(0, new BigDecimal("100").compareTo(ledger.costBasis("ETH/USD")));
+    }
+
+    @Test
+    void testClosingPositionReleasesBasis() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.AVERAGE_COST);
+        apply(ledger, ledger.prepareBuy("SOL/USD", new BigDecimal("3"), new BigDecimal("33.33"), LocalDateTime.now()));
+        LedgerEntry sell = apply(ledger, ledger.prepareSell("SOL/USD", new BigDecimal("3"), new BigDecimal("40"), LocalDateTime.now()));
+
+        assertEquals(0, new BigDecimal("20.01").compareTo(sell.pnl()));
+        assertEquals(0, ledger.costBasis("SOL/USD").signum());
+        assertTrue(ledger.holdings().isEmpty());
+    }
+
+    @Test
+    void testEntriesThatDoNotFitTheSchemaAreRejected() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("1000000000000000"), CostBasisMethod.FIFO);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ledger.prepareBuy("SHIB/USD", new BigDecimal("1e11"), new BigDecimal("0.00001"), LocalDateTime.now()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("1e15"), LocalDateTime.now()));
+        assertThrows(IllegalArgumentException.class, () -> Ledger.checkBalance(new BigDecimal("1e16")));
+        Ledger.checkBalance(new BigDecimal("9999999999999999.99"));
+    }
+
+    @Test
+    void testCopyIsIndependentAndReplaysOntoOriginal() {
+        Ledger ledger = new Ledger(1L, new BigDecimal("10000"), CostBasisMethod.FIFO);
+        apply(ledger, ledger.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("100"), LocalDateTime.now()));
+
+        Ledger staged = ledger.copy();
+        LedgerEntry buy = apply(staged, staged.prepareBuy("ETH/USD", BigDecimal.ONE, new BigDecimal("200"), LocalDateTime.now()));
+        LedgerEntry sell = apply(staged, staged.prepareSell("ETH/USD", new BigDecimal("1.5"), new BigDecimal("300"), LocalDateTime.now()));
+
+        // The original is untouched until the staged entries are applied to it
+        assertEquals(0, new BigDecimal("9900").compareTo(ledger.balance()));
+        assertEquals(0, BigDecimal.ONE.compareTo(ledger.holdings().get("ETH/USD")));
+
+        ledger.apply(buy);
+        ledger.apply(sell);
+        assertEquals(0, staged.balance().compareTo(ledger.balance()));
+        assertEquals(0, staged.costBasis("ETH/USD").compareTo(ledger.costBasis("ETH/USD")));
+        assertEquals(0, new BigDecimal("100").compareTo(ledger.costBasis("ETH/USD"))); // half of the 200 lot left
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.order.OrderType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTypeTest {
+
+    @Test
+    void testTriggerDirections() {
+        // Limit and take-profit wait for a better price, stop-loss for a worse one
+        assertTrue(OrderType.LIMIT.triggersAtOrBelow(true));
+        assertFalse(OrderType.LIMIT.triggersAtOrBelow(false));
+        assertFalse(OrderType.TAKE_PROFIT.triggersAtOrBelow(false));
+        assertTrue(OrderType.STOP_LOSS.triggersAtOrBelow(false));
+        assertFalse(OrderType.STOP_LOSS.triggersAtOrBelow(true));
+    }
+}
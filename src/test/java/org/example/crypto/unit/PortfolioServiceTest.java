@@ -0,0 +1,96 @@
+package org.example.crypto.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.account.AccountService;
+import org.example.crypto.account.ledger.CostBasisMethod;
+import org.example.crypto.account.ledger.Ledger;
+import org.example.crypto.account.ledger.LedgerEntry;
+import org.example.crypto.portfolio.PortfolioService;
+import org.example.crypto.portfolio.dto.PortfolioDTO;
+import org.example.crypto.portfolio.dto.PortfolioHoldingDTO;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PortfolioServiceTest {
+
+    private AccountService accounts;
+    private KrakenPriceService prices;
+    private PortfolioService service;
+    private LongConsumer onChange;
+    private Ledger ledger;
+
+    @BeforeEach
+    void setUp() {
+        accounts = mock(AccountService.class);
+        prices = new KrakenPriceService(null);
+        tick("ETH/USD", "2000");
+        tick("XBT/USD", "60000");
+
+        ledger = new Ledger(1, new BigDecimal("10000"), CostBasisMethod.AVERAGE_COST);
+        trade(ledger.prepareBuy("ETH/USD", new BigDecimal("2"), new BigDecimal("1500"), LocalDateTime.now()));
+        when(accounts.snapshot(1)).thenAnswer(inv -> ledger.copy());
+
+        service = new PortfolioService(accounts, prices, new ObjectMapper());
+        service.start();
+        ArgumentCaptor<LongConsumer> listener = ArgumentCaptor.forClass(LongConsumer.class);
+        verify(accounts).addChangeListener(listener.capture());
+        onChange = listener.getValue();
+    }
+
+    @Test
+    void testValuesHoldingsAtLatestPrices() {
+        PortfolioDTO portfolio = service.getPortfolio(1);
+
+        assertEquals(0, new BigDecimal("7000").compareTo(portfolio.balance()));
+        assertEquals(0, new BigDecimal("4000").compareTo(portfolio.marketValue()));
+        assertEquals(0, new BigDecimal("11000").compareTo(portfolio.equity()));
+        assertEquals(0, new BigDecimal("1000").compareTo(portfolio.unrealizedPnl()));
+        PortfolioHoldingDTO eth = portfolio.holdings().get(0);
+        assertEquals(0, new BigDecimal("3000").compareTo(eth.costBasis()));
+        assertEquals(0, new BigDecimal("0.3636").compareTo(eth.allocation()));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilAHeldSymbolTicks() {
+        byte[] first = service.getPortfolioJson(1);
+
+        tick("XBT/USD", "61000"); // not held
+        assertSame(first, service.getPortfolioJson(1));
+
+        tick("ETH/USD", "2100");
+        byte[] second = service.getPortfolioJson(1);
+        assertNotSame(first, second);
+        assertEquals(0, new BigDecimal("4200").compareTo(service.getPortfolio(1).marketValue()));
+        verify(accounts, times(1)).snapshot(1); // ticks never go back to the ledger
+    }
+
+    @Test
+    void testTradeRebuildsOnlyThatAccount() {
+        service.getPortfolioJson(1);
+
+        trade(ledger.prepareBuy("XBT/USD", new BigDecimal("0.01"), new BigDecimal("60000"), LocalDateTime.now()));
+        onChange.accept(1);
+
+        PortfolioDTO portfolio = service.getPortfolio(1);
+        assertEquals(2, portfolio.holdings().size());
+        assertEquals(0, new BigDecimal("6400").compareTo(portfolio.balance()));
+        verify(accounts, times(2)).snapshot(1);
+    }
+
+    private void trade(LedgerEntry entry) {
+        ledger.apply(entry);
+    }
+
+    private void tick(String symbol, String price) {
+        prices.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"" + symbol + "\",\"last\":" + price + "}]}");
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.crypto.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.price.KrakenPriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private KrakenPriceService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new KrakenPriceService(null);
+        service.setMeterRegistry(registry);
+    }
+
+    @Test
+    void testTicksAreCountedPerSymbol() {
+        service.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":3500.15},{\"symbol\":\"XBT/USD\",\"last\":60000}]}");
+        service.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":3501}]}");
+        service.parseMessage("{\"channel\":\"heartbeat\"}");
+
+        assertEquals(2.0, registry.get("prices.ticks").tag("symbol", "ETH/USD").counter().count());
+        assertEquals(1.0, registry.get("prices.ticks").tag("symbol", "XBT/USD").counter().count());
+        assertEquals(3, registry.get("prices.parse.time").timer().count());
+    }
+
+    @Test
+    void testMalformedFramesAreCounted() {
+        service.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":");
+
+        assertEquals(1.0, registry.get("prices.frames.malformed").counter().count());
+        assertEquals(0, registry.get("prices.parse.time").timer().count());
+    }
+
+    @Test
+    void testStalenessGaugeTracksLastUpdate() {
+        service.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":3500.15}]}");
+
+        double staleness = registry.get("prices.staleness").tag("symbol", "ETH/USD").gauge().value();
+        assertTrue(staleness >= 0 && staleness < 5, "Expected a fresh price, was " + staleness + "s old");
+    }
+}
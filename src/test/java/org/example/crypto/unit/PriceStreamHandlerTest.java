@@ -0,0 +1,126 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.PriceStreamHandler;
+import org.example.crypto.price.PriceTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PriceStreamHandlerTest {
+
+    private PriceTable table;
+    private List<Runnable> pendingSends;
+    private PriceStreamHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        table = new PriceTable(8);
+        pendingSends = new ArrayList<>();
+        handler = new PriceStreamHandler(table, 1000, 60_000, pendingSends::add);
+    }
+
+    @Test
+    void testFirstPushIsSnapshotThenOnlyChangedSymbols() throws Exception {
+        put("XBT/USD", "64000.5");
+        put("ETH/USD", "3500.15");
+        WebSocketSession session = session("s1");
+        handler.afterConnectionEstablished(session);
+
+        handler.push();
+        runSends();
+        put("ETH/USD", "3501");
+        Thread.sleep(2);
+        handler.push();
+        runSends();
+
+        List<String> sent = sentPayloads(session, 2);
+        assertEquals("{\"type\":\"snapshot\",\"prices\":{\"XBT/USD\":64000.5,\"ETH/USD\":3500.15}}", sent.get(0));
+        assertEquals("{\"type\":\"delta\",\"prices\":{\"ETH/USD\":3501}}", sent.get(1));
+    }
+
+    @Test
+    void testNothingSentWhenNothingChanged() throws Exception {
+        put("XBT/USD", "64000.5");
+        WebSocketSession session = session("s1");
+        handler.afterConnectionEstablished(session);
+
+        handler.push();
+        runSends();
+        Thread.sleep(2);
+        handler.push();
+        runSends();
+
+        sentPayloads(session, 1);
+    }
+
+    @Test
+    void testSlowSubscriberGetsConflatedDelta() throws Exception {
+        put("XBT/USD", "1");
+        WebSocketSession session = session("s1");
+        handler.afterConnectionEstablished(session);
+
+        handler.push();          // send still in flight (not run yet)
+        put("XBT/USD", "2");
+        put("XBT/USD", "3");
+        Thread.sleep(2);
+        handler.push();          // skipped: previous send has not completed
+        assertEquals(1, pendingSends.size());
+
+        runSends();
+        Thread.sleep(2);
+        handler.push();
+        runSends();
+
+        List<String> sent = sentPayloads(session, 2);
+        assertEquals("{\"type\":\"delta\",\"prices\":{\"XBT/USD\":3}}", sent.get(1));
+    }
+
+    @Test
+    void testStalledSubscriberIsDisconnected() throws Exception {
+        handler = new PriceStreamHandler(table, 1000, 0, pendingSends::add);
+        put("XBT/USD", "1");
+        WebSocketSession session = session("s1");
+        handler.afterConnectionEstablished(session);
+
+        handler.push();
+        Thread.sleep(2);
+        handler.push();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, handler.getSubscriberCount());
+    }
+
+    private void put(String symbol, String price) {
+        table.put(table.register(symbol), PriceTable.toFixed(new BigDecimal(price)));
+    }
+
+    private void runSends() {
+        List<Runnable> sends = new ArrayList<>(pendingSends);
+        pendingSends.clear();
+        sends.forEach(Runnable::run);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/ws/prices"));
+        return session;
+    }
+
+    private static List<String> sentPayloads(WebSocketSession session, int expected) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(expected)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTableTest {
+
+    @Test
+    void testRegisterAssignsDenseIds() {
+        PriceTable table = new PriceTable(4);
+
+        assertEquals(0, table.register("XBT/USD"));
+        assertEquals(1, table.register("ETH/USD"));
+        assertEquals(0, table.register("XBT/USD"));
+        assertEquals(2, table.size());
+
+        char[] buf = "..ETH/USD..".toCharArray();
+        assertEquals(1, table.idOf(buf, 2, 7));
+        assertEquals(-1, table.idOf("SOL/USD"));
+    }
+
+    @Test
+    void testRegisterFailsWhenFull() {
+        PriceTable table = new PriceTable(1);
+        table.register("XBT/USD");
+
+        assertThrows(IllegalStateException.class, () -> table.register("ETH/USD"));
+    }
+
+    @Test
+    void testPutAndGet() {
+        PriceTable table = new PriceTable(2);
+        int id = table.register("ETH/USD");
+
+        assertEquals(PriceTable.NO_PRICE, table.get(id));
+        assertEquals(0, table.version(id));
+
+        table.put(id, PriceTable.toFixed(new BigDecimal("3500.15")));
+
+        assertEquals(new BigDecimal("3500.15"), PriceTable.toBigDecimal(table.get(id)));
+        assertEquals(2, table.version(id));
+    }
+
+    @Test
+    void testQuoteRoundTripAndLastOnlyPutClearsBook() {
+        PriceTable table = new PriceTable(2);
+        int id = table.register("ETH/USD");
+        Quote out = new Quote();
+        assertFalse(table.quote(id, out));
+
+        Quote in = Quote.ofLast(2000);
+        in.bid = 1999;
+        in.ask = 2001;
+        in.bidQty = 5;
+        in.askQty = 7;
+        in.vwap = 1990;
+        table.put(id, in, 1_000L);
+
+        assertTrue(table.quote(id, out));
+        assertEquals(2000, out.last);
+        assertEquals(1999, table.bid(id));
+        assertEquals(2001, table.ask(id));
+        assertEquals(7, out.askQty);
+        assertEquals(PriceTable.NO_PRICE, out.volume);
+        assertEquals(1_000L, table.updatedAt(id));
+
+        table.put(id, 2010, 2_000L);
+        table.quote(id, out);
+        assertEquals(2010, out.buyPrice());
+        assertEquals(PriceTable.NO_PRICE, out.bid);
+    }
+
+    @Test
+    void testSnapshotFillsCallerBuffer() {
+        PriceTable table = new PriceTable(4);
+        table.put(table.register("A/USD"), 10);
+        table.register("B/USD");
+
+        long[] out = new long[4];
+        int n = table.snapshot(out);
+
+        assertEquals(2, n);
+        assertEquals(10, out[0]);
+        assertEquals(PriceTable.NO_PRICE, out[1]);
+    }
+
+    @Test
+    void testParseFixed() {
+        assertEquals(35001500000000L, parse("3500.15"));
+        assertEquals(241300L, parse("0.00002413"));
+        assertEquals(1000000000000L, parse("100"));
+        assertEquals(-5000000000L, parse("-0.5"));
+        assertEquals(1L, parse("0.00000000005"));      // rounds half up past SCALE
+        assertEquals(PriceTable.NO_PRICE, parse("1.5e-5"));
+        assertEquals(PriceTable.NO_PRICE, parse("99999999999999999999"));
+    }
+
+    @Test
+    void testToBigDecimalStripsTrailingZeros() {
+        assertEquals(new BigDecimal("100"), PriceTable.toBigDecimal(PriceTable.toFixed(new BigDecimal("100.00"))));
+        assertEquals(new BigDecimal("0.45"), PriceTable.toBigDecimal(PriceTable.toFixed(new BigDecimal("0.4500"))));
+    }
+
+    private static long parse(String s) {
+        return PriceTable.parseFixed(s.toCharArray(), 0, s.length());
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.admission.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void testBurstThenReject() {
+        RateLimiter limiter = new RateLimiter(1, 5, 100);
+
+        for (int i = 0; i < 5; i++) assertEquals(0, limiter.tryAcquire("a"));
+        long wait = limiter.tryAcquire("a");
+
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        assertEquals(0, limiter.tryAcquire("b")); // buckets are per key
+    }
+
+    @Test
+    void testTokensRefillOverTime() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100, 1, 100);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+
+        Thread.sleep(20);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void testConcurrentCallersNeverExceedBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(0.001, 50, 100); // effectively no refill during the test
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("shared") == 0) admitted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, admitted.get());
+    }
+
+    @Test
+    void testIdleBucketsAreSweptAtCapacity() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1000, 1, 2);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        Thread.sleep(5); // both buckets refill
+
+        limiter.tryAcquire("c");
+
+        assertEquals(1, limiter.size());
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.Quote;
+import org.example.crypto.price.fanout.TickFanout;
+import org.example.crypto.price.fanout.TickSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickFanoutTest {
+
+    private final PriceTable feed = new PriceTable(256);
+    private final PriceTable local = new PriceTable(256);
+    private final AtomicLong received = new AtomicLong();
+    private TickFanout fanout;
+    private TickSubscriber subscriber;
+
+    @AfterEach
+    void tearDown() {
+        if (subscriber != null) subscriber.stop();
+        if (fanout != null) fanout.close();
+    }
+
+    @Test
+    void testSubscriberGetsSnapshotThenLiveQuotes() throws Exception {
+        int xbt = feed.register("XBT/USD");
+        feed.put(xbt, quote(65_000, 64_999, 65_001), 1_000);
+        fanout = new TickFanout(feed, new InetSocketAddress("127.0.0.1", 0), 100);
+        subscriber = subscribe(fanout.port());
+
+        await(() -> local.idOf("XBT/USD") >= 0 && local.get(local.idOf("XBT/USD")) != PriceTable.NO_PRICE);
+        int id = local.idOf("XBT/USD");
+        assertEquals(PriceTable.toFixed(new BigDecimal("64999")), local.bid(id));
+        assertEquals(1_000, local.updatedAt(id)); // the feed's receive time, not ours
+
+        int eth = feed.register("ETH/USD");
+        feed.put(eth, quote(3_000, 2_999, 3_001), 2_000);
+        fanout.onTick(eth, 0, 2_000);
+
+        await(() -> local.idOf("ETH/USD") >= 0);
+        Quote q = new Quote();
+        await(() -> local.quote(local.idOf("ETH/USD"), q));
+        assertEquals(PriceTable.toFixed(new BigDecimal("3001")), q.ask);
+    }
+
+    @Test
+    void testSubscriberReconnectsWhenFeedRestarts() throws Exception {
+        int xbt = feed.register("XBT/USD");
+        feed.put(xbt, quote(65_000, 64_999, 65_001), 1_000);
+        fanout = new TickFanout(feed, new InetSocketAddress("127.0.0.1", 0), 100);
+        int port = fanout.port();
+        subscriber = subscribe(port);
+        await(() -> local.idOf("XBT/USD") >= 0 && local.updatedAt(local.idOf("XBT/USD")) == 1_000);
+
+        fanout.close();
+        await(() -> !subscriber.isConnected());
+        feed.put(xbt, quote(66_000, 65_999, 66_001), 3_000);
+        fanout = new TickFanout(feed, new InetSocketAddress("127.0.0.1", port), 100);
+
+        await(() -> local.updatedAt(local.idOf("XBT/USD")) == 3_000);
+        assertTrue(subscriber.reconnects() >= 1);
+    }
+
+    @Test
+    void testSlowSubscriberGetsLatestQuote() throws Exception {
+        int xbt = feed.register("XBT/USD");
+        fanout = new TickFanout(feed, new InetSocketAddress("127.0.0.1", 0), 100);
+        subscriber = subscribe(fanout.port());
+        await(() -> fanout.subscribers() == 1);
+
+        for (int i = 1; i <= 10_000; i++) {
+            feed.put(xbt, i, i);
+            fanout.onTick(xbt, i, i);
+        }
+
+        // Intermediate quotes may be skipped while the sender is busy, but the last one always arrives
+        await(() -> local.idOf("XBT/USD") >= 0 && local.get(local.idOf("XBT/USD")) == 10_000);
+        assertTrue(received.get() >= 1);
+    }
+
+    private TickSubscriber subscribe(int port) {
+        TickSubscriber s = new TickSubscriber(new InetSocketAddress("127.0.0.1", port), local,
+                (id, quote, timestamp) -> {
+                    local.put(id, quote, timestamp);
+                    received.incrementAndGet();
+                },
+                new TickSubscriber.Settings(20, 100, 1_000));
+        s.start();
+        return s;
+    }
+
+    private static Quote quote(long last, long bid, long ask) {
+        Quote q = new Quote();
+        q.last = PriceTable.toFixed(BigDecimal.valueOf(last));
+        q.bid = PriceTable.toFixed(BigDecimal.valueOf(bid));
+        q.ask = PriceTable.toFixed(BigDecimal.valueOf(ask));
+        return q;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out waiting for the fan-out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.KrakenPriceService;
+import org.example.crypto.price.PriceTable;
+import org.example.crypto.price.journal.TickJournal;
+import org.example.crypto.price.journal.TickReplayer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayReturnsTicksInOrderAcrossSegments() throws Exception {
+        PriceTable table = new PriceTable(8);
+        int eth = table.register("ETH/USD");
+        int xbt = table.register("XBT/USD");
+        try (TickJournal journal = new TickJournal(dir, 10 * TickJournal.RECORD_BYTES, table)) {
+            for (int i = 1; i <= 35; i++) journal.append(i % 2 == 0 ? eth : xbt, i * 100L, 1_000L + i);
+        }
+
+        List<Path> segments;
+        try (var files = Files.list(dir)) {
+            segments = files.filter(f -> f.getFileName().toString().endsWith(".dat")).toList();
+        }
+        assertEquals(4, segments.size());
+
+        TickReplayer replayer = new TickReplayer(dir);
+        assertEquals(List.of("XBT/USD", "ETH/USD"), replayer.symbols());
+        List<long[]> seen = new ArrayList<>();
+        assertEquals(35, replayer.replay((id, price, ts) -> seen.add(new long[]{id, price, ts}), 0));
+        for (int i = 1; i <= 35; i++) {
+            assertArrayEquals(new long[]{i % 2 == 0 ? 1 : 0, i * 100L, 1_000L + i}, seen.get(i - 1));
+        }
+    }
+
+    @Test
+    void testNewSessionKeepsSymbolIdsAndAppendsSegments() throws Exception {
+        PriceTable first = new PriceTable(8);
+        try (TickJournal journal = new TickJournal(dir, 1024, first)) {
+            journal.append(first.register("ETH/USD"), 1, 1);
+        }
+        PriceTable second = new PriceTable(8);
+        int sol = second.register("SOL/USD");
+        int eth = second.register("ETH/USD");
+        try (TickJournal journal = new TickJournal(dir, 1024, second)) {
+            journal.append(eth, 2, 2);
+            journal.append(sol, 3, 3);
+        }
+
+        TickReplayer replayer = new TickReplayer(dir);
+        List<String> symbols = replayer.symbols();
+        assertEquals(List.of("ETH/USD", "SOL/USD"), symbols);
+        List<String> seen = new ArrayList<>();
+        replayer.replay((id, price, ts) -> seen.add(symbols.get(id) + "@" + price), 0);
+        assertEquals(List.of("ETH/USD@1", "ETH/USD@2", "SOL/USD@3"), seen);
+    }
+
+    @Test
+    void testPacedReplayKeepsRecordedSpacing() throws Exception {
+        PriceTable table = new PriceTable(8);
+        int eth = table.register("ETH/USD");
+        try (TickJournal journal = new TickJournal(dir, 1024, table)) {
+            journal.append(eth, 1, 10_000);
+            journal.append(eth, 2, 10_400); // 400ms later
+        }
+
+        long start = System.nanoTime();
+        new TickReplayer(dir).replay((id, price, ts) -> { }, 4); // 100ms at 4x
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 95 && elapsedMs < 2_000, "elapsed " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testRecordedFeedReplaysThroughPriceService() throws Exception {
+        KrakenPriceService live = new KrakenPriceService(null);
+        live.startJournal(dir, 1 << 20);
+        live.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2000},{\"symbol\":\"XBT/USD\",\"last\":60000}]}");
+        live.parseMessage("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"ETH/USD\",\"last\":2001.5}]}");
+        live.stopJournal();
+
+        KrakenPriceService offline = new KrakenPriceService(null);
+        BlockingQueue<Long> consumed = new LinkedBlockingQueue<>();
+        offline.addTickListener("test", (id, price, ts) -> consumed.add(price));
+        assertEquals(3, offline.replay(dir, 0));
+
+        assertEquals(0, new BigDecimal("2001.5").compareTo(offline.getPrice("ETH/USD")));
+        assertEquals(0, new BigDecimal("60000").compareTo(offline.getPrice("XBT/USD")));
+        assertEquals(PriceTable.toFixed(new BigDecimal("2000")), consumed.poll(5, TimeUnit.SECONDS));
+        assertEquals(3, offline.getPipelineStats().published());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.crypto.unit;
+
+import org.example.crypto.price.ring.TickConsumer;
+import org.example.crypto.price.ring.TickRingBuffer;
+import org.example.crypto.price.ring.WaitStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickRingBufferTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"BUSY_SPIN", "YIELDING", "SLEEPING", "BLOCKING"})
+    void testEveryConsumerSeesEveryTickInOrder(String strategy) {
+        TickRingBuffer ring = new TickRingBuffer(64, WaitStrategy.named(strategy));
+        List<Long> a = Collections.synchronizedList(new ArrayList<>());
+        List<Long> b = Collections.synchronizedList(new ArrayList<>());
+        TickConsumer ca = ring.addConsumer("a", (id, price, ts) -> a.add(price));
+        TickConsumer cb = ring.addConsumer("b", (id, price, ts) -> b.add(price));
+
+        int n = 10_000; // many times the ring size, so the producer has to wait for consumers
+        for (int i = 0; i < n; i++) ring.publish(i % 7, i, 0);
+
+        await(() -> a.size() == n && b.size() == n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, a.get(i));
+            assertEquals(i, b.get(i));
+        }
+        ring.removeConsumer(ca);
+        ring.removeConsumer(cb);
+    }
+
+    @Test
+    void testSlowConsumerDoesNotHoldBackOthersWithinRing() throws Exception {
+        TickRingBuffer ring = new TickRingBuffer(1024, WaitStrategy.named("SLEEPING"));
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> fast = Collections.synchronizedList(new ArrayList<>());
+        TickConsumer slow = ring.addConsumer("slow", (id, price, ts) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ring.addConsumer("fast", (id, price, ts) -> fast.add(id));
+
+        for (int i = 0; i < 500; i++) ring.publish(i, i, 0);
+
+        await(() -> fast.size() == 500);
+        TickRingBuffer.Stats stats = ring.stats();
+        assertEquals(500, stats.published());
+        TickConsumer.Stats slowStats = stats.consumers().stream().filter(c -> c.name().equals("slow")).findFirst().orElseThrow();
+        TickConsumer.Stats fastStats = stats.consumers().stream().filter(c -> c.name().equals("fast")).findFirst().orElseThrow();
+        assertTrue(slowStats.lag() >= 499, "slow consumer lag " + slowStats.lag());
+        assertEquals(0, fastStats.lag());
+        assertEquals(500, fastStats.processed());
+
+        release.countDown();
+        await(() -> slow.sequence() == 499);
+        assertEquals(0, ring.stats().producerWaits());
+    }
+
+    @Test
+    void testConsumerAddedLaterStartsAtCurrentTick() {
+        TickRingBuffer ring = new TickRingBuffer(8, WaitStrategy.named("YIELDING"));
+        for (int i = 0; i < 20; i++) ring.publish(0, i, 0); // no consumers: nothing gates the producer
+
+        List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+        ring.addConsumer("late", (id, price, ts) -> seen.add(price));
+        ring.publish(0, 99, 0);
+
+        await(() -> seen.size() == 1);
+        assertEquals(99L, seen.get(0));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TickRingBuffer(100, WaitStrategy.named("SLEEPING")));
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.named("NAPPING"));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not met within 5s");
+            Thread.onSpinWait();
+        }
+    }
+}